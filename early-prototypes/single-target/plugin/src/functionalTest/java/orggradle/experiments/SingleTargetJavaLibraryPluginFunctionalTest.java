@@ -65,6 +65,35 @@ class SingleTargetJavaLibraryPluginFunctionalTest {
         BuildResult result = runner.build();
     }
 
+    @Test void canReportModelFromConfigurationCache() throws IOException {
+        writeString(getSettingsFile(), "rootProject.name = 'single-target'");
+        writeString(getBuildFile(), """
+            plugins {
+                id('orggradle.experiments.javalibrary')
+            }
+            javaLibrary {
+                dependencies {
+                    api("com.google.guava:guava:28.0-jre")
+                }
+                debug = true
+            }
+            """);
+
+        GradleRunner runner = GradleRunner.create();
+        runner.forwardOutput();
+        runner.withPluginClasspath();
+        runner.withArguments("printModel", "--configuration-cache");
+        runner.withProjectDir(projectDir);
+        runner.build();
+        BuildResult result = runner.build();
+
+        assertTrue(result.getOutput().contains("Reusing configuration cache."));
+        assertTrue(result.getOutput().contains("\"softwareType\": \"javaLibrary\""));
+        assertTrue(result.getOutput().contains("\"com.google.guava:guava:28.0-jre\""));
+        assertTrue(result.getOutput().contains("\"debug\": true"));
+        assertTrue(new File(projectDir, "build/reports/model/model.json").isFile());
+    }
+
     private void writeString(File file, String string) throws IOException {
         try (Writer writer = new FileWriter(file)) {
             writer.write(string);
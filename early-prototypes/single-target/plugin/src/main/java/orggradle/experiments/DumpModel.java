@@ -0,0 +1,192 @@
+package orggradle.experiments;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Writes the resolved model of a software type as JSON.
+ * <p>
+ * The model is captured as task inputs when the task is configured, so the task does not need the project when it runs
+ * and a build reusing the configuration cache can report the model without configuring the project again.
+ */
+@DisableCachingByDefault(because = "Not worth caching")
+public abstract class DumpModel extends DefaultTask {
+    public static final String DUMP_MODEL_TASK_NAME = "dumpModel";
+    public static final String PRINT_MODEL_TASK_NAME = "printModel";
+
+    @Input
+    public abstract Property<String> getSoftwareType();
+
+    @Input
+    public abstract ListProperty<String> getSourceDirectories();
+
+    @Input
+    @Optional
+    public abstract Property<Integer> getToolchainVersion();
+
+    @Input
+    public abstract Property<Boolean> getDebug();
+
+    @Input
+    @Optional
+    public abstract Property<String> getMainClass();
+
+    /**
+     * The declared dependencies, by configuration name.
+     */
+    @Input
+    public abstract MapProperty<String, List<String>> getDependencies();
+
+    @Input
+    public abstract ListProperty<String> getRunTasks();
+
+    @OutputFile
+    public abstract RegularFileProperty getModelFile();
+
+    /**
+     * Registers the {@value #DUMP_MODEL_TASK_NAME} task for a software type, and the {@value #PRINT_MODEL_TASK_NAME} task printing its report.
+     */
+    static void register(Project project, String softwareType, Provider<Boolean> debug, Provider<String> mainClass, Collection<String> dependencyScopes) {
+        var java = project.getExtensions().getByType(JavaPluginExtension.class);
+        var mainSourceSet = java.getSourceSets().getByName("main");
+
+        var dumpModel = project.getTasks().register(DUMP_MODEL_TASK_NAME, DumpModel.class, task -> {
+            task.setGroup("help");
+            task.setDescription("Writes the model of the " + softwareType + " as JSON.");
+            task.getSoftwareType().set(softwareType);
+            task.getSourceDirectories().set(mainSourceSet.getJava().getSourceDirectories().getElements().map(locations -> locations.stream()
+                    .map(location -> location.getAsFile().getAbsolutePath())
+                    .collect(Collectors.toList())));
+            task.getToolchainVersion().set(java.getToolchain().getLanguageVersion().map(version -> version.asInt()));
+            task.getDebug().set(debug);
+            task.getMainClass().set(mainClass);
+            for (String scope : dependencyScopes) {
+                var dependencies = project.getConfigurations().getByName(scope).getDependencies();
+                task.getDependencies().put(scope, project.provider(() -> dependencies.stream().map(DumpModel::notation).collect(Collectors.toList())));
+            }
+            task.getRunTasks().set(project.provider(() -> new ArrayList<>(project.getTasks().withType(JavaExec.class).getNames())));
+            task.getModelFile().set(project.getLayout().getBuildDirectory().file("reports/model/model.json"));
+        });
+        project.getTasks().register(PRINT_MODEL_TASK_NAME, PrintModel.class, task -> {
+            task.setGroup("help");
+            task.setDescription("Prints the model of the " + softwareType + ".");
+            task.getModelFile().set(dumpModel.flatMap(DumpModel::getModelFile));
+        });
+    }
+
+    private static String notation(Dependency dependency) {
+        StringBuilder notation = new StringBuilder();
+        if (dependency.getGroup() != null) {
+            notation.append(dependency.getGroup()).append(':');
+        }
+        notation.append(dependency.getName());
+        if (dependency.getVersion() != null) {
+            notation.append(':').append(dependency.getVersion());
+        }
+        return notation.toString();
+    }
+
+    @TaskAction
+    void dump() {
+        Map<String, Object> model = new LinkedHashMap<>();
+        model.put("softwareType", getSoftwareType().get());
+        model.put("sourceDirectories", getSourceDirectories().get());
+        model.put("toolchainVersion", getToolchainVersion().getOrNull());
+        model.put("debug", getDebug().get());
+        model.put("mainClass", getMainClass().getOrNull());
+        model.put("dependencies", getDependencies().get());
+        model.put("runTasks", getRunTasks().get());
+
+        StringBuilder json = new StringBuilder();
+        writeJson(model, "", json);
+        json.append('\n');
+        File modelFile = getModelFile().get().getAsFile();
+        try {
+            Files.writeString(modelFile.toPath(), json, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeJson(Object value, String indent, StringBuilder json) {
+        if (value instanceof Map<?, ?> map) {
+            if (map.isEmpty()) {
+                json.append("{}");
+                return;
+            }
+            json.append("{\n");
+            var entries = new ArrayList<>(map.entrySet());
+            for (int i = 0; i < entries.size(); i++) {
+                json.append(indent).append("  ");
+                writeString(entries.get(i).getKey().toString(), json);
+                json.append(": ");
+                writeJson(entries.get(i).getValue(), indent + "  ", json);
+                json.append(i < entries.size() - 1 ? ",\n" : "\n");
+            }
+            json.append(indent).append('}');
+        } else if (value instanceof List<?> list) {
+            if (list.isEmpty()) {
+                json.append("[]");
+                return;
+            }
+            json.append("[\n");
+            for (int i = 0; i < list.size(); i++) {
+                json.append(indent).append("  ");
+                writeJson(list.get(i), indent + "  ", json);
+                json.append(i < list.size() - 1 ? ",\n" : "\n");
+            }
+            json.append(indent).append(']');
+        } else if (value instanceof String string) {
+            writeString(string, json);
+        } else {
+            // Numbers, booleans and absent values
+            json.append(value);
+        }
+    }
+
+    private static void writeString(String value, StringBuilder json) {
+        json.append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
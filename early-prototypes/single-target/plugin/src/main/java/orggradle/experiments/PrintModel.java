@@ -1,19 +1,33 @@
 package orggradle.experiments;
 
 import org.gradle.api.DefaultTask;
-import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.api.tasks.UntrackedTask;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Prints the model written by {@link DumpModel}.
+ */
+@UntrackedTask(because = "Prints the model on every invocation")
 public abstract class PrintModel extends DefaultTask {
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public abstract RegularFileProperty getModelFile();
+
     @TaskAction
     void doIt() {
-        var java = getProject().getExtensions().getByType(JavaPluginExtension.class);
-        var mainSourceSet = java.getSourceSets().getByName("main");
-        System.out.println(mainSourceSet.getJava().getSrcDirs());
-
-        getProject().getTasks().named(mainSourceSet.getCompileJavaTaskName(), JavaCompile.class, task -> {
-            System.out.println(task.getOptions().isDebug());
-        });
+        try {
+            System.out.print(Files.readString(getModelFile().get().getAsFile().toPath(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
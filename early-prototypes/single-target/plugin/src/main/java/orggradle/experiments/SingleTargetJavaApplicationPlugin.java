@@ -16,6 +16,8 @@ import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.compile.JavaCompile;
 
+import java.util.List;
+
 /**
  *
  */
@@ -74,6 +76,7 @@ public class SingleTargetJavaApplicationPlugin implements Plugin<Project> {
 
         var javaApplicationExtension = project.getExtensions().getByType(org.gradle.api.plugins.JavaApplication.class);
         javaApplicationExtension.getMainClass().convention(javaApplication.getMainClass());
-        project.getTasks().register("printModel", PrintModel.class);
+        DumpModel.register(project, "javaApplication", javaApplication.getDebug(), javaApplicationExtension.getMainClass(),
+                List.of("implementation", "compileOnly", "runtimeOnly"));
     }
 }
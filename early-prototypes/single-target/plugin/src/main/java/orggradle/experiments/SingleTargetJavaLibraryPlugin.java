@@ -8,6 +8,8 @@ import org.gradle.api.internal.plugins.DslObject;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.tasks.compile.JavaCompile;
 
+import java.util.List;
+
 /**
  *
  */
@@ -36,7 +38,8 @@ public class SingleTargetJavaLibraryPlugin implements Plugin<Project> {
         project.getTasks().named(mainSourceSet.getCompileJavaTaskName(), JavaCompile.class, task -> {
             new DslObject(task.getOptions()).getConventionMapping().map("debug", () -> javaLibrary.getDebug().get());
         });
-        project.getTasks().register("printModel", PrintModel.class);
+        DumpModel.register(project, "javaLibrary", javaLibrary.getDebug(), project.provider(() -> null),
+                List.of("api", "compileOnlyApi", "implementation", "compileOnly", "runtimeOnly"));
     }
     /*
 
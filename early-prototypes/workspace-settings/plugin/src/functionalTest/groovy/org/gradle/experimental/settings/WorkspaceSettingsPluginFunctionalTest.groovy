@@ -186,6 +186,120 @@ class WorkspaceSettingsPluginFunctionalTest extends Specification {
                 .build()
     }
 
+    def "only includes the projects needed by the requested tasks with partial loading"() {
+        given:
+        createBuildFileIn("app")
+        createBuildFileIn("lib")
+        createBuildFileIn("other")
+        projectDir.toPath().resolve("app/build.gradle.kts").toFile() << """
+            val implementation by configurations.creating
+            dependencies {
+                implementation(project(":lib"))
+            }
+        """
+
+        settingsFile << """
+            plugins {
+                id("org.gradle.experimental.settings.workspace")
+            }
+
+            configure<org.gradle.experimental.settings.WorkspaceSettings>() {
+                layout {
+                }
+            }
+        """
+        buildFile << """
+            println("Loaded projects: \${allprojects.map { it.path }.sorted()}")
+        """
+
+        when:
+        // The first build loads all projects, and records their dependencies
+        BuildResult result = createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":app:help")
+                .build()
+
+        then:
+        result.output.contains("Loaded projects: [:, :app, :lib, :other]")
+
+        when:
+        result = createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":app:help")
+                .build()
+
+        then:
+        result.output.contains("Loaded projects: [:, :app, :lib]")
+
+        when:
+        // An unqualified task after a task option runs in every project, so all projects are loaded
+        result = createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":app:help", "--rerun", "help")
+                .build()
+
+        then:
+        result.output.contains("Loaded projects: [:, :app, :lib, :other]")
+    }
+
+    def "includes all projects with partial loading once a build file changed"() {
+        given:
+        createBuildFileIn("app")
+        createBuildFileIn("lib")
+        createBuildFileIn("other")
+        File appBuildFile = projectDir.toPath().resolve("app/build.gradle.kts").toFile()
+        appBuildFile << """
+            val implementation by configurations.creating
+            dependencies {
+                implementation(project(":lib"))
+            }
+        """
+
+        settingsFile << """
+            plugins {
+                id("org.gradle.experimental.settings.workspace")
+            }
+
+            configure<org.gradle.experimental.settings.WorkspaceSettings>() {
+                layout {
+                }
+            }
+        """
+        buildFile << """
+            println("Loaded projects: \${allprojects.map { it.path }.sorted()}")
+        """
+        createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":app:help")
+                .build()
+
+        when:
+        // The recorded dependencies of :app are out of date, so all projects are loaded and the new dependency recorded
+        appBuildFile << """
+            dependencies {
+                implementation(project(":other"))
+            }
+        """
+        BuildResult result = createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":app:help")
+                .build()
+
+        then:
+        result.output.contains("Loaded projects: [:, :app, :lib, :other]")
+
+        when:
+        result = createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":app:help")
+                .build()
+
+        then:
+        result.output.contains("Loaded projects: [:, :app, :lib, :other]")
+
+        when:
+        result = createRunner()
+                .withArguments("--stacktrace", "-Pworkspace.partialLoading=true", ":lib:help")
+                .build()
+
+        then:
+        result.output.contains("Loaded projects: [:, :lib]")
+    }
+
     private void createBuildFileIn(String path) {
         Path subdir = projectDir.toPath().resolve(path)
         Files.createDirectories(subdir)
@@ -0,0 +1,26 @@
+package org.gradle.experimental.settings;
+
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+
+/**
+ * Controls how projects are detected below the root project and the directories added with {@code from()}.
+ */
+public interface AutodetectSpecification {
+    /**
+     * How many directory levels to look for projects below each detected directory, 1 meaning only its children.
+     * A directory containing a project is not descended into, the project detects its own subprojects.
+     */
+    Property<Integer> getMaxDepth();
+
+    /**
+     * The names of the files marking a directory as a project.
+     */
+    SetProperty<String> getMarkers();
+
+    /**
+     * Glob patterns of directories that are not searched, relative to the directory being detected from.
+     * Patterns starting with {@code **}{@code /} also match at the top level.
+     */
+    SetProperty<String> getExclude();
+}
@@ -1,7 +1,10 @@
 package org.gradle.experimental.settings;
 
+import org.gradle.api.Action;
 import org.gradle.api.provider.Property;
 
 public interface RootProjectSpecification extends ProjectContainer {
     Property<Boolean> getAutodetect();
+
+    void autodetect(Action<? super AutodetectSpecification> action);
 }
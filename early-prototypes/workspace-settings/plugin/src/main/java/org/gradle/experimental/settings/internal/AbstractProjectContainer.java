@@ -3,15 +3,21 @@ package org.gradle.experimental.settings.internal;
 import org.gradle.api.Action;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.provider.Property;
+import org.gradle.experimental.settings.AutodetectSpecification;
 import org.gradle.experimental.settings.ProjectContainer;
 import org.gradle.experimental.settings.ProjectSpecification;
 import org.gradle.internal.Actions;
 
 import javax.annotation.Nullable;
 import java.io.File;
-import java.util.Arrays;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import static org.gradle.experimental.settings.ProjectSpecification.LOGICAL_PATH_SEPARATOR;
 import static org.gradle.experimental.settings.ProjectSpecification.logicalPathFromParent;
@@ -27,7 +33,9 @@ abstract public class AbstractProjectContainer implements ProjectContainer {
     protected final String logicalPathRelativeToParent;
 
     protected final ProjectContainer parent;
-    private final ProjectSpecificationFactory projectSpecificationFactory;
+    protected final ProjectSpecificationFactory projectSpecificationFactory;
+
+    private final List<AbstractProjectContainer> subprojects = new ArrayList<>();
 
     public AbstractProjectContainer(Settings settings, File dir, String logicalPathRelativeToParent, @Nullable ProjectContainer parent, ProjectSpecificationFactory projectSpecificationFactory) {
         this.settings = settings;
@@ -63,20 +71,15 @@ abstract public class AbstractProjectContainer implements ProjectContainer {
         return subproject(logicalPath, new File(getDir(), relativeDirPath), action);
     }
 
-    private ProjectSpecification subproject(File dir) {
-        return subproject(dir.getName(), dir, Actions.doNothing());
-    }
-
     public ProjectSpecification subproject(String logicalPath, File dir, Action<? super ProjectSpecification> action) {
         if (logicalPath.contains(LOGICAL_PATH_SEPARATOR) || logicalPath.contains(File.separator)) {
             throw new IllegalArgumentException("The logical path '" + logicalPath + "' should not contain separators.  To create a complex logical path, use nested calls to the 'subproject()' method.");
         }
 
         DefaultProjectSpecification spec = projectSpecificationFactory.create(settings, dir, logicalPath, this);
-        settings.include(spec.getLogicalPath());
-        settings.project(spec.getLogicalPath()).setProjectDir(spec.getDir());
+        projectSpecificationFactory.include(spec);
         action.execute(spec);
-        spec.autoDetectIfConfigured();
+        subprojects.add(spec);
         return spec;
     }
 
@@ -85,19 +88,80 @@ abstract public class AbstractProjectContainer implements ProjectContainer {
         autoDetectDirs.add(new File(dir, relativePath));
     }
 
+    /**
+     * Detects the subprojects of this container, then lets each subproject detect its own.
+     * This runs once the whole layout has been declared, so declared projects take precedence over detected ones.
+     */
     public void autoDetectIfConfigured() {
         if (getAutodetect().get()) {
+            AutodetectSpecification autodetect = projectSpecificationFactory.getAutodetectSpecification();
+            int maxDepth = autodetect.getMaxDepth().get();
+            if (maxDepth < 1) {
+                throw new IllegalArgumentException("The autodetect maxDepth should be at least 1, but was " + maxDepth);
+            }
+            Predicate<Path> excluded = excludes(autodetect.getExclude().get());
+
+            ProjectDirectoryIndex directoryIndex = projectSpecificationFactory.getDirectoryIndex();
             autoDetectDirs.forEach(dir -> {
-                    if (dir.exists()) {
-                        Arrays.stream(dir.listFiles())
-                                .filter(file -> file.isDirectory()
-                                        && new File(file, PROJECT_MARKER_FILE).exists()
-                                        && !projectSpecificationFactory.isLogicalPathOrDirectoryDeclared(logicalPathFromParent(file.getName(), this), file))
-                                .forEach(this::subproject);
-                    }
+                // Declared projects detect their own subprojects, so their directories are not searched
+                Predicate<Path> pruned = relativePath -> excluded.test(relativePath)
+                        || projectSpecificationFactory.isDirectoryDeclared(new File(dir, relativePath.toString()));
+                Path searchDir = dir.toPath().toAbsolutePath().normalize();
+                directoryIndex.findProjectDirs(dir, maxDepth, pruned).stream()
+                        .filter(file -> !projectSpecificationFactory.isDirectoryDeclared(file))
+                        .forEach(file -> detectedSubproject(searchDir, searchDir.relativize(file.toPath())));
+            });
+        }
+        new ArrayList<>(subprojects).forEach(AbstractProjectContainer::autoDetectIfConfigured);
+    }
+
+    /**
+     * Adds a detected project, with a logical path made of the directories between the searched directory and the project
+     * directory, so projects in directories of the same name get different logical paths. As for a nested include in a
+     * settings script, the intermediate directories become projects too. They do not search their directory again.
+     */
+    private void detectedSubproject(Path searchDir, Path relativePath) {
+        AbstractProjectContainer container = this;
+        File containerDir = searchDir.toFile();
+        for (Path segment : relativePath) {
+            String name = segment.toString();
+            File projectDir = new File(containerDir, name);
+            AbstractProjectContainer subproject = container.findSubproject(name, projectDir);
+            if (subproject == null) {
+                String logicalPath = logicalPathFromParent(name, container);
+                if (projectSpecificationFactory.isLogicalPathOrDirectoryDeclared(logicalPath, projectDir)) {
+                    throw new IllegalArgumentException("The project detected in '" + searchDir.resolve(relativePath) + "' would have the logical path '"
+                            + logicalPath + "', which has already been declared for another directory. Declare one of these projects in the layout with a different logical path.");
                 }
-            );
+                subproject = (AbstractProjectContainer) container.subproject(name, projectDir, Actions.doNothing());
+                subproject.getAutodetect().set(false);
+            }
+            container = subproject;
+            containerDir = projectDir;
+        }
+        // Only the project itself detects its own subprojects
+        container.getAutodetect().set(getAutodetect());
+    }
+
+    @Nullable
+    private AbstractProjectContainer findSubproject(String logicalPathRelativeToParent, File dir) {
+        for (AbstractProjectContainer subproject : subprojects) {
+            if (subproject.logicalPathRelativeToParent.equals(logicalPathRelativeToParent) && subproject.dir.toPath().toAbsolutePath().normalize().equals(dir.toPath())) {
+                return subproject;
+            }
+        }
+        return null;
+    }
+
+    private static Predicate<Path> excludes(Set<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            if (pattern.startsWith("**/")) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(3)));
+            }
         }
+        return path -> matchers.stream().anyMatch(matcher -> matcher.matches(path));
     }
 
     abstract protected Property<Boolean> getAutodetect();
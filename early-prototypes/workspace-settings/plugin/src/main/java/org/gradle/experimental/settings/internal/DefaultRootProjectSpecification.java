@@ -1,6 +1,8 @@
 package org.gradle.experimental.settings.internal;
 
+import org.gradle.api.Action;
 import org.gradle.api.initialization.Settings;
+import org.gradle.experimental.settings.AutodetectSpecification;
 import org.gradle.experimental.settings.RootProjectSpecification;
 
 import javax.inject.Inject;
@@ -18,4 +20,9 @@ abstract public class DefaultRootProjectSpecification extends AbstractProjectCon
     public String getLogicalPath() {
         return ":";
     }
+
+    @Override
+    public void autodetect(Action<? super AutodetectSpecification> action) {
+        action.execute(projectSpecificationFactory.getAutodetectSpecification());
+    }
 }
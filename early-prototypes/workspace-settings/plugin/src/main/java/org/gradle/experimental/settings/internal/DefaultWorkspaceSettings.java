@@ -1,22 +1,49 @@
 package org.gradle.experimental.settings.internal;
 
 import org.gradle.api.Action;
+import org.gradle.api.artifacts.ProjectDependency;
 import org.gradle.api.initialization.Settings;
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ProviderFactory;
 import org.gradle.experimental.settings.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.gradle.experimental.settings.ProjectSpecification.LOGICAL_PATH_SEPARATOR;
 
 abstract public class DefaultWorkspaceSettings implements WorkspaceSettings {
+    /**
+     * When enabled, only the projects containing the requested tasks and the projects they depend on are included.
+     */
+    public static final String PARTIAL_LOADING_PROPERTY = "workspace.partialLoading";
+
+    private static final Logger LOGGER = Logging.getLogger(DefaultWorkspaceSettings.class);
+
     private final Settings settings;
     private final ProjectSpecificationFactory projectSpecificationFactory;
     private boolean projectsConfigured;
     private boolean buildConfigured = false;
+    private AutodetectSpecification autodetectSpecification;
+    private ProjectDirectoryIndex directoryIndex;
+    private boolean partialLoading;
+    private final List<DefaultProjectSpecification> deferredProjects = new ArrayList<>();
 
     @Inject
     public DefaultWorkspaceSettings(Settings settings) {
@@ -27,8 +54,16 @@ abstract public class DefaultWorkspaceSettings implements WorkspaceSettings {
         // presumably this would move to after the project layout is evaluated rather than after settings.
         settings.getGradle().settingsEvaluated(s -> {
             if (!projectsConfigured) {
+                partialLoading = isPartialLoadingRequested();
                 DefaultRootProjectSpecification spec = createRootProjectSpecification(settings);
                 spec.autoDetectIfConfigured();
+                storeDirectoryIndex();
+                includeRequestedProjects();
+            }
+        });
+        settings.getGradle().projectsEvaluated(gradle -> {
+            if (partialLoading) {
+                recordProjectDependencies(gradle);
             }
         });
     }
@@ -44,10 +79,13 @@ abstract public class DefaultWorkspaceSettings implements WorkspaceSettings {
             throw new UnsupportedOperationException("The projects can only be configured once");
         }
         projectsConfigured = true;
+        partialLoading = isPartialLoadingRequested();
 
         DefaultRootProjectSpecification spec = createRootProjectSpecification(settings);
         action.execute(spec);
         spec.autoDetectIfConfigured();
+        storeDirectoryIndex();
+        includeRequestedProjects();
 
         return spec;
     }
@@ -66,25 +104,170 @@ abstract public class DefaultWorkspaceSettings implements WorkspaceSettings {
         }
     }
 
+    private void storeDirectoryIndex() {
+        if (directoryIndex != null) {
+            directoryIndex.store();
+        }
+    }
+
+    private boolean isPartialLoadingRequested() {
+        return getProviders().gradleProperty(PARTIAL_LOADING_PROPERTY).map(Boolean::parseBoolean).getOrElse(false);
+    }
+
+    /**
+     * With partial loading, includes the projects declared or detected in the layout that are needed by the requested tasks.
+     */
+    private void includeRequestedProjects() {
+        if (!partialLoading) {
+            return;
+        }
+        Set<String> selected = selectRequestedProjects();
+        List<DefaultProjectSpecification> included = deferredProjects.stream()
+                .filter(spec -> selected == null || selected.contains(spec.getLogicalPath()))
+                .collect(Collectors.toList());
+        included.forEach(this::includeProject);
+        LOGGER.info("Partial loading: including " + included.size() + " of " + deferredProjects.size() + " subprojects");
+    }
+
+    /**
+     * Returns the logical paths of the projects containing the requested tasks, of the projects they depend on and of
+     * their parents, or {@code null} when all projects are needed.
+     */
+    @Nullable
+    private Set<String> selectRequestedProjects() {
+        ProjectDependencyIndex dependencyIndex = ProjectDependencyIndex.load(settings.getRootDir());
+        if (dependencyIndex.isEmpty()) {
+            LOGGER.info("Partial loading: no project dependencies were recorded yet, including all projects");
+            return null;
+        }
+
+        Map<String, DefaultProjectSpecification> projects = new HashMap<>();
+        deferredProjects.forEach(spec -> projects.put(spec.getLogicalPath(), spec));
+
+        // The recorded dependencies of a project may be out of date once its build file changed
+        Map<String, File> projectDirs = new HashMap<>();
+        projectDirs.put(LOGICAL_PATH_SEPARATOR, settings.getRootDir());
+        deferredProjects.forEach(spec -> projectDirs.put(spec.getLogicalPath(), spec.getDir()));
+        Set<String> changedProjects = dependencyIndex.changedProjects(projectDirs);
+        if (!changedProjects.isEmpty()) {
+            LOGGER.info("Partial loading: the build files of " + changedProjects + " changed since their dependencies were recorded, including all projects");
+            return null;
+        }
+
+        File currentDir = settings.getStartParameter().getCurrentDir().toPath().toAbsolutePath().normalize().toFile();
+        String currentProject = deferredProjects.stream()
+                .filter(spec -> spec.getDir().toPath().toAbsolutePath().normalize().toFile().equals(currentDir))
+                .map(DefaultProjectSpecification::getLogicalPath)
+                .findFirst()
+                .orElse(LOGICAL_PATH_SEPARATOR);
+
+        Set<String> requested = new LinkedHashSet<>();
+        boolean afterOption = false;
+        for (String argument : settings.getStartParameter().getTaskNames()) {
+            if (argument.startsWith("-")) {
+                afterOption = !argument.contains("=");
+                continue;
+            }
+            boolean optionValue = afterOption;
+            afterOption = false;
+
+            int separator = argument.lastIndexOf(LOGICAL_PATH_SEPARATOR);
+            if (separator < 0) {
+                if (optionValue) {
+                    // Either the value of a task option or a task after a flag, such as build in ':a:test --rerun build'.
+                    // Only Gradle knows which options take a value, so all projects are included
+                    return null;
+                }
+                // Unqualified tasks run in the current project and all of its subprojects
+                if (currentProject.equals(LOGICAL_PATH_SEPARATOR)) {
+                    return null;
+                }
+                String prefix = currentProject + LOGICAL_PATH_SEPARATOR;
+                requested.add(currentProject);
+                projects.keySet().stream().filter(path -> path.startsWith(prefix)).forEach(requested::add);
+                continue;
+            }
+
+            String projectPath = argument.substring(0, separator);
+            if (!argument.startsWith(LOGICAL_PATH_SEPARATOR)) {
+                projectPath = currentProject.equals(LOGICAL_PATH_SEPARATOR) ? LOGICAL_PATH_SEPARATOR + projectPath : currentProject + LOGICAL_PATH_SEPARATOR + projectPath;
+            }
+            if (projectPath.isEmpty()) {
+                projectPath = LOGICAL_PATH_SEPARATOR;
+            } else if (!projects.containsKey(projectPath)) {
+                // Abbreviated or unknown project paths are resolved by Gradle, against all projects
+                return null;
+            }
+            requested.add(projectPath);
+        }
+        if (requested.isEmpty()) {
+            // Default tasks
+            return null;
+        }
+
+        Set<String> selected = new HashSet<>();
+        for (String projectPath : dependencyIndex.withDependencies(requested)) {
+            // Parents are included too, so projects keep their declared directory
+            for (String path = projectPath; !path.isEmpty(); path = path.substring(0, path.lastIndexOf(LOGICAL_PATH_SEPARATOR))) {
+                selected.add(path);
+            }
+        }
+        selected.add(LOGICAL_PATH_SEPARATOR);
+        return selected;
+    }
+
+    private void recordProjectDependencies(Gradle gradle) {
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        Map<String, File> projectDirs = new HashMap<>();
+        gradle.getRootProject().getAllprojects().forEach(project -> {
+            Set<String> projectDependencies = new TreeSet<>();
+            project.getConfigurations().forEach(configuration ->
+                configuration.getDependencies().withType(ProjectDependency.class).forEach(dependency ->
+                    projectDependencies.add(dependency.getDependencyProject().getPath())
+                )
+            );
+            projectDependencies.remove(project.getPath());
+            dependencies.put(project.getPath(), projectDependencies);
+            projectDirs.put(project.getPath(), project.getProjectDir());
+        });
+
+        ProjectDependencyIndex dependencyIndex = ProjectDependencyIndex.load(settings.getRootDir());
+        dependencyIndex.update(dependencies, projectDirs);
+        dependencyIndex.store();
+    }
+
+    private void includeProject(DefaultProjectSpecification spec) {
+        settings.include(spec.getLogicalPath());
+        settings.project(spec.getLogicalPath()).setProjectDir(spec.getDir());
+    }
+
     @Inject
     abstract protected ObjectFactory getObjectFactory();
 
+    @Inject
+    abstract protected ProviderFactory getProviders();
+
     private class ProjectSpecificationFactoryImpl implements ProjectSpecificationFactory {
         private final Set<File> declaredProjectDirs = new HashSet<>();
         private final Set<String> declaredLogicalPaths = new HashSet<>();
 
         public ProjectSpecificationFactoryImpl(File rootDir) {
-            declaredProjectDirs.add(rootDir);
+            declaredProjectDirs.add(normalize(rootDir));
         }
 
         @Override
         public boolean isLogicalPathOrDirectoryDeclared(String logicalPath, File dir) {
-            return declaredLogicalPaths.contains(logicalPath) || declaredProjectDirs.contains(dir);
+            return declaredLogicalPaths.contains(logicalPath) || isDirectoryDeclared(dir);
+        }
+
+        @Override
+        public boolean isDirectoryDeclared(File dir) {
+            return declaredProjectDirs.contains(normalize(dir));
         }
 
         @Override
         public DefaultProjectSpecification create(Settings settings, File dir, String logicalPath, @Nullable ProjectContainer parent) {
-            if (!declaredProjectDirs.add(dir)) {
+            if (!declaredProjectDirs.add(normalize(dir))) {
                 throw new IllegalArgumentException("Project directory '" + dir + "' has already been declared");
             }
 
@@ -94,5 +277,40 @@ abstract public class DefaultWorkspaceSettings implements WorkspaceSettings {
 
             return getObjectFactory().newInstance(DefaultProjectSpecification.class,  settings, dir, logicalPath, parent, this);
         }
+
+        @Override
+        public void include(DefaultProjectSpecification spec) {
+            if (partialLoading) {
+                // Included once the layout is complete, when the requested projects are known
+                deferredProjects.add(spec);
+            } else {
+                includeProject(spec);
+            }
+        }
+
+        @Override
+        public AutodetectSpecification getAutodetectSpecification() {
+            if (autodetectSpecification == null) {
+                autodetectSpecification = getObjectFactory().newInstance(AutodetectSpecification.class);
+                autodetectSpecification.getMaxDepth().convention(1);
+                autodetectSpecification.getMarkers().convention(Collections.singleton(AbstractProjectContainer.PROJECT_MARKER_FILE));
+                autodetectSpecification.getExclude().convention(Arrays.asList("**/build", "**/.*"));
+            }
+            return autodetectSpecification;
+        }
+
+        @Override
+        public ProjectDirectoryIndex getDirectoryIndex() {
+            // Loaded on first use, so builds that do not autodetect projects never read the index
+            if (directoryIndex == null) {
+                directoryIndex = ProjectDirectoryIndex.load(settings.getRootDir(), getAutodetectSpecification().getMarkers().get());
+            }
+            return directoryIndex;
+        }
+
+        @Nullable
+        private File normalize(@Nullable File dir) {
+            return dir != null ? dir.toPath().toAbsolutePath().normalize().toFile() : null;
+        }
     }
 }
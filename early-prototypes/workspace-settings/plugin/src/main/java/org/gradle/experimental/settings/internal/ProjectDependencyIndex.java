@@ -0,0 +1,167 @@
+package org.gradle.experimental.settings.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * The project dependencies of each project of the workspace, as seen by the last build that configured the project.
+ * <p>
+ * Persisted in the {@code .gradle} directory, so a later build can find the projects needed by the requested tasks
+ * before any project is configured. A hash of the build files of each project is recorded along with its dependencies,
+ * so a build can tell whether the recorded dependencies may be out of date.
+ */
+public class ProjectDependencyIndex {
+    static final String INDEX_FILE = ".gradle/workspace-settings/project-dependencies.properties";
+
+    private static final String SEPARATOR = ",";
+    // Project paths start with a colon, so the keys of build file hashes never clash with them
+    private static final String BUILD_FILES_PREFIX = "buildFiles";
+    private static final String BUILD_FILES_GLOB = "build.gradle*";
+
+    private final Path indexFile;
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, String> buildFileHashes;
+
+    private ProjectDependencyIndex(Path indexFile, Map<String, Set<String>> dependencies, Map<String, String> buildFileHashes) {
+        this.indexFile = indexFile;
+        this.dependencies = dependencies;
+        this.buildFileHashes = buildFileHashes;
+    }
+
+    public static ProjectDependencyIndex load(File rootDir) {
+        Path indexFile = rootDir.toPath().resolve(INDEX_FILE);
+        Map<String, Set<String>> dependencies = new TreeMap<>();
+        Map<String, String> buildFileHashes = new TreeMap<>();
+        if (Files.isRegularFile(indexFile)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                // A corrupt index is ignored, so the whole workspace is loaded and the index recorded again
+                properties.clear();
+            }
+            properties.stringPropertyNames().forEach(key -> {
+                String value = properties.getProperty(key);
+                if (key.startsWith(BUILD_FILES_PREFIX)) {
+                    buildFileHashes.put(key.substring(BUILD_FILES_PREFIX.length()), value);
+                    return;
+                }
+                Set<String> projectDependencies = new TreeSet<>();
+                if (!value.isEmpty()) {
+                    projectDependencies.addAll(Arrays.asList(value.split(SEPARATOR)));
+                }
+                dependencies.put(key, projectDependencies);
+            });
+        }
+        return new ProjectDependencyIndex(indexFile, dependencies, buildFileHashes);
+    }
+
+    /**
+     * Whether no build recorded project dependencies yet.
+     */
+    public boolean isEmpty() {
+        return dependencies.isEmpty();
+    }
+
+    /**
+     * Returns the projects, given with their directories, whose build files changed since their dependencies were recorded,
+     * including the projects that have no recorded dependencies.
+     */
+    public Set<String> changedProjects(Map<String, File> projectDirs) {
+        return projectDirs.entrySet().parallelStream()
+                .filter(project -> !Objects.equals(buildFileHashes.get(project.getKey()), hashBuildFiles(project.getValue())))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Returns the given projects along with all the projects they depend on, directly or transitively.
+     */
+    public Set<String> withDependencies(Set<String> projectPaths) {
+        Set<String> reachable = new LinkedHashSet<>(projectPaths);
+        Deque<String> queue = new ArrayDeque<>(projectPaths);
+        while (!queue.isEmpty()) {
+            for (String dependency : dependencies.getOrDefault(queue.remove(), Collections.emptySet())) {
+                if (reachable.add(dependency)) {
+                    queue.add(dependency);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Replaces the dependencies of the given projects, keeping the ones recorded for projects that were not configured,
+     * and records the build files of the given project directories.
+     */
+    public void update(Map<String, Set<String>> projectDependencies, Map<String, File> projectDirs) {
+        dependencies.putAll(projectDependencies);
+        projectDirs.forEach((projectPath, projectDir) -> buildFileHashes.put(projectPath, hashBuildFiles(projectDir)));
+    }
+
+    public void store() {
+        Properties properties = new Properties();
+        dependencies.forEach((projectPath, projectDependencies) -> properties.setProperty(projectPath, String.join(SEPARATOR, projectDependencies)));
+        buildFileHashes.forEach((projectPath, hash) -> properties.setProperty(BUILD_FILES_PREFIX + projectPath, hash));
+        try {
+            Files.createDirectories(indexFile.getParent());
+            try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+        } catch (IOException e) {
+            // The index is only an optimization, the next build loads the whole workspace
+        }
+    }
+
+    /**
+     * Hashes the names and contents of the build files of a project directory, so adding, removing or editing one changes the hash.
+     */
+    private static String hashBuildFiles(File projectDir) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<Path> buildFiles = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(projectDir.toPath(), BUILD_FILES_GLOB)) {
+            entries.forEach(buildFiles::add);
+            Collections.sort(buildFiles);
+            for (Path buildFile : buildFiles) {
+                digest.update(buildFile.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(buildFile));
+            }
+        } catch (NoSuchFileException e) {
+            // A missing directory has no build files
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+}
@@ -0,0 +1,245 @@
+package org.gradle.experimental.settings.internal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Knows which directories of the workspace contain a project marker file, and which subdirectories they have.
+ * <p>
+ * The listing of each directory is persisted along with the directory's modification time, which changes whenever
+ * an entry is added to or removed from the directory. A directory whose modification time did not change since
+ * the previous build is not listed again, so autodetection in an unchanged workspace only checks modification times,
+ * in parallel.
+ */
+public class ProjectDirectoryIndex {
+    static final String INDEX_FILE = ".gradle/workspace-settings/project-directories.bin";
+
+    private static final int FORMAT_VERSION = 1;
+    private static final long UNKNOWN_MODIFICATION_TIME = -1;
+    // File systems with a coarse timestamp resolution can miss a change made right after a directory was listed
+    private static final long RACY_INTERVAL_MILLIS = 2000;
+
+    private final Path rootDir;
+    private final Path indexFile;
+    private final Set<String> markers;
+    private final Map<Path, Listing> persisted;
+    private final Map<Path, Listing> current = new ConcurrentHashMap<>();
+    private final AtomicBoolean changed = new AtomicBoolean();
+
+    private ProjectDirectoryIndex(Path rootDir, Path indexFile, Set<String> markers, Map<Path, Listing> persisted) {
+        this.rootDir = rootDir;
+        this.indexFile = indexFile;
+        this.markers = markers;
+        this.persisted = persisted;
+    }
+
+    /**
+     * Loads the index persisted in the {@code .gradle} directory of the given root directory, or starts an empty one
+     * when there is none or it was written for other marker files.
+     */
+    public static ProjectDirectoryIndex load(File rootDir, Set<String> markers) {
+        Path root = rootDir.toPath().toAbsolutePath().normalize();
+        Path indexFile = root.resolve(INDEX_FILE);
+        Set<String> sortedMarkers = Collections.unmodifiableSet(new TreeSet<>(markers));
+        ProjectDirectoryIndex index = new ProjectDirectoryIndex(root, indexFile, sortedMarkers, read(root, indexFile, sortedMarkers));
+
+        // Check the directories of the previous build up front, so the lookups during autodetection are memory reads
+        index.persisted.keySet().parallelStream().forEach(index::listing);
+        return index;
+    }
+
+    /**
+     * Returns the subdirectories of the given directory that contain a project marker file, sorted by name.
+     */
+    public List<File> findProjectDirs(File dir) {
+        return findProjectDirs(dir, 1, path -> false);
+    }
+
+    /**
+     * Returns the directories containing a project marker file up to {@code maxDepth} levels below the given directory,
+     * sorted by path. Directories containing a marker file and directories for which {@code pruned} is true, given their
+     * path relative to {@code dir}, are not descended into. Sibling directories are searched in parallel.
+     */
+    public List<File> findProjectDirs(File dir, int maxDepth, Predicate<Path> pruned) {
+        Path path = dir.toPath().toAbsolutePath().normalize();
+        Queue<Path> found = new ConcurrentLinkedQueue<>();
+        collectProjectDirs(path, path, 1, maxDepth, pruned, found);
+        return found.stream()
+                .sorted()
+                .map(Path::toFile)
+                .collect(Collectors.toList());
+    }
+
+    private void collectProjectDirs(Path root, Path dir, int depth, int maxDepth, Predicate<Path> pruned, Queue<Path> found) {
+        Listing listing = listing(dir);
+        if (listing == null) {
+            return;
+        }
+        listing.subdirectories.parallelStream()
+                .map(dir::resolve)
+                .filter(subdirectory -> !pruned.test(root.relativize(subdirectory)))
+                .forEach(subdirectory -> {
+                    Listing subdirectoryListing = listing(subdirectory);
+                    if (subdirectoryListing == null) {
+                        return;
+                    }
+                    if (subdirectoryListing.hasMarker) {
+                        found.add(subdirectory);
+                    } else if (depth < maxDepth) {
+                        collectProjectDirs(root, subdirectory, depth + 1, maxDepth, pruned, found);
+                    }
+                });
+    }
+
+    /**
+     * Persists the listings used by this build, if any directory had to be listed again.
+     */
+    public void store() {
+        if (!changed.get() && current.keySet().equals(persisted.keySet())) {
+            return;
+        }
+        try {
+            Files.createDirectories(indexFile.getParent());
+            Path tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(tempFile))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(String.join(File.pathSeparator, markers));
+                output.writeInt(current.size());
+                for (Map.Entry<Path, Listing> entry : current.entrySet()) {
+                    Listing listing = entry.getValue();
+                    output.writeUTF(rootDir.relativize(entry.getKey()).toString());
+                    output.writeLong(listing.modificationTime);
+                    output.writeBoolean(listing.hasMarker);
+                    output.writeInt(listing.subdirectories.size());
+                    for (String subdirectory : listing.subdirectories) {
+                        output.writeUTF(subdirectory);
+                    }
+                }
+            }
+            try {
+                Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // The index is only an optimization, the next build lists the directories again
+        }
+    }
+
+    /**
+     * Returns the listing of a directory, reusing the persisted one when the directory was not modified,
+     * or {@code null} when the directory does not exist.
+     */
+    private Listing listing(Path dir) {
+        Listing known = current.get(dir);
+        if (known != null) {
+            return known;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(dir, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!attributes.isDirectory()) {
+            return null;
+        }
+
+        long modificationTime = attributes.lastModifiedTime().toMillis();
+        Listing previous = persisted.get(dir);
+        Listing listing = previous != null && previous.modificationTime == modificationTime && modificationTime != UNKNOWN_MODIFICATION_TIME
+                ? previous
+                : list(dir, modificationTime);
+        if (listing != previous) {
+            changed.set(true);
+        }
+        current.put(dir, listing);
+        return listing;
+    }
+
+    private Listing list(Path dir, long modificationTime) {
+        List<String> subdirectories = new ArrayList<>();
+        boolean hasMarker = false;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (Files.isDirectory(entry)) {
+                    subdirectories.add(name);
+                } else if (markers.contains(name)) {
+                    hasMarker = true;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(subdirectories);
+
+        boolean racy = System.currentTimeMillis() - modificationTime < RACY_INTERVAL_MILLIS;
+        return new Listing(racy ? UNKNOWN_MODIFICATION_TIME : modificationTime, hasMarker, subdirectories);
+    }
+
+    private static Map<Path, Listing> read(Path rootDir, Path indexFile, Set<String> markers) {
+        Map<Path, Listing> listings = new ConcurrentHashMap<>();
+        if (!Files.isRegularFile(indexFile)) {
+            return listings;
+        }
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(indexFile))) {
+            if (input.readInt() != FORMAT_VERSION || !input.readUTF().equals(String.join(File.pathSeparator, markers))) {
+                return listings;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                Path dir = rootDir.resolve(input.readUTF()).normalize();
+                long modificationTime = input.readLong();
+                boolean hasMarker = input.readBoolean();
+                int subdirectoryCount = input.readInt();
+                List<String> subdirectories = new ArrayList<>(subdirectoryCount);
+                for (int j = 0; j < subdirectoryCount; j++) {
+                    subdirectories.add(input.readUTF());
+                }
+                listings.put(dir, new Listing(modificationTime, hasMarker, subdirectories));
+            }
+            return listings;
+        } catch (IOException e) {
+            // A corrupt or truncated index is ignored, and replaced at the end of the build
+            return new ConcurrentHashMap<>();
+        }
+    }
+
+    private static class Listing {
+        final long modificationTime;
+        final boolean hasMarker;
+        final List<String> subdirectories;
+
+        Listing(long modificationTime, boolean hasMarker, List<String> subdirectories) {
+            this.modificationTime = modificationTime;
+            this.hasMarker = hasMarker;
+            this.subdirectories = subdirectories;
+        }
+    }
+}
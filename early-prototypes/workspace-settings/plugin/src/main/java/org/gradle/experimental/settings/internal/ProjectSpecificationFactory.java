@@ -1,6 +1,7 @@
 package org.gradle.experimental.settings.internal;
 
 import org.gradle.api.initialization.Settings;
+import org.gradle.experimental.settings.AutodetectSpecification;
 import org.gradle.experimental.settings.ProjectContainer;
 
 import javax.annotation.Nullable;
@@ -8,5 +9,9 @@ import java.io.File;
 
 public interface ProjectSpecificationFactory {
     boolean isLogicalPathOrDirectoryDeclared(String logicalPath, File dir);
+    boolean isDirectoryDeclared(File dir);
     DefaultProjectSpecification create(Settings settings, File dir, String logicalPath, @Nullable ProjectContainer parent);
+    void include(DefaultProjectSpecification spec);
+    AutodetectSpecification getAutodetectSpecification();
+    ProjectDirectoryIndex getDirectoryIndex();
 }
@@ -162,6 +162,97 @@ class DefaultWorkspaceSettingsTest extends Specification {
         1 * settings.project(":baz") >> baz
     }
 
+    def "can autodetect nested projects up to a maximum depth"() {
+        given:
+        createBuildFileIn("modules/group/foo")
+        createBuildFileIn("modules/build/bar")
+        createBuildFileIn("modules/group/nested/baz")
+        createBuildFileIn("node_modules/qux")
+        def modules = Mock(ProjectDescriptor)
+        def group = Mock(ProjectDescriptor)
+        def foo = Mock(ProjectDescriptor)
+
+        when:
+        workspace.layout {
+            autodetect {
+                maxDepth = 3
+                exclude = ["**/build", "node_modules"]
+            }
+        }
+
+        then:
+        _ * settings.getRootProject() >> rootProject
+        _ * settings.getRootDir() >> projectDir
+        1 * settings.include(":modules")
+        1 * settings.include(":modules:group")
+        1 * settings.include(":modules:group:foo")
+        1 * settings.project(":modules") >> modules
+        1 * settings.project(":modules:group") >> group
+        1 * settings.project(":modules:group:foo") >> foo
+        1 * modules.setProjectDir(new File(projectDir, "modules"))
+        1 * group.setProjectDir(new File(projectDir, "modules/group"))
+        1 * foo.setProjectDir(new File(projectDir, "modules/group/foo"))
+        0 * settings.include(_)
+    }
+
+    def "names nested detected projects after their intermediate directories"() {
+        given:
+        createBuildFileIn("apps/core")
+        createBuildFileIn("libs/core")
+        createBuildFileIn("libs/ui")
+        def apps = Mock(ProjectDescriptor)
+        def appsCore = Mock(ProjectDescriptor)
+        def libs = Mock(ProjectDescriptor)
+        def libsCore = Mock(ProjectDescriptor)
+        def libsUi = Mock(ProjectDescriptor)
+
+        when:
+        workspace.layout {
+            autodetect {
+                maxDepth = 2
+            }
+        }
+
+        then:
+        _ * settings.getRootProject() >> rootProject
+        _ * settings.getRootDir() >> projectDir
+        1 * settings.include(":apps")
+        1 * settings.include(":apps:core")
+        1 * settings.include(":libs")
+        1 * settings.include(":libs:core")
+        1 * settings.include(":libs:ui")
+        1 * settings.project(":apps") >> apps
+        1 * settings.project(":apps:core") >> appsCore
+        1 * settings.project(":libs") >> libs
+        1 * settings.project(":libs:core") >> libsCore
+        1 * settings.project(":libs:ui") >> libsUi
+        1 * appsCore.setProjectDir(new File(projectDir, "apps/core"))
+        1 * libsCore.setProjectDir(new File(projectDir, "libs/core"))
+        1 * libsUi.setProjectDir(new File(projectDir, "libs/ui"))
+    }
+
+    def "fails when a detected project has the logical path of a project declared in another directory"() {
+        given:
+        createBuildFileIn("foo")
+        createBuildFileIn("other")
+        def foo = Mock(ProjectDescriptor)
+
+        when:
+        workspace.layout {
+            subproject("foo", "other")
+        }
+
+        then:
+        _ * settings.getRootProject() >> rootProject
+        _ * settings.getRootDir() >> projectDir
+        1 * settings.include(":foo")
+        1 * settings.project(":foo") >> foo
+        1 * foo.setProjectDir(new File(projectDir, "other"))
+        def e = thrown(IllegalArgumentException)
+        e.message.contains("':foo'")
+        e.message.contains(new File(projectDir, "foo").toPath().toAbsolutePath().normalize().toString())
+    }
+
     def "cannot provide a complex logical path (#logicalPath)"() {
         when:
         workspace.layout {
@@ -177,7 +268,6 @@ class DefaultWorkspaceSettingsTest extends Specification {
 
     def "cannot both declare and autodetect the same directory"() {
         given:
-        createBuildFileIn("foo")
         createBuildFileIn("bar")
         createBuildFileIn("bar/foo")
         def foo = Mock(ProjectDescriptor)
@@ -0,0 +1,115 @@
+package org.gradle.experimental.settings.internal
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ProjectDirectoryIndexTest extends Specification {
+    @TempDir
+    File rootDir
+
+    def markers = Collections.singleton("build.gradle.kts")
+    def oldModificationTime = System.currentTimeMillis() - 60_000
+
+    def "finds the subdirectories containing a marker file"() {
+        given:
+        createBuildFileIn("foo")
+        createBuildFileIn("foo/bar")
+        createBuildFileIn("baz/qux")
+        Files.createDirectories(rootDir.toPath().resolve("other"))
+
+        when:
+        def index = ProjectDirectoryIndex.load(rootDir, markers)
+
+        then:
+        index.findProjectDirs(rootDir) == [file("foo")]
+        index.findProjectDirs(file("foo")) == [file("foo/bar")]
+        index.findProjectDirs(file("baz")) == [file("baz/qux")]
+        index.findProjectDirs(file("missing")) == []
+    }
+
+    def "does not descend into project and pruned directories"() {
+        given:
+        createBuildFileIn("foo")
+        createBuildFileIn("foo/bar")
+        createBuildFileIn("group/baz")
+        createBuildFileIn("group/nested/qux")
+        createBuildFileIn("excluded/fuzz")
+
+        when:
+        def index = ProjectDirectoryIndex.load(rootDir, markers)
+
+        then:
+        index.findProjectDirs(rootDir, 2, { it.toString() == "excluded" }) == [file("foo"), file("group/baz")]
+        index.findProjectDirs(rootDir, 3, { it.toString() == "excluded" }) == [file("foo"), file("group/baz"), file("group/nested/qux")]
+    }
+
+    def "reuses the persisted listing of unmodified directories"() {
+        given:
+        createBuildFileIn("foo")
+        Files.createDirectories(rootDir.toPath().resolve("other"))
+        makeDirectoriesOld()
+        ProjectDirectoryIndex.load(rootDir, markers).with {
+            findProjectDirs(rootDir)
+            store()
+        }
+
+        when:
+        // Adding a file while keeping the modification time of the directory is only visible to a fresh listing
+        createBuildFileIn("other")
+        file("other").setLastModified(oldModificationTime)
+
+        then:
+        new File(rootDir, ProjectDirectoryIndex.INDEX_FILE).isFile()
+        ProjectDirectoryIndex.load(rootDir, markers).findProjectDirs(rootDir) == [file("foo")]
+    }
+
+    def "lists modified directories again"() {
+        given:
+        createBuildFileIn("foo")
+        Files.createDirectories(rootDir.toPath().resolve("other"))
+        makeDirectoriesOld()
+        ProjectDirectoryIndex.load(rootDir, markers).with {
+            findProjectDirs(rootDir)
+            store()
+        }
+
+        when:
+        createBuildFileIn("other")
+        file("other").setLastModified(oldModificationTime + 1000)
+
+        then:
+        ProjectDirectoryIndex.load(rootDir, markers).findProjectDirs(rootDir) == [file("foo"), file("other")]
+    }
+
+    def "ignores an index written for other marker files"() {
+        given:
+        createBuildFileIn("foo")
+        makeDirectoriesOld()
+        ProjectDirectoryIndex.load(rootDir, Collections.singleton("build.gradle")).with {
+            findProjectDirs(rootDir)
+            store()
+        }
+
+        expect:
+        ProjectDirectoryIndex.load(rootDir, markers).findProjectDirs(rootDir) == [file("foo")]
+    }
+
+    private void makeDirectoriesOld() {
+        Files.walk(rootDir.toPath()).withCloseable { paths ->
+            paths.filter { Files.isDirectory(it) }.forEach { it.toFile().setLastModified(oldModificationTime) }
+        }
+    }
+
+    private File file(String path) {
+        return rootDir.toPath().resolve(path).toAbsolutePath().normalize().toFile()
+    }
+
+    private void createBuildFileIn(String path) {
+        Path subdir = rootDir.toPath().resolve(path)
+        Files.createDirectories(subdir)
+        Files.createFile(subdir.resolve("build.gradle.kts"))
+    }
+}
@@ -8,6 +8,16 @@ plugins {
 
 description = "Adds support for writing integration tests in unified-plugin projects using familiar patterns from gradle/gradle."
 
+val benchmark by sourceSets.creating
+
+testing {
+    suites {
+        val test by getting(JvmTestSuite::class) {
+            useSpock("2.2-groovy-3.0")
+        }
+    }
+}
+
 dependencies {
     api("junit:junit:4.13.2")
     api("commons-io:commons-io:2.8.0")
@@ -17,6 +27,15 @@ dependencies {
     api("org.jetbrains:annotations:24.0.1")
     api("org.spockframework:spock-core:2.2-groovy-3.0")
     api(gradleTestKit())
+
+    "benchmarkImplementation"(project(path))
+}
+
+tasks.register<JavaExec>("cloneToBenchmark") {
+    description = "Compares the time taken by TestFile.copyTo and TestFile.cloneTo to copy a large fixture."
+    classpath = benchmark.runtimeClasspath
+    mainClass = "org.gradle.test.fixtures.file.CloneToBenchmark"
+    args(layout.buildDirectory.dir("tmp/clone-benchmark").get().asFile)
 }
 
 // Compile against Java 17 since Android requires Java 17 at minimum
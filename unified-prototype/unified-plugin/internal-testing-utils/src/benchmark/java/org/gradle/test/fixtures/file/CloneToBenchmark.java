@@ -0,0 +1,92 @@
+package org.gradle.test.fixtures.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Compares {@link TestFile#copyTo(File)} and {@link TestFile#cloneTo(File)} on a generated fixture, shaped like a
+ * project with a large read-only dependency cache.
+ * <p>
+ * Arguments: the working directory, and optionally the number of iterations.
+ */
+public class CloneToBenchmark {
+    private static final int CACHE_DIRS = 200;
+    private static final int CACHE_FILES_PER_DIR = 10;
+    private static final int CACHE_FILE_SIZE = 64 * 1024;
+    private static final int SOURCE_DIRS = 50;
+    private static final int SOURCE_FILES_PER_DIR = 20;
+    private static final int SOURCE_FILE_SIZE = 2 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        TestFile workDir = new TestFile(args[0]);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        workDir.forceDeleteDir();
+
+        TestFile fixture = workDir.file("fixture");
+        generateFixture(fixture);
+        System.out.printf("Fixture: %d files%n", fixture.allDescendants().size());
+
+        // Warm up the file system caches and the JIT before measuring
+        measure("copyTo", fixture, workDir.file("target"), 1, TestFile::copyTo);
+        measure("cloneTo", fixture, workDir.file("target"), 1, TestFile::cloneTo);
+
+        long copy = measure("copyTo", fixture, workDir.file("target"), iterations, TestFile::copyTo);
+        long clone = measure("cloneTo", fixture, workDir.file("target"), iterations, TestFile::cloneTo);
+        System.out.printf("copyTo: %d ms, cloneTo: %d ms per iteration (%.1fx)%n", copy, clone, (double) copy / Math.max(clone, 1));
+
+        workDir.forceDeleteDir();
+    }
+
+    private static long measure(String name, TestFile fixture, TestFile target, int iterations, BiConsumer<TestFile, File> action) throws IOException {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            target.forceDeleteDir();
+            long start = System.nanoTime();
+            action.accept(fixture, target);
+            total += System.nanoTime() - start;
+            if (!target.allDescendants().equals(fixture.allDescendants())) {
+                throw new IllegalStateException(name + " did not produce a complete copy of " + fixture);
+            }
+            for (String path : fixture.allDescendants()) {
+                if (!Arrays.equals(Files.readAllBytes(fixture.file(path).toPath()), Files.readAllBytes(target.file(path).toPath()))) {
+                    throw new IllegalStateException(name + " did not copy the content of " + path);
+                }
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(total / iterations);
+    }
+
+    private static void generateFixture(TestFile fixture) {
+        Random random = new Random(42);
+        for (int dir = 0; dir < CACHE_DIRS; dir++) {
+            for (int file = 0; file < CACHE_FILES_PER_DIR; file++) {
+                TestFile jar = fixture.file("caches/modules/group" + dir + "/artifact-" + file + ".jar");
+                jar.getParentFile().mkdirs();
+                writeRandom(jar, CACHE_FILE_SIZE, random);
+                jar.setWritable(false);
+            }
+        }
+        for (int dir = 0; dir < SOURCE_DIRS; dir++) {
+            for (int file = 0; file < SOURCE_FILES_PER_DIR; file++) {
+                TestFile source = fixture.file("src/main/java/package" + dir + "/Source" + file + ".java");
+                source.getParentFile().mkdirs();
+                writeRandom(source, SOURCE_FILE_SIZE, random);
+            }
+        }
+    }
+
+    private static void writeRandom(TestFile file, int size, Random random) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        try {
+            Files.write(file.toPath(), bytes);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -8,10 +8,19 @@ import org.gradle.testkit.runner.BuildResult
 import org.gradle.testkit.runner.GradleRunner
 import spock.lang.Specification
 
+import java.util.concurrent.TimeUnit
+
 import static org.gradle.testkit.runner.TaskOutcome.FAILED
 import static org.gradle.testkit.runner.TaskOutcome.SUCCESS
 
 class AbstractSpecification extends Specification {
+    /**
+     * System property naming the TestKit directory shared by the builds in warm daemons, set by the test task.
+     */
+    public static final String TEST_KIT_DIR_PROPERTY = "org.gradle.test.fixtures.testKitDir"
+
+    private static List<? extends File> sharedPluginClasspath
+
     @Rule
     public final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
     private TestFile testDirOverride = null
@@ -21,11 +30,20 @@ class AbstractSpecification extends Specification {
 
     BuildResult result
 
+    private int buildCount
+    private long buildTimeNanos
+
     def setup() {
         settingsFile = file('settings.gradle.dcl')
         buildFile = file('build.gradle.dcl')
     }
 
+    def cleanup() {
+        if (buildCount > 0) {
+            BuildTimes.record(getClass(), specificationContext.currentIteration.displayName, warmDaemons, buildCount, TimeUnit.NANOSECONDS.toMillis(buildTimeNanos))
+        }
+    }
+
     TestFile file(Object... path) {
         if (path.length == 1 && path[0] instanceof TestFile) {
             return path[0] as TestFile
@@ -41,24 +59,58 @@ class AbstractSpecification extends Specification {
     }
 
     def succeeds(String... tasks) {
-        result = GradleRunner.create()
-                .withProjectDir(getTestDirectory())
-                .withArguments(tasks)
-                .withPluginClasspath()
-                .build()
+        result = timed { runner(tasks).build() }
         tasks.each { task ->
             assert result.task(task).outcome == SUCCESS
         }
     }
 
     def fails(String... tasks) {
-        result = GradleRunner.create()
-                .withProjectDir(getTestDirectory())
-                .withArguments(tasks)
-                .withPluginClasspath()
-                .run()
+        result = timed { runner(tasks).run() }
         tasks.each { task ->
             assert result.task(task).outcome == FAILED
         }
     }
+
+    /**
+     * Whether the builds of this specification run in warm daemons, see {@link WarmDaemons}.
+     */
+    boolean isWarmDaemons() {
+        getClass().isAnnotationPresent(WarmDaemons)
+    }
+
+    private GradleRunner runner(String... tasks) {
+        GradleRunner runner = GradleRunner.create()
+                .withProjectDir(getTestDirectory())
+                .withArguments(tasks)
+        if (warmDaemons) {
+            // Daemons are only reused by builds using the same TestKit directory and plugin classpath.
+            // Without the property, TestKit's default directory is shared by all builds of the user as well
+            String testKitDir = System.getProperty(TEST_KIT_DIR_PROPERTY)
+            if (testKitDir != null) {
+                runner.withTestKitDir(new File(testKitDir))
+            }
+            runner.withPluginClasspath(pluginClasspath())
+        } else {
+            runner.withPluginClasspath()
+        }
+        return runner
+    }
+
+    private static synchronized List<? extends File> pluginClasspath() {
+        if (sharedPluginClasspath == null) {
+            sharedPluginClasspath = GradleRunner.create().withPluginClasspath().pluginClasspath
+        }
+        sharedPluginClasspath
+    }
+
+    private BuildResult timed(Closure<BuildResult> build) {
+        long start = System.nanoTime()
+        try {
+            return build()
+        } finally {
+            buildCount++
+            buildTimeNanos += System.nanoTime() - start
+        }
+    }
 }
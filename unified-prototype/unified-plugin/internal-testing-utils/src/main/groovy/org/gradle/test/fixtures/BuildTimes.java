@@ -0,0 +1,50 @@
+package org.gradle.test.fixtures;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the time taken by the builds of each feature of the {@link AbstractSpecification}s run by the test JVM.
+ * They are written to a report by {@link BuildTimesExtension} once all specifications have run.
+ */
+final class BuildTimes {
+    private static final Map<String, long[]> TIMES = new ConcurrentHashMap<>();
+
+    private BuildTimes() { /* Not instantiable */ }
+
+    static void record(Class<?> specification, String feature, boolean warmDaemons, int builds, long millis) {
+        String name = specification.getSimpleName() + (warmDaemons ? " (warm daemons)" : "") + " > " + feature;
+        TIMES.put(name, new long[] {builds, millis});
+    }
+
+    static boolean isEmpty() {
+        return TIMES.isEmpty();
+    }
+
+    /**
+     * Writes the build times of all recorded features, slowest first.
+     */
+    static void writeReport(Path file) {
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(TIMES.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1]).reversed());
+
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : entries) {
+            report.append(String.format("%8d ms  %3d build(s)  %s%n", entry.getValue()[1], entry.getValue()[0], entry.getKey()));
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, report.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the build times report " + file, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.gradle.test.fixtures;
+
+import org.spockframework.runtime.extension.IGlobalExtension;
+
+import java.nio.file.Paths;
+
+/**
+ * Writes the build times of the {@link AbstractSpecification}s run by the test JVM to the file named by the
+ * {@value #REPORT_FILE_PROPERTY} system property, when it is set.
+ */
+public class BuildTimesExtension implements IGlobalExtension {
+    public static final String REPORT_FILE_PROPERTY = "org.gradle.test.fixtures.buildTimesReport";
+
+    @Override
+    public void stop() {
+        String reportFile = System.getProperty(REPORT_FILE_PROPERTY);
+        if (reportFile != null && !BuildTimes.isEmpty()) {
+            BuildTimes.writeReport(Paths.get(reportFile));
+        }
+    }
+}
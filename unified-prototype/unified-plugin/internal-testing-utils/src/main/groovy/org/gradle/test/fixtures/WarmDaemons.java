@@ -0,0 +1,25 @@
+package org.gradle.test.fixtures;
+
+import org.spockframework.runtime.extension.ExtensionAnnotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares that the builds of an {@link AbstractSpecification} run in warm daemons shared by all its features,
+ * and that its features are independent of each other, so they run in parallel.
+ * <p>
+ * The daemons live in a TestKit directory shared by all specifications, and the plugin classpath is only read once.
+ * <p>
+ * Features only run in parallel when the test task enables Spock's parallel execution, by setting the {@code spock.configuration}
+ * system property to {@code org/gradle/test/fixtures/WarmDaemonsSpockConfig.groovy}. Specifications without this annotation keep running sequentially.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Inherited
+@ExtensionAnnotation(WarmDaemonsExtension.class)
+public @interface WarmDaemons {
+}
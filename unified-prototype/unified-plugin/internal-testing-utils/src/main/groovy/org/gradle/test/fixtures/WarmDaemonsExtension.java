@@ -0,0 +1,16 @@
+package org.gradle.test.fixtures;
+
+import org.spockframework.runtime.extension.IAnnotationDrivenExtension;
+import org.spockframework.runtime.model.SpecInfo;
+import org.spockframework.runtime.model.parallel.ExecutionMode;
+
+/**
+ * Runs the features of a specification annotated with {@link WarmDaemons} concurrently.
+ */
+public class WarmDaemonsExtension implements IAnnotationDrivenExtension<WarmDaemons> {
+    @Override
+    public void visitSpecAnnotation(WarmDaemons annotation, SpecInfo spec) {
+        spec.setExecutionMode(ExecutionMode.CONCURRENT);
+        spec.getAllFeatures().forEach(feature -> feature.setExecutionMode(ExecutionMode.CONCURRENT));
+    }
+}
@@ -0,0 +1,192 @@
+package org.gradle.test.fixtures.file;
+
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardCopyOption.COPY_ATTRIBUTES;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Clones a directory tree as cheaply as the file system allows.
+ * <p>
+ * Files the current user cannot write are hard linked, so the clone shares their content with the source. Other files are cloned with
+ * copy-on-write reflinks when the file system supports them, using {@code cp}. Files that can be neither linked nor
+ * reflinked are copied, in parallel.
+ *
+ * @see TestFile#cloneTo(java.io.File)
+ */
+class FileCloner {
+    private static final int REFLINK_BATCH_SIZE = 256;
+    // Whether reflinks are supported, by file system of the target
+    private static final Map<FileStore, Boolean> REFLINK_SUPPORT = new ConcurrentHashMap<>();
+
+    private final Path sourceDir;
+    private final Path targetDir;
+    private final List<Path> files = new ArrayList<>();
+    private final Queue<Path> toCopy = new ConcurrentLinkedQueue<>();
+
+    private FileCloner(Path sourceDir, Path targetDir) {
+        this.sourceDir = sourceDir;
+        this.targetDir = targetDir;
+    }
+
+    static void cloneTree(Path sourceDir, Path targetDir) throws IOException {
+        new FileCloner(sourceDir, targetDir).cloneTree();
+    }
+
+    private void cloneTree() throws IOException {
+        Files.walkFileTree(sourceDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path sourceFile, BasicFileAttributes attributes) {
+                files.add(sourceFile);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                Files.createDirectories(target(dir));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        try {
+            boolean sameFileStore = Files.getFileStore(sourceDir).equals(Files.getFileStore(targetDir));
+            List<Path> writable = new ArrayList<>();
+            List<Path> readOnly = new ArrayList<>();
+            for (Path file : files) {
+                (sameFileStore && isReadOnly(file) && !Files.isWritable(file) ? readOnly : writable).add(file);
+            }
+            readOnly.parallelStream().forEach(this::link);
+            reflink(writable);
+            toCopy.parallelStream().forEach(this::copy);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Whether no one is meant to write the file. A file can still be writable by the current user, such as root,
+     * whose writes through a hard link would change the source, so the access of the current user is checked as well.
+     */
+    private static boolean isReadOnly(Path file) throws IOException {
+        if (Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(file);
+            return !permissions.contains(PosixFilePermission.OWNER_WRITE)
+                    && !permissions.contains(PosixFilePermission.GROUP_WRITE)
+                    && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+        }
+        return !Files.isWritable(file);
+    }
+
+    private Path target(Path source) {
+        return targetDir.resolve(sourceDir.relativize(source).toString());
+    }
+
+    private void link(Path sourceFile) {
+        Path targetFile = target(sourceFile);
+        try {
+            Files.deleteIfExists(targetFile);
+            Files.createLink(targetFile, sourceFile);
+        } catch (IOException | UnsupportedOperationException e) {
+            toCopy.add(sourceFile);
+        }
+    }
+
+    private void copy(Path sourceFile) {
+        try {
+            Files.copy(sourceFile, target(sourceFile), COPY_ATTRIBUTES, REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void reflink(List<Path> sourceFiles) throws IOException {
+        if (sourceFiles.isEmpty() || reflinkCommand().isEmpty()) {
+            toCopy.addAll(sourceFiles);
+            return;
+        }
+
+        FileStore fileStore = Files.getFileStore(targetDir);
+        List<Path> remaining = sourceFiles;
+        if (!REFLINK_SUPPORT.containsKey(fileStore)) {
+            // Cloning the first file tells whether the file system supports reflinks
+            Path first = sourceFiles.get(0);
+            boolean supported = reflink(List.of(first), target(first).getParent());
+            REFLINK_SUPPORT.putIfAbsent(fileStore, supported);
+            if (!supported) {
+                toCopy.addAll(sourceFiles);
+                return;
+            }
+            remaining = sourceFiles.subList(1, sourceFiles.size());
+        } else if (!REFLINK_SUPPORT.get(fileStore)) {
+            toCopy.addAll(sourceFiles);
+            return;
+        }
+
+        // cp clones several files into the same directory in one invocation
+        List<List<Path>> batches = new ArrayList<>();
+        remaining.stream()
+                .collect(Collectors.groupingBy(Path::getParent))
+                .values()
+                .forEach(siblings -> {
+                    for (int i = 0; i < siblings.size(); i += REFLINK_BATCH_SIZE) {
+                        batches.add(siblings.subList(i, Math.min(i + REFLINK_BATCH_SIZE, siblings.size())));
+                    }
+                });
+        batches.parallelStream().forEach(batch -> {
+            if (!reflink(batch, target(batch.get(0)).getParent())) {
+                toCopy.addAll(batch);
+            }
+        });
+    }
+
+    private static boolean reflink(List<Path> sourceFiles, Path targetDir) {
+        List<String> command = new ArrayList<>(reflinkCommand());
+        sourceFiles.forEach(file -> command.add(file.toString()));
+        command.add(targetDir.toString());
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            return process.waitFor() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static List<String> reflinkCommand() {
+        OperatingSystem os = OperatingSystem.current();
+        if (os.isLinux()) {
+            return List.of("cp", "--reflink=always", "--preserve=mode,timestamps");
+        }
+        if (os.isMacOsX()) {
+            // -c clones files with clonefile(2) on APFS
+            return List.of("cp", "-c", "-p");
+        }
+        return List.of();
+    }
+}
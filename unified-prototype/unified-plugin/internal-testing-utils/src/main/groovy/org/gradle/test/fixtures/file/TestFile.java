@@ -306,10 +306,31 @@ public class TestFile extends File {
         }
     }
 
+    /**
+     * Copies this file or directory to the given target, like {@link #copyTo(File)}, but faster for large directories.
+     * Read-only files the current user cannot write are hard linked, so they are shared with the clone and must not be made writable. Other files are
+     * cloned with copy-on-write reflinks where the file system supports them, and copied in parallel otherwise.
+     */
+    public void cloneTo(File target) {
+        if (isDirectory()) {
+            try {
+                FileCloner.cloneTree(this.toPath(), target.toPath());
+            } catch (IOException e) {
+                throw new RuntimeException(String.format("Could not clone test directory '%s' to '%s'", this, target), e);
+            }
+        } else {
+            copyTo(target);
+        }
+    }
+
     public void copyFrom(File target) {
         new TestFile(target).copyTo(this);
     }
 
+    public void cloneFrom(File source) {
+        new TestFile(source).cloneTo(this);
+    }
+
     public void copyFrom(final URL resource) {
         final TestFile testFile = this;
         RetryUtil.retry(new Closure(null, null) {
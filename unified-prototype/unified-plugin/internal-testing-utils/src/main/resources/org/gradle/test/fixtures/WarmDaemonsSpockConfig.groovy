@@ -0,0 +1,11 @@
+import org.spockframework.runtime.model.parallel.ExecutionMode
+
+// Enables parallel execution for the test tasks that opt in, with -Dspock.configuration=org/gradle/test/fixtures/WarmDaemonsSpockConfig.groovy
+runner {
+    parallel {
+        enabled true
+        // Specifications run sequentially, unless they opt in with @WarmDaemons
+        defaultSpecificationExecutionMode = ExecutionMode.SAME_THREAD
+        defaultExecutionMode = ExecutionMode.SAME_THREAD
+    }
+}
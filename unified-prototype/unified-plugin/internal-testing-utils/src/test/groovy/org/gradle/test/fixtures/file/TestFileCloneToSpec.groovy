@@ -0,0 +1,61 @@
+package org.gradle.test.fixtures.file
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+
+class TestFileCloneToSpec extends Specification {
+    @TempDir
+    File tmpDir
+
+    TestFile source
+    TestFile target
+
+    def setup() {
+        source = new TestFile(tmpDir, "source")
+        target = new TestFile(tmpDir, "target")
+    }
+
+    def "clones the content of every file"() {
+        given:
+        source.file("build.gradle.kts") << "plugins { java }"
+        source.file("src/main/java/Main.java") << "class Main {}"
+        def cached = source.file("caches/modules/artifact.jar") << "cached artifact"
+        cached.setWritable(false)
+
+        when:
+        source.cloneTo(target)
+
+        then:
+        target.allDescendants() == source.allDescendants()
+        source.allDescendants().every { path -> target.file(path).bytes == source.file(path).bytes }
+    }
+
+    def "writes to a cloned file do not change the source"() {
+        given:
+        source.file("src/main/java/Main.java") << "class Main {}"
+
+        when:
+        source.cloneTo(target)
+        target.file("src/main/java/Main.java").text = "class Changed {}"
+
+        then:
+        source.file("src/main/java/Main.java").text == "class Main {}"
+    }
+
+    def "does not share read-only files the current user can write"() {
+        given:
+        def cached = source.file("caches/modules/artifact.jar") << "cached artifact"
+        cached.setWritable(false)
+
+        when:
+        source.cloneTo(target)
+
+        then:
+        def clone = target.file("caches/modules/artifact.jar")
+        clone.text == "cached artifact"
+        // Root can write any file, so a hard link would let it change the source through the clone
+        !Files.isWritable(cached.toPath()) || !Files.isSameFile(cached.toPath(), clone.toPath())
+    }
+}
@@ -29,11 +29,18 @@ dependencies {
 
     implementation(libs.apache.commons.lang)
     implementation(libs.android.tools.common)
-    implementation(libs.truth)
+
+    // Only compiled against, the build resolves the same version for the aggregated coverage report
+    compileOnly(libs.jacoco.report)
 }
 
 testing {
     suites {
+        @Suppress("UnstableApiUsage")
+        val test by getting(JvmTestSuite::class) {
+            useSpock("2.2-groovy-3.0")
+        }
+
         @Suppress("UnstableApiUsage")
         val integTest by registering(JvmTestSuite::class) {
             useSpock("2.2-groovy-3.0")
@@ -42,6 +49,25 @@ testing {
                 implementation(project(":internal-testing-utils"))
                 implementation(project())
             }
+
+            targets {
+                all {
+                    testTask.configure {
+                        // Runs the features of @WarmDaemons specifications in parallel
+                        systemProperty("spock.configuration", "org/gradle/test/fixtures/WarmDaemonsSpockConfig.groovy")
+
+                        // Shared by all specifications and kept between runs, so builds in warm daemons start from warm caches
+                        val testKitDir = layout.buildDirectory.dir("tmp/test-kit")
+                        val buildTimesReport = layout.buildDirectory.file("reports/$name/build-times.txt")
+                        jvmArgumentProviders.add(CommandLineArgumentProvider {
+                            listOf(
+                                "-Dorg.gradle.test.fixtures.testKitDir=${testKitDir.get().asFile.absolutePath}",
+                                "-Dorg.gradle.test.fixtures.buildTimesReport=${buildTimesReport.get().asFile.absolutePath}"
+                            )
+                        })
+                    }
+                }
+            }
         }
 
         tasks.getByPath("check").dependsOn(integTest)
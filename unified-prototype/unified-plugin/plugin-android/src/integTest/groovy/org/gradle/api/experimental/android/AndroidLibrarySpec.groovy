@@ -1,7 +1,9 @@
 package org.gradle.api.experimental.android
 
 import org.gradle.test.fixtures.AbstractSpecification
+import org.gradle.test.fixtures.WarmDaemons
 
+@WarmDaemons
 class AndroidLibrarySpec extends AbstractSpecification {
     def 'can create a basic android library with minimum required settings'() {
         given:
@@ -2,22 +2,40 @@ package org.gradle.api.experimental.android;
 
 import androidx.baselineprofile.gradle.consumer.BaselineProfileConsumerExtension;
 import androidx.room.gradle.RoomExtension;
+import com.android.build.api.artifact.SingleArtifact;
+import com.android.build.api.dsl.ApplicationBuildType;
 import com.android.build.api.dsl.BuildType;
 import com.android.build.api.dsl.CommonExtension;
 import com.android.build.api.dsl.UnitTestOptions;
+import com.android.build.api.variant.AndroidComponentsExtension;
 import com.google.devtools.ksp.gradle.KspExtension;
+import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.JavaVersion;
 import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.experimental.android.extensions.BaselineProfile;
+import org.gradle.api.experimental.android.extensions.Hilt;
+import org.gradle.api.experimental.android.extensions.Ksp;
+import org.gradle.api.experimental.android.extensions.Minify;
+import org.gradle.api.experimental.android.extensions.Room;
+import org.gradle.api.experimental.android.extensions.Variants;
 import org.gradle.api.experimental.android.extensions.testing.AndroidTestDependencies;
+import org.gradle.api.experimental.android.extensions.testing.CoverageSupport;
 import org.gradle.api.experimental.android.extensions.testing.TestOptions;
-import org.gradle.api.experimental.android.extensions.testing.Testing;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Copy;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.jvm.toolchain.JavaLanguageVersion;
 import org.jetbrains.kotlin.gradle.dsl.KotlinAndroidProjectExtension;
+import org.jetbrains.kotlin.gradle.tasks.KotlinCompile;
+import org.jetbrains.kotlin.gradle.tasks.KotlinCompilerExecutionStrategy;
 
 import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 
 import static org.gradle.api.experimental.android.AndroidSupport.ifPresent;
 import static org.gradle.api.experimental.android.extensions.ComposeSupport.configureCompose;
@@ -25,6 +43,10 @@ import static org.gradle.api.experimental.android.extensions.ComposeSupport.conf
 public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
     protected static final int DEFAULT_MIN_ANDROID_SDK = 21;
 
+    private static final String KSP_PLUGIN = "com.google.devtools.ksp";
+    private static final String HILT_PLUGIN = "dagger.hilt.android.plugin";
+    private static final String ROOM_PLUGIN = "androidx.room";
+
     protected abstract AndroidSoftware getAndroidSoftware();
 
     @Override
@@ -36,9 +58,9 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
         dslModel.getVectorDrawablesUseSupportLibrary().convention(false);
 
         // Setup minify conventions
-        dslModel.getBuildTypes().getDebug().getMinify().getEnabled().convention(false);
+        setMinifyConventions(dslModel.getBuildTypes().getDebug().getMinify());
         dslModel.getBuildTypes().getDebug().getBaselineProfile().getEnabled().convention(false);
-        dslModel.getBuildTypes().getRelease().getMinify().getEnabled().convention(false);
+        setMinifyConventions(dslModel.getBuildTypes().getRelease().getMinify());
         dslModel.getBuildTypes().getRelease().getBaselineProfile().getEnabled().convention(false);
 
         // Setup desugaring conventions and desugar automatically when JDK > 8 is targeted
@@ -59,21 +81,33 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
         dslModel.getFeature().getEnabled().convention(false);
         dslModel.getCompose().getEnabled().convention(false);
         dslModel.getHilt().getEnabled().convention(false);
+        dslModel.getHilt().getVersion().convention("2.50");
         dslModel.getRoom().getEnabled().convention(false);
         dslModel.getRoom().getVersion().convention("2.6.1");
+        dslModel.getKsp().getWorkerIsolation().convention(false);
         dslModel.getLicenses().getEnabled().convention(false);
         dslModel.getBaselineProfile().getEnabled().convention(false);
 
+        // Setup variant filtering conventions, all variants are configured by default
+        dslModel.getVariants().getDisableReleaseOnLocalBuilds().convention(false);
+
         // Setup Test Options conventions
         dslModel.getTesting().getTestOptions().getIncludeAndroidResources().convention(false);
         dslModel.getTesting().getTestOptions().getReturnDefaultValues().convention(false);
         dslModel.getTesting().getJacoco().getEnabled().convention(false);
-        dslModel.getTesting().getJacoco().getVersion().convention("0.8.7");
+        dslModel.getTesting().getJacoco().getVersion().convention(CoverageSupport.DEFAULT_JACOCO_VERSION);
         dslModel.getTesting().getRoborazzi().getEnabled().convention(false);
     }
 
+    private static void setMinifyConventions(Minify minify) {
+        minify.getEnabled().convention(false);
+        minify.getFullMode().convention(true);
+        minify.getShrinkResources().convention(false);
+        minify.getKeepRulesFromDependencies().convention(true);
+    }
+
     /**
-     * Performs common dependency linking actions that do not need to occur within an afterEvaluate block.
+     * Performs common dependency linking actions that do not need to wait for the Android DSL to be finalized.
      */
     @SuppressWarnings("UnstableApiUsage")
     protected void linkCommonDependencies(AndroidSoftwareDependencies dependencies, ConfigurationContainer configurations) {
@@ -83,11 +117,79 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
     }
 
     /**
-     * Performs linking actions that must occur within an afterEvaluate block.
+     * Performs linking actions that do not need to wait for the Android DSL to be finalized.
      */
-    protected void linkDslModelToPlugin(Project project, AndroidSoftware dslModel, CommonExtension<?, ?, ?, ?, ?, ?> android) {
+    @SuppressWarnings("UnstableApiUsage")
+    protected void linkDslModelToPluginLazy(Project project, AndroidSoftware dslModel) {
         KotlinAndroidProjectExtension kotlin = project.getExtensions().getByType(KotlinAndroidProjectExtension.class);
+        kotlin.jvmToolchain(spec -> spec.getLanguageVersion().set(dslModel.getJdkVersion().map(JavaLanguageVersion::of)));
+
+        // Link build type dependencies
+        AndroidSoftwareBuildTypes modelBuildType = dslModel.getBuildTypes();
+        linkBuildTypeDependencies("debug", modelBuildType.getDebug().getDependencies(), project.getConfigurations());
+        linkBuildTypeDependencies("release", modelBuildType.getRelease().getDependencies(), project.getConfigurations());
+
+        linkTestingDependencies(project, dslModel);
+
+        // Hilt and Room run their compilers through KSP, which is applied before their dependencies are linked
+        project.getPlugins().withId(HILT_PLUGIN, plugin -> project.getPlugins().apply(KSP_PLUGIN));
+        project.getPlugins().withId(ROOM_PLUGIN, plugin -> project.getPlugins().apply(KSP_PLUGIN));
+        linkHiltDependencies(project, dslModel.getHilt());
+        linkRoomDependencies(project, dslModel.getRoom());
+        linkKsp(project, dslModel.getKsp());
+
+        linkVariantFilter(project, dslModel.getVariants());
+
+        linkMappingOutput(project, "debug", modelBuildType.getDebug().getMinify());
+        linkMappingOutput(project, "release", modelBuildType.getRelease().getMinify());
+    }
+
+    /**
+     * Disables the variants excluded by the model before AGP creates them.
+     */
+    protected void linkVariantFilter(Project project, Variants variants) {
+        Provider<Boolean> onCi = project.getProviders().environmentVariable("CI").map(value -> true).orElse(false);
+
+        AndroidComponentsExtension<?, ?, ?> androidComponents = project.getExtensions().getByType(AndroidComponentsExtension.class);
+        androidComponents.beforeVariants(androidComponents.selector().all(), variant -> {
+            List<String> enabled = variants.getEnabled().get();
+            if (!enabled.isEmpty() && !enabled.contains(variant.getName())) {
+                variant.setEnable(false);
+            }
+            if (variants.getDisableReleaseOnLocalBuilds().get() && !onCi.get() && Objects.equals(variant.getBuildType(), "release")) {
+                variant.setEnable(false);
+            }
+        });
+    }
+
+    /**
+     * Applies the plugins enabled in the model, from the first of the {@code finalizeDsl} callbacks the concrete plugins register.
+     * <p>
+     * Whether a plugin is needed is only known once the build script has set the model, and applying a plugin cannot be deferred
+     * any further than that: the applied plugins still get to register their own variant callbacks before AGP creates the variants.
+     * The extensions of the applied plugins are configured from {@code plugins.withId} callbacks, registered when the model is linked.
+     */
+    protected void applyPlugins(Project project, AndroidSoftware dslModel) {
+        configureKotlinSerialization(project, dslModel);
+        configureHilt(project, dslModel);
+        configureRoom(project, dslModel);
+        configureKspProperties(project, dslModel.getKsp());
+        configureLicenses(project, dslModel);
+        configureRoborazzi(project, dslModel);
+
+        AndroidSoftwareBuildTypes buildTypes = dslModel.getBuildTypes();
+        if (dslModel.getBaselineProfile().getEnabled().get()
+                || buildTypes.getDebug().getBaselineProfile().getEnabled().get()
+                || buildTypes.getRelease().getBaselineProfile().getEnabled().get()) {
+            project.getPlugins().apply("androidx.baselineprofile");
+        }
+    }
 
+    /**
+     * Performs linking actions on the Android DSL, from AGP's {@code finalizeDsl} callback so they run
+     * after the build script has been evaluated but before AGP creates variants.
+     */
+    protected void linkDslModelToPlugin(Project project, AndroidSoftware dslModel, CommonExtension<?, ?, ?, ?, ?, ?> android) {
         // Link common properties
         ifPresent(dslModel.getNamespace(), android::setNamespace);
         ifPresent(dslModel.getCompileSdk(), android::setCompileSdk);
@@ -96,15 +198,9 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
             ifPresent(dslModel.getVectorDrawablesUseSupportLibrary(), defaultConfig.getVectorDrawables()::setUseSupportLibrary);
             return null;
         });
-        android.compileOptions(compileOptions -> {
-            // Up to Java 11 APIs are available through desugaring
-            // https://developer.android.com/studio/write/java11-minimal-support-table
-            compileOptions.setSourceCompatibility(JavaVersion.toVersion(dslModel.getJdkVersion().get()));
-            compileOptions.setTargetCompatibility(JavaVersion.toVersion(dslModel.getJdkVersion().get()));
-            return null;
-        });
+        // Up to Java 11 APIs are available through desugaring
+        // https://developer.android.com/studio/write/java11-minimal-support-table
         ifPresent(dslModel.getJdkVersion(), jdkVersion -> {
-            kotlin.jvmToolchain(jdkVersion);
             android.getCompileOptions().setSourceCompatibility(JavaVersion.toVersion(jdkVersion));
             android.getCompileOptions().setTargetCompatibility(JavaVersion.toVersion(jdkVersion));
         });
@@ -117,12 +213,8 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
 
         configureTesting(project, dslModel, android);
 
-        configureKotlinSerialization(project, dslModel);
         configureDesugaring(project, dslModel, android);
-        configureHilt(project, dslModel);
         configureCompose(project, dslModel, android);
-        configureRoom(project, dslModel);
-        configureLicenses(project, dslModel);
 
         if (project.getExtensions().findByName("baselineProfile") != null) {
             BaselineProfileConsumerExtension baselineProfileExtension = project.getExtensions().getByType(BaselineProfileConsumerExtension.class);
@@ -136,43 +228,103 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
         }
     }
 
+    /**
+     * Applies Hilt when the model enables it. KSP, the dependencies and the extension follow from {@code plugins.withId} callbacks.
+     * <p>
+     * The flag is the only thing read here: a plugin cannot be applied from a provider, so reading it cannot be deferred past
+     * the first {@code finalizeDsl} callback, which is the earliest point where the build script has set it.
+     */
     protected void configureHilt(Project project, AndroidSoftware dslModel) {
         if (dslModel.getHilt().getEnabled().get()) {
             project.getLogger().info("Hilt is enabled in: " + project.getPath());
-
-            // Add support for KSP
-            project.getPlugins().apply("com.google.devtools.ksp");
-            project.getDependencies().add("ksp", "com.google.dagger:hilt-android-compiler:2.50");
-
-            // Add support for Hilt
-            project.getPlugins().apply("dagger.hilt.android.plugin");
-            project.getDependencies().add("implementation", "com.google.dagger:hilt-android:2.50");
-
-            project.getDependencies().add("kspTest", "com.google.dagger:hilt-android-compiler:2.50");
+            project.getPlugins().apply(HILT_PLUGIN);
         }
     }
 
-    @SuppressWarnings("UnstableApiUsage")
+    /**
+     * Applies Room when the model enables it, the same way as {@link #configureHilt}.
+     */
     protected void configureRoom(Project project, AndroidSoftware dslModel) {
         if (dslModel.getRoom().getEnabled().get()) {
             project.getLogger().info("Room is enabled in: " + project.getPath());
+            project.getPlugins().apply(ROOM_PLUGIN);
+        }
+    }
 
-            project.getPlugins().apply("androidx.room");
-            project.getPlugins().apply("com.google.devtools.ksp");
+    /**
+     * Adds the Hilt libraries to the model, and links them to the project only once the Hilt plugin is applied,
+     * so projects without Hilt never see them.
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    protected void linkHiltDependencies(Project project, Hilt hilt) {
+        Hilt.HiltDependencies dependencies = hilt.getDependencies();
+        dependencies.getImplementation().add(hilt.getVersion().map(version -> dependencies.module("com.google.dagger:hilt-android:" + version)));
+        dependencies.getKsp().add(hilt.getVersion().map(version -> dependencies.module("com.google.dagger:hilt-android-compiler:" + version)));
+
+        project.getPlugins().withId(HILT_PLUGIN, plugin -> {
+            ConfigurationContainer configurations = project.getConfigurations();
+            configurations.getByName("implementation").fromDependencyCollector(dependencies.getImplementation());
+            configurations.getByName("ksp").fromDependencyCollector(dependencies.getKsp());
+            configurations.getByName("kspTest").fromDependencyCollector(dependencies.getKsp());
+        });
+    }
+
+    /**
+     * Adds the Room libraries to the model, and links them and the schema directory to the project only once the Room plugin is applied,
+     * so projects without Room never see them.
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    protected void linkRoomDependencies(Project project, Room room) {
+        Room.RoomDependencies dependencies = room.getDependencies();
+        dependencies.getImplementation().add(room.getVersion().map(version -> dependencies.module("androidx.room:room-runtime:" + version)));
+        dependencies.getImplementation().add(room.getVersion().map(version -> dependencies.module("androidx.room:room-ktx:" + version)));
+        dependencies.getKsp().add(room.getVersion().map(version -> dependencies.module("androidx.room:room-compiler:" + version)));
+
+        project.getPlugins().withId(ROOM_PLUGIN, plugin -> {
+            ConfigurationContainer configurations = project.getConfigurations();
+            configurations.getByName("implementation").fromDependencyCollector(dependencies.getImplementation());
+            configurations.getByName("ksp").fromDependencyCollector(dependencies.getKsp());
 
             KspExtension kspExtension = project.getExtensions().getByType(KspExtension.class);
             kspExtension.arg("room.generateKotlin", "true");
 
-            RoomExtension room = project.getExtensions().getByType(RoomExtension.class);
+            RoomExtension roomExtension = project.getExtensions().getByType(RoomExtension.class);
             // The schemas directory contains a schema file for each version of the Room database.
             // This is required to enable Room auto migrations.
             // See https://developer.android.com/reference/kotlin/androidx/room/AutoMigration.
-            ifPresent(dslModel.getRoom().getSchemaDirectory(), room::schemaDirectory);
+            ifPresent(room.getSchemaDirectory(), roomExtension::schemaDirectory);
+        });
+    }
+
+    /**
+     * Configures the symbol processing tasks from the model whenever KSP is applied, by Hilt, Room or the build script.
+     */
+    protected void linkKsp(Project project, Ksp ksp) {
+        // Without worker isolation, the strategy configured for the build is kept
+        Provider<KotlinCompilerExecutionStrategy> buildStrategy = project.getProviders().gradleProperty("kotlin.compiler.execution.strategy")
+                .map(value -> KotlinCompilerExecutionStrategy.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_')))
+                .orElse(KotlinCompilerExecutionStrategy.DAEMON);
+        Provider<KotlinCompilerExecutionStrategy> strategy = ksp.getWorkerIsolation()
+                .zip(buildStrategy, (isolated, fallback) -> isolated ? KotlinCompilerExecutionStrategy.OUT_OF_PROCESS : fallback);
+
+        project.getPlugins().withId(KSP_PLUGIN, plugin -> {
+            project.getTasks().withType(KotlinCompile.class).named(name -> name.startsWith("ksp")).configureEach(task -> {
+                task.getCompilerExecutionStrategy().set(strategy);
+            });
+        });
+    }
 
-            String roomVersion = dslModel.getRoom().getVersion().get();
-            dslModel.getDependencies().getImplementation().add("androidx.room:room-runtime:" + roomVersion);
-            dslModel.getDependencies().getImplementation().add("androidx.room:room-ktx:" + roomVersion);
-            project.getDependencies().add("ksp", "androidx.room:room-compiler:" + roomVersion);
+    /**
+     * Sets the incremental processing properties when the model sets them, after Hilt and Room have applied KSP.
+     * KSP reads them as project properties when it configures the compilations of the variants AGP creates.
+     * Otherwise, the properties from {@code gradle.properties} and KSP's own defaults apply.
+     */
+    private static void configureKspProperties(Project project, Ksp ksp) {
+        if (project.getPlugins().hasPlugin(KSP_PLUGIN)) {
+            ifPresent(ksp.getIncremental(), incremental -> {
+                project.getExtensions().getExtraProperties().set("ksp.incremental", incremental.toString());
+                project.getExtensions().getExtraProperties().set("ksp.incremental.intermodule", incremental.toString());
+            });
         }
     }
 
@@ -189,25 +341,25 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
         }
     }
 
-    @SuppressWarnings("UnstableApiUsage")
     protected void configureTesting(Project project, AndroidSoftware dslModel, CommonExtension<?, ?, ?, ?, ?, ?> android) {
-        Testing testing = dslModel.getTesting();
-        AndroidTestDependencies testDependencies = testing.getDependencies();
-
-        TestOptions testOptions = testing.getTestOptions();
+        TestOptions testOptions = dslModel.getTesting().getTestOptions();
         ifPresent(testOptions.getTestInstrumentationRunner(), android.getDefaultConfig()::setTestInstrumentationRunner);
 
+        @SuppressWarnings("UnstableApiUsage")
         UnitTestOptions unitTestOptions = android.getTestOptions().getUnitTests();
         unitTestOptions.setIncludeAndroidResources(testOptions.getIncludeAndroidResources().get());
         unitTestOptions.setReturnDefaultValues(testOptions.getReturnDefaultValues().get());
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    protected void linkTestingDependencies(Project project, AndroidSoftware dslModel) {
+        AndroidTestDependencies testDependencies = dslModel.getTesting().getDependencies();
 
         ConfigurationContainer configurations = project.getConfigurations();
         configurations.getByName("testImplementation").fromDependencyCollector(testDependencies.getImplementation());
         configurations.getByName("testCompileOnly").fromDependencyCollector(testDependencies.getCompileOnly());
         configurations.getByName("testRuntimeOnly").fromDependencyCollector(testDependencies.getRuntimeOnly());
         configurations.getByName("androidTestImplementation").fromDependencyCollector(testDependencies.getAndroidImplementation());
-
-        configureRoborazzi(project, dslModel);
     }
 
     protected void configureRoborazzi(Project project, AndroidSoftware dslModel) {
@@ -233,8 +385,6 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
     @SuppressWarnings("UnstableApiUsage")
     private static void configureBaselineProfile(Project project, BaselineProfile baselineProfile, BaselineProfileConsumerExtension baselineProfileExtension) {
         if (baselineProfile.getEnabled().get()) {
-            project.getPlugins().apply("androidx.baselineprofile");
-
             baselineProfileExtension.setAutomaticGenerationDuringBuild(baselineProfile.getAutomaticGenerationDuringBuild().get());
 
             project.getConfigurations().getByName("baselineProfile").fromDependencyCollector(baselineProfile.getDependencies().getProfile());
@@ -244,9 +394,26 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
     /**
      * Links build types from the model to the android extension.
      */
+    @SuppressWarnings("UnstableApiUsage")
     protected void linkBuildType(Project project, BuildType buildType, AndroidSoftwareBuildType model, CommonExtension<?, ?, ?, ?, ?, ?> android) {
-        buildType.setMinifyEnabled(model.getMinify().getEnabled().get());
-        linkBuildTypeDependencies(buildType, model.getDependencies(), project.getConfigurations());
+        Minify minify = model.getMinify();
+        buildType.setMinifyEnabled(minify.getEnabled().get());
+        if (minify.getEnabled().get()) {
+            buildType.getOptimization().getKeepRules().ignoreAllExternalDependencies(!minify.getKeepRulesFromDependencies().get());
+
+            if (minify.getShrinkResources().get()) {
+                if (!(buildType instanceof ApplicationBuildType)) {
+                    throw new IllegalStateException("Resource shrinking is only supported for applications, not in: " + project.getPath());
+                }
+                ((ApplicationBuildType) buildType).setShrinkResources(true);
+            }
+
+            boolean fullModeEnabled = project.getProviders().gradleProperty("android.enableR8.fullMode").map(Boolean::parseBoolean).getOrElse(true);
+            if (minify.getFullMode().get() != fullModeEnabled) {
+                project.getLogger().warn("The " + buildType.getName() + " build type of " + project.getPath() + " sets minify.fullMode = " + minify.getFullMode().get()
+                        + ", but R8 full mode can only be changed for the whole build with the android.enableR8.fullMode Gradle property.");
+            }
+        }
 
         model.getDefaultProguardFiles().get().forEach(proguardFile -> {
             File defaultProguardFile = android.getDefaultProguardFile(proguardFile.getName().get());
@@ -262,9 +429,26 @@ public abstract class AbstractAndroidSoftwarePlugin implements Plugin<Project> {
         }
     }
 
+    /**
+     * Copies the R8 mapping file of each minified variant of a build type to the model's
+     * mapping output directory once the variant is assembled.
+     */
+    protected void linkMappingOutput(Project project, String buildTypeName, Minify minify) {
+        AndroidComponentsExtension<?, ?, ?> androidComponents = project.getExtensions().getByType(AndroidComponentsExtension.class);
+        androidComponents.onVariants(androidComponents.selector().withBuildType(buildTypeName), variant -> {
+            if (minify.getEnabled().get() && minify.getMappingOutput().isPresent()) {
+                String capitalizedVariantName = StringUtils.capitalize(variant.getName());
+                TaskProvider<Copy> copyMapping = project.getTasks().register("copy" + capitalizedVariantName + "Mapping", Copy.class, task -> {
+                    task.from(variant.getArtifacts().get(SingleArtifact.OBFUSCATION_MAPPING_FILE.INSTANCE));
+                    task.into(project.getLayout().getProjectDirectory().dir(minify.getMappingOutput().get() + "/" + variant.getName()));
+                });
+                project.getTasks().named(name -> name.equals("assemble" + capitalizedVariantName)).configureEach(task -> task.finalizedBy(copyMapping));
+            }
+        });
+    }
+
     @SuppressWarnings("UnstableApiUsage")
-    protected void linkBuildTypeDependencies(BuildType buildType, AndroidSoftwareDependencies dependencies, ConfigurationContainer configurations) {
-        String name = buildType.getName();
+    protected void linkBuildTypeDependencies(String name, AndroidSoftwareDependencies dependencies, ConfigurationContainer configurations) {
         configurations.getByName(name + "Implementation").fromDependencyCollector(dependencies.getImplementation());
         configurations.getByName(name + "CompileOnly").fromDependencyCollector(dependencies.getCompileOnly());
         configurations.getByName(name + "RuntimeOnly").fromDependencyCollector(dependencies.getRuntimeOnly());
@@ -2,6 +2,8 @@ package org.gradle.api.experimental.android;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.experimental.android.application.StandaloneAndroidApplicationPlugin;
+import org.gradle.api.experimental.android.extensions.ComposeSupport;
+import org.gradle.api.experimental.android.extensions.testing.CoverageSupport;
 import org.gradle.api.experimental.android.library.StandaloneAndroidLibraryPlugin;
 import org.gradle.api.experimental.jvm.JvmEcosystemConventionsPlugin;
 import org.gradle.api.initialization.Settings;
@@ -14,5 +16,10 @@ public abstract class AndroidEcosystemPlugin implements Plugin<Settings> {
     public void apply(Settings target) {
         target.getPlugins().apply(JvmEcosystemConventionsPlugin.class);
         target.getDependencyResolutionManagement().getRepositories().google();
+
+        target.getGradle().rootProject(rootProject -> {
+            ComposeSupport.registerAggregateReport(target, rootProject);
+            CoverageSupport.registerAggregateReport(target, rootProject);
+        });
     }
 }
@@ -7,8 +7,10 @@ import org.gradle.api.experimental.android.extensions.BaselineProfile;
 import org.gradle.api.experimental.android.extensions.Compose;
 import org.gradle.api.experimental.android.extensions.CoreLibraryDesugaring;
 import org.gradle.api.experimental.android.extensions.Hilt;
+import org.gradle.api.experimental.android.extensions.Ksp;
 import org.gradle.api.experimental.android.extensions.KotlinSerialization;
 import org.gradle.api.experimental.android.extensions.Room;
+import org.gradle.api.experimental.android.extensions.Variants;
 import org.gradle.api.experimental.android.extensions.testing.Testing;
 import org.gradle.api.experimental.android.nia.Feature;
 import org.gradle.api.experimental.android.extensions.Licenses;
@@ -95,6 +97,22 @@ public interface AndroidSoftware extends HasLinting {
         action.execute(getRoom());
     }
 
+    @Nested
+    Ksp getKsp();
+
+    @Configuring
+    default void ksp(Action<? super Ksp> action) {
+        action.execute(getKsp());
+    }
+
+    @Nested
+    Variants getVariants();
+
+    @Configuring
+    default void variants(Action<? super Variants> action) {
+        action.execute(getVariants());
+    }
+
     @Nested
     Testing getTesting();
 
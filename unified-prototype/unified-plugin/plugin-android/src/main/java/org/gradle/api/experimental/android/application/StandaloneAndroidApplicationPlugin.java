@@ -1,6 +1,7 @@
 package org.gradle.api.experimental.android.application;
 
 import com.android.build.api.dsl.ApplicationExtension;
+import com.android.build.api.variant.ApplicationAndroidComponentsExtension;
 import org.gradle.api.Project;
 import org.gradle.api.experimental.android.AbstractAndroidSoftwarePlugin;
 import org.gradle.api.experimental.android.AndroidSoftware;
@@ -44,24 +45,40 @@ public abstract class StandaloneAndroidApplicationPlugin extends AbstractAndroid
 
         dslModel.getFlavors().getEnabled().convention(false);
 
-        // Register an afterEvaluate listener before we apply the Android plugin to ensure we can
-        // run actions before Android does.
-        project.afterEvaluate(p -> linkDslModelToPlugin(p, dslModel));
-
         // Apply the official Android plugin.
         project.getPlugins().apply("com.android.application");
         project.getPlugins().apply("org.jetbrains.kotlin.android");
 
+        // TODO:DG All this configuration should be moved to the NiA project
+        if (NiaSupport.isNiaProject(project)) {
+            NiaSupport.applyNiaConventionPlugins(project);
+        }
+
         // After AGP creates configurations, link deps to the collectors
         linkCommonDependencies(dslModel.getDependencies(), project.getConfigurations());
+        linkDslModelToPluginLazy(project, dslModel);
+
+        // Apply the plugins enabled in the model, then link the rest of the model, once the build script has been evaluated and before AGP creates variants
+        ApplicationAndroidComponentsExtension androidComponents = project.getExtensions().getByType(ApplicationAndroidComponentsExtension.class);
+        androidComponents.finalizeDsl(android -> applyPlugins(project, dslModel));
+        androidComponents.finalizeDsl(android -> linkDslModelToPlugin(project, dslModel, android));
+    }
+
+    @Override
+    protected void applyPlugins(Project project, AndroidSoftware dslModel) {
+        super.applyPlugins(project, dslModel);
+
+        // TODO:DG All this configuration should be moved to the NiA project
+        if (NiaSupport.isNiaProject(project)) {
+            NiaSupport.applyNiaApplicationPlugins(project, getAndroidApplication());
+        }
     }
 
     /**
-     * Performs linking actions that must occur within an afterEvaluate block.
+     * Performs linking actions on the Android DSL, from AGP's {@code finalizeDsl} callback.
      */
-    private void linkDslModelToPlugin(Project project, AndroidApplication dslModel) {
-        ApplicationExtension android = project.getExtensions().getByType(ApplicationExtension.class);
-        linkDslModelToPlugin(project, dslModel, android);
+    private void linkDslModelToPlugin(Project project, AndroidApplication dslModel, ApplicationExtension android) {
+        super.linkDslModelToPlugin(project, dslModel, android);
 
         android.defaultConfig(defaultConfig -> {
             ifPresent(dslModel.getVersionCode(), defaultConfig::setVersionCode);
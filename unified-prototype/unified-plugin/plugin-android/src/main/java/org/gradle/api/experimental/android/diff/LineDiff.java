@@ -0,0 +1,258 @@
+/*
+ * Copyright 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.experimental.android.diff;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A line-based diff using the linear-space variant of Myers' O(ND) algorithm, which finds the shortest edit script
+ * between two texts by recursively splitting the edit graph at the middle snake.
+ * <p>
+ * The common leading lines are compared as they are read and never kept. The lines after them are read into memory,
+ * along with an id per distinct line to compare them by, so memory grows with the size of the texts past their common
+ * prefix. Common trailing lines are then dropped, so the time spent diffing depends on the size of the changed region.
+ * Changes are written grouped into hunks with the line numbers of both sides.
+ */
+public final class LineDiff {
+    private final int[] a;
+    private final int[] b;
+
+    private LineDiff(int[] a, int[] b) {
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * Writes the lines removed from {@code expected} (prefixed with {@code -}) and added in
+     * {@code actual} (prefixed with {@code +}) to {@code output}.
+     *
+     * @return the number of changed lines, 0 when both texts are equal
+     */
+    public static int diff(BufferedReader expected, BufferedReader actual, Appendable output) throws IOException {
+        int prefix = 0;
+        String expectedLine = expected.readLine();
+        String actualLine = actual.readLine();
+        while (expectedLine != null && expectedLine.equals(actualLine)) {
+            prefix++;
+            expectedLine = expected.readLine();
+            actualLine = actual.readLine();
+        }
+        List<String> expectedLines = readRemaining(expectedLine, expected);
+        List<String> actualLines = readRemaining(actualLine, actual);
+
+        int suffix = 0;
+        while (suffix < expectedLines.size() && suffix < actualLines.size()
+                && expectedLines.get(expectedLines.size() - 1 - suffix).equals(actualLines.get(actualLines.size() - 1 - suffix))) {
+            suffix++;
+        }
+        expectedLines = expectedLines.subList(0, expectedLines.size() - suffix);
+        actualLines = actualLines.subList(0, actualLines.size() - suffix);
+
+        Map<String, Integer> ids = new HashMap<>();
+        LineDiff lineDiff = new LineDiff(ids(expectedLines, ids), ids(actualLines, ids));
+        List<int[]> path = new ArrayList<>();
+        path.add(new int[] {0, 0});
+        lineDiff.findPath(0, 0, expectedLines.size(), actualLines.size(), path);
+        path.add(new int[] {expectedLines.size(), actualLines.size()});
+
+        Hunks hunks = new Hunks(expectedLines, actualLines, prefix, output);
+        for (int i = 1; i < path.size(); i++) {
+            int x = path.get(i - 1)[0];
+            int y = path.get(i - 1)[1];
+            int toX = path.get(i)[0];
+            int toY = path.get(i)[1];
+            while (x < toX && y < toY && lineDiff.a[x] == lineDiff.b[y]) {
+                hunks.keep();
+                x++;
+                y++;
+            }
+            if (toX - x > toY - y) {
+                hunks.remove(x++, y);
+            } else if (toX - x < toY - y) {
+                hunks.add(x, y++);
+            }
+            while (x < toX && y < toY) {
+                hunks.keep();
+                x++;
+                y++;
+            }
+        }
+        hunks.flush();
+        return hunks.changes;
+    }
+
+    private static List<String> readRemaining(String firstLine, BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (firstLine == null) {
+            return lines;
+        }
+        lines.add(firstLine);
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static int[] ids(List<String> lines, Map<String, Integer> ids) {
+        int[] result = new int[lines.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids.computeIfAbsent(lines.get(i), line -> ids.size());
+        }
+        return result;
+    }
+
+    /**
+     * Adds the start and end points of the middle snakes of the shortest path from {@code (left, top)} to
+     * {@code (right, bottom)} to {@code path}, in order. Consecutive points are joined by at most one insertion or
+     * deletion plus diagonal moves.
+     */
+    private void findPath(int left, int top, int right, int bottom, List<int[]> path) {
+        int[] snake = middleSnake(left, top, right, bottom);
+        if (snake == null) {
+            return;
+        }
+        findPath(left, top, snake[0], snake[1], path);
+        path.add(new int[] {snake[0], snake[1]});
+        path.add(new int[] {snake[2], snake[3]});
+        findPath(snake[2], snake[3], right, bottom, path);
+    }
+
+    /**
+     * Returns {@code {startX, startY, endX, endY}} of the snake where the forward search from the top-left corner
+     * and the backward search from the bottom-right corner first overlap, or {@code null} for an empty box.
+     */
+    private int[] middleSnake(int left, int top, int right, int bottom) {
+        int width = right - left;
+        int height = bottom - top;
+        if (width + height == 0) {
+            return null;
+        }
+        int max = (width + height + 1) / 2;
+        int delta = width - height;
+        // Furthest x reached forwards on diagonal k, and furthest y reached backwards on diagonal c = k - delta
+        int[] forward = new int[2 * max + 1];
+        int[] backward = new int[2 * max + 1];
+        forward[max + 1] = left;
+        backward[max + 1] = bottom;
+        for (int d = 0; d <= max; d++) {
+            for (int k = d; k >= -d; k -= 2) {
+                int x;
+                int previousX;
+                if (k == -d || (k != d && forward[max + k - 1] < forward[max + k + 1])) {
+                    previousX = x = forward[max + k + 1];
+                } else {
+                    previousX = forward[max + k - 1];
+                    x = previousX + 1;
+                }
+                int y = top + (x - left) - k;
+                int previousY = (d == 0 || x != previousX) ? y : y - 1;
+                while (x < right && y < bottom && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                forward[max + k] = x;
+                int c = k - delta;
+                if ((delta & 1) != 0 && c >= -(d - 1) && c <= d - 1 && y >= backward[max + c]) {
+                    return new int[] {previousX, previousY, x, y};
+                }
+            }
+            for (int c = d; c >= -d; c -= 2) {
+                int y;
+                int previousY;
+                if (c == -d || (c != d && backward[max + c - 1] > backward[max + c + 1])) {
+                    previousY = y = backward[max + c + 1];
+                } else {
+                    previousY = backward[max + c - 1];
+                    y = previousY - 1;
+                }
+                int k = c + delta;
+                int x = left + (y - top) + k;
+                int previousX = (d == 0 || y != previousY) ? x : x + 1;
+                while (x > left && y > top && a[x - 1] == b[y - 1]) {
+                    x--;
+                    y--;
+                }
+                backward[max + c] = y;
+                if ((delta & 1) == 0 && k >= -d && k <= d && x <= forward[max + k]) {
+                    return new int[] {x, y, previousX, previousY};
+                }
+            }
+        }
+        throw new IllegalStateException("No middle snake found");
+    }
+
+    private static final class Hunks {
+        private final List<String> expected;
+        private final List<String> actual;
+        private final int offset;
+        private final Appendable output;
+        private final List<String> lines = new ArrayList<>();
+        private int startX;
+        private int startY;
+        private int changes;
+
+        Hunks(List<String> expected, List<String> actual, int offset, Appendable output) {
+            this.expected = expected;
+            this.actual = actual;
+            this.offset = offset;
+            this.output = output;
+        }
+
+        void keep() {
+            flush();
+        }
+
+        void remove(int x, int y) {
+            start(x, y);
+            lines.add("-" + expected.get(x));
+        }
+
+        void add(int x, int y) {
+            start(x, y);
+            lines.add("+" + actual.get(y));
+        }
+
+        private void start(int x, int y) {
+            if (lines.isEmpty()) {
+                startX = x;
+                startY = y;
+            }
+            changes++;
+        }
+
+        void flush() {
+            if (lines.isEmpty()) {
+                return;
+            }
+            try {
+                output.append("@@ -").append(String.valueOf(offset + startX + 1)).append(" +").append(String.valueOf(offset + startY + 1)).append(" @@\n");
+                for (String line : lines) {
+                    output.append(line).append('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            lines.clear();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.gradle.api.experimental.android.extensions;
+
+import groovy.json.JsonOutput;
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Merges the Compose compiler metrics and reports of every module into a single report for the build,
+ * ranking the unstable parameter types and non-skippable composables that drive recomposition.
+ * <p>
+ * Modules are named after the path of the project that published the outputs.
+ */
+@CacheableTask
+public abstract class AggregateComposeReportsTask extends DefaultTask {
+    /**
+     * Compose compiler output directories published by {@link ComposeSupport}, each containing
+     * {@code metrics} and {@code reports} directories.
+     */
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @InputFiles
+    public abstract ConfigurableFileCollection getComposeOutputs();
+
+    @Internal
+    public abstract SetProperty<ResolvedArtifactResult> getComposeOutputArtifacts();
+
+    /**
+     * Names of the modules of {@link #getComposeOutputArtifacts()}, which appear in the reports.
+     */
+    @Input
+    public abstract ListProperty<String> getModules();
+
+    @OutputFile
+    public abstract RegularFileProperty getJsonReport();
+
+    @OutputFile
+    public abstract RegularFileProperty getTextReport();
+
+    @TaskAction
+    @SuppressWarnings("unchecked")
+    public void taskAction() {
+        Map<String, Map<String, Long>> metricsByModule = new TreeMap<>();
+        JsonSlurper slurper = new JsonSlurper();
+        visit(ComposeSupport.METRICS_DIRECTORY, (module, file) -> {
+            if (file.getName().endsWith("-module.json")) {
+                Map<String, Object> metrics = (Map<String, Object>) slurper.parse(file, StandardCharsets.UTF_8.name());
+                Map<String, Long> totals = metricsByModule.computeIfAbsent(module, m -> new TreeMap<>());
+                metrics.forEach((key, value) -> {
+                    if (value instanceof Number) {
+                        totals.merge(key, ((Number) value).longValue(), Long::sum);
+                    }
+                });
+            }
+        });
+
+        Map<String, List<String>> unstableClassesByModule = new TreeMap<>();
+        Map<String, List<String>> composablesByUnstableType = new TreeMap<>();
+        List<Map<String, Object>> nonSkippableComposables = new ArrayList<>();
+        visit(ComposeSupport.REPORTS_DIRECTORY, (module, file) -> {
+            if (file.getName().endsWith(ComposeCompilerReports.CLASSES_SUFFIX)) {
+                unstableClassesByModule.computeIfAbsent(module, m -> new ArrayList<>())
+                        .addAll(ComposeCompilerReports.parseUnstableClasses(file));
+            } else if (file.getName().endsWith(ComposeCompilerReports.COMPOSABLES_SUFFIX)) {
+                for (ComposeCompilerReports.Composable composable : ComposeCompilerReports.parseComposables(file)) {
+                    for (ComposeCompilerReports.Parameter parameter : composable.getUnstableParameters()) {
+                        composablesByUnstableType.computeIfAbsent(parameter.getType(), t -> new ArrayList<>())
+                                .add(module + " " + composable.getName() + "(" + parameter.getName() + ")");
+                    }
+                    if (composable.isNonSkippable()) {
+                        Map<String, Object> entry = new LinkedHashMap<>();
+                        entry.put("module", module);
+                        entry.put("composable", composable.getName());
+                        entry.put("unstableParameters", composable.getUnstableParameters().stream().map(p -> p.getName() + ": " + p.getType()).toList());
+                        nonSkippableComposables.add(entry);
+                    }
+                }
+            }
+        });
+
+        List<Map<String, Object>> unstableTypes = new ArrayList<>();
+        composablesByUnstableType.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<String, List<String>> entry) -> entry.getValue().size()).reversed())
+                .forEach(entry -> {
+                    Map<String, Object> type = new LinkedHashMap<>();
+                    type.put("type", entry.getKey());
+                    type.put("occurrences", entry.getValue().size());
+                    type.put("usages", entry.getValue());
+                    unstableTypes.add(type);
+                });
+        nonSkippableComposables.sort(Comparator.comparing((Map<String, Object> entry) -> ((List<?>) entry.get("unstableParameters")).size()).reversed());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("modules", metricsByModule);
+        summary.put("unstableParameterTypes", unstableTypes);
+        summary.put("nonSkippableComposables", nonSkippableComposables);
+        summary.put("unstableClasses", unstableClassesByModule);
+
+        try {
+            Files.write(getJsonReport().get().getAsFile().toPath(), JsonOutput.prettyPrint(JsonOutput.toJson(summary)).getBytes(StandardCharsets.UTF_8));
+            Files.write(getTextReport().get().getAsFile().toPath(), renderText(unstableTypes, nonSkippableComposables, unstableClassesByModule).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write Compose stability report", e);
+        }
+        getLogger().lifecycle("Compose stability report written to " + getTextReport().get().getAsFile().toURI());
+    }
+
+    /**
+     * Visits the files of the given kind in the output directories of every variant, sorted by name
+     * so the report does not depend on the order of the file system.
+     */
+    private void visit(String kind, BiConsumer<String, File> action) {
+        for (ResolvedArtifactResult artifact : getComposeOutputArtifacts().get()) {
+            String module = moduleName(artifact);
+            File[] files = new File(artifact.getFile(), kind).listFiles(File::isFile);
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    action.accept(module, file);
+                }
+            }
+        }
+    }
+
+    static String moduleName(ResolvedArtifactResult artifact) {
+        ComponentIdentifier component = artifact.getId().getComponentIdentifier();
+        return component instanceof ProjectComponentIdentifier project ? project.getProjectPath() : component.getDisplayName();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String renderText(List<Map<String, Object>> unstableTypes, List<Map<String, Object>> nonSkippableComposables, Map<String, List<String>> unstableClassesByModule) {
+        StringBuilder text = new StringBuilder();
+        text.append("Unstable parameter types, by number of composable parameters\n");
+        for (Map<String, Object> type : unstableTypes) {
+            text.append(String.format("%6d  %s%n", (Integer) type.get("occurrences"), type.get("type")));
+        }
+
+        text.append("\nNon-skippable composables, by number of unstable parameters\n");
+        for (Map<String, Object> composable : nonSkippableComposables) {
+            List<String> parameters = (List<String>) composable.get("unstableParameters");
+            text.append(String.format("%6d  %s %s(%s)%n", parameters.size(), composable.get("module"), composable.get("composable"), String.join(", ", parameters)));
+        }
+
+        text.append("\nUnstable classes\n");
+        unstableClassesByModule.forEach((module, classes) -> {
+            text.append(String.format("%6d  %s%n", classes.size(), module));
+            classes.forEach(name -> text.append("        ").append(name).append('\n'));
+        });
+        return text.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package org.gradle.api.experimental.android.extensions;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.language.base.plugins.LifecycleBasePlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Fails when the Compose compiler reports of a project exceed its {@link ComposeStabilityBudget}.
+ * <p>
+ * Classes and composables are counted once, even when they are reported by the compile tasks of several variants.
+ */
+@CacheableTask
+public abstract class CheckComposeStabilityTask extends DefaultTask {
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @InputFiles
+    public abstract ConfigurableFileCollection getComposeReports();
+
+    @Optional
+    @Input
+    public abstract Property<Integer> getMaxUnstableClasses();
+
+    @Optional
+    @Input
+    public abstract Property<Integer> getMaxNonSkippableComposables();
+
+    // Written on success, so the task is up-to-date when the reports have not changed
+    @OutputFile
+    public abstract RegularFileProperty getOutput();
+
+    @Override
+    public String getGroup() {
+        return LifecycleBasePlugin.VERIFICATION_GROUP;
+    }
+
+    @TaskAction
+    public void taskAction() {
+        Set<String> unstableClasses = new TreeSet<>();
+        Set<String> nonSkippableComposables = new TreeSet<>();
+        for (File report : getComposeReports().getAsFileTree().getFiles()) {
+            if (report.getName().endsWith(ComposeCompilerReports.CLASSES_SUFFIX)) {
+                unstableClasses.addAll(ComposeCompilerReports.parseUnstableClasses(report));
+            } else if (report.getName().endsWith(ComposeCompilerReports.COMPOSABLES_SUFFIX)) {
+                ComposeCompilerReports.parseComposables(report).stream()
+                        .filter(ComposeCompilerReports.Composable::isNonSkippable)
+                        .forEach(composable -> nonSkippableComposables.add(composable.getName()));
+            }
+        }
+
+        List<String> failures = new ArrayList<>();
+        checkBudget("unstable classes", unstableClasses, getMaxUnstableClasses(), failures);
+        checkBudget("non-skippable composables", nonSkippableComposables, getMaxNonSkippableComposables(), failures);
+        if (!failures.isEmpty()) {
+            throw new GradleException("Compose stability budget exceeded:\n" + String.join("\n", failures)
+                    + "\nRun ./gradlew composeStabilityReport for details.");
+        }
+
+        String summary = "unstable classes: " + unstableClasses.size() + "\nnon-skippable composables: " + nonSkippableComposables.size() + "\n";
+        try {
+            Files.write(getOutput().get().getAsFile().toPath(), summary.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write Compose stability summary", e);
+        }
+    }
+
+    private static void checkBudget(String description, Set<String> found, Property<Integer> budget, List<String> failures) {
+        if (budget.isPresent() && found.size() > budget.get()) {
+            failures.add("  " + found.size() + " " + description + ", budget is " + budget.get() + ": " + String.join(", ", found));
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.gradle.api.experimental.android.extensions;
 
+import org.gradle.api.Action;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
 import org.gradle.declarative.dsl.model.annotations.Restricted;
 
 @Restricted
@@ -14,4 +17,12 @@ public interface Compose {
 
     @Restricted
     Property<Boolean> getExperimentalStrongSkipping();
+
+    @Nested
+    ComposeStabilityBudget getStabilityBudget();
+
+    @Configuring
+    default void stabilityBudget(Action<? super ComposeStabilityBudget> action) {
+        action.execute(getStabilityBudget());
+    }
 }
@@ -0,0 +1,164 @@
+package org.gradle.api.experimental.android.extensions;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parses the class and composable stability reports written by the Compose compiler
+ * when a {@code reportsDestination} is configured.
+ * <p>
+ * Composable reports look like:
+ * <pre>
+ * restartable scheme("[androidx.compose.ui.UiComposable]") fun NewsFeed(
+ *   unstable feedState: NewsFeedUiState
+ *   stable modifier: Modifier? = @static Companion
+ * )
+ * </pre>
+ * and class reports like:
+ * <pre>
+ * unstable class NewsResource {
+ *   stable val id: String
+ *   unstable val topics: List&lt;Topic&gt;
+ *   &lt;runtime stability&gt; = Unstable
+ * }
+ * </pre>
+ */
+public final class ComposeCompilerReports {
+    public static final String COMPOSABLES_SUFFIX = "-composables.txt";
+    public static final String CLASSES_SUFFIX = "-classes.txt";
+
+    private ComposeCompilerReports() { /* Not instantiable */ }
+
+    /**
+     * A composable function, as described by a composables report.
+     */
+    public static final class Composable {
+        private final String name;
+        private final boolean restartable;
+        private final boolean skippable;
+        private final List<Parameter> unstableParameters;
+
+        Composable(String name, boolean restartable, boolean skippable, List<Parameter> unstableParameters) {
+            this.name = name;
+            this.restartable = restartable;
+            this.skippable = skippable;
+            this.unstableParameters = unstableParameters;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * A restartable composable that is not skippable is recomposed every time its parent is.
+         */
+        public boolean isNonSkippable() {
+            return restartable && !skippable;
+        }
+
+        public List<Parameter> getUnstableParameters() {
+            return unstableParameters;
+        }
+    }
+
+    /**
+     * A composable parameter the compiler could not prove stable.
+     */
+    public static final class Parameter {
+        private final String name;
+        private final String type;
+
+        Parameter(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getType() {
+            return type;
+        }
+    }
+
+    public static List<Composable> parseComposables(File report) {
+        List<Composable> composables = new ArrayList<>();
+        String header = null;
+        List<Parameter> unstableParameters = new ArrayList<>();
+        for (String line : readLines(report)) {
+            if (header == null) {
+                if (line.contains("fun ")) {
+                    if (line.endsWith("()")) {
+                        composables.add(composable(line, Collections.emptyList()));
+                    } else {
+                        header = line;
+                        unstableParameters = new ArrayList<>();
+                    }
+                }
+            } else if (line.startsWith(")")) {
+                composables.add(composable(header, unstableParameters));
+                header = null;
+            } else {
+                Parameter parameter = unstableParameter(line.trim());
+                if (parameter != null) {
+                    unstableParameters.add(parameter);
+                }
+            }
+        }
+        return composables;
+    }
+
+    /**
+     * Returns the names of the classes the compiler inferred as unstable.
+     */
+    public static List<String> parseUnstableClasses(File report) {
+        List<String> classes = new ArrayList<>();
+        for (String line : readLines(report)) {
+            if (line.startsWith("unstable class ")) {
+                classes.add(line.substring("unstable class ".length()).replace("{", "").trim());
+            }
+        }
+        return classes;
+    }
+
+    private static Composable composable(String header, List<Parameter> unstableParameters) {
+        int fun = header.indexOf("fun ");
+        String modifiers = header.substring(0, fun);
+        // The modifiers contain parentheses too, as in scheme("[androidx.compose.ui.UiComposable]")
+        String name = header.substring(fun + "fun ".length(), header.indexOf('(', fun));
+        List<String> keywords = List.of(modifiers.trim().split("\\s+"));
+        return new Composable(name.trim(), keywords.contains("restartable"), keywords.contains("skippable"), unstableParameters);
+    }
+
+    private static Parameter unstableParameter(String line) {
+        // Parameters marked "unused" are skipped along with stable and runtime-checked ones
+        if (!line.startsWith("unstable ")) {
+            return null;
+        }
+        String declaration = line.substring("unstable ".length());
+        int colon = declaration.indexOf(':');
+        if (colon < 0) {
+            return null;
+        }
+        String type = declaration.substring(colon + 1);
+        int defaultValue = type.indexOf(" = ");
+        if (defaultValue >= 0) {
+            type = type.substring(0, defaultValue);
+        }
+        return new Parameter(declaration.substring(0, colon).trim(), type.trim());
+    }
+
+    private static List<String> readLines(File report) {
+        try {
+            return Files.readAllLines(report.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Compose compiler report: " + report, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.gradle.api.experimental.android.extensions;
+
+import org.gradle.api.provider.Property;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Limits on the Compose stability issues a project may have, enforced by the {@code checkComposeStability} task.
+ * <p>
+ * Unset limits are not checked.
+ */
+@Restricted
+public interface ComposeStabilityBudget {
+    /**
+     * The maximum number of classes the Compose compiler may infer as unstable.
+     */
+    @Restricted
+    Property<Integer> getMaxUnstableClasses();
+
+    /**
+     * The maximum number of restartable composables that are not skippable.
+     */
+    @Restricted
+    Property<Integer> getMaxNonSkippableComposables();
+}
@@ -1,21 +1,48 @@
 package org.gradle.api.experimental.android.extensions;
 
 import com.android.build.api.dsl.CommonExtension;
+import com.android.build.api.variant.AndroidComponentsExtension;
+import org.apache.commons.lang3.StringUtils;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.ArtifactCollection;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
 import org.gradle.api.experimental.android.AndroidSoftware;
+import org.gradle.api.experimental.common.AggregationSupport;
+import org.gradle.api.file.Directory;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.model.ObjectFactory;
 import org.gradle.api.provider.Provider;
-import org.jetbrains.kotlin.gradle.dsl.KotlinJvmOptions;
+import org.gradle.api.tasks.TaskCollection;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.language.base.plugins.LifecycleBasePlugin;
 import org.jetbrains.kotlin.gradle.tasks.KotlinCompile;
 
-import java.io.File;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * Configures Compose for Android projects, and shares the Compose compiler metrics and reports with a build-wide report.
+ * <p>
+ * The compile task of each variant writes its metrics and reports to {@code build/compose/<variant>/metrics} and
+ * {@code build/compose/<variant>/reports}. The variant directories are published as a verification variant of the
+ * project, which the root project resolves from every project of the build, skipping the ones without Compose outputs.
+ */
 public final class ComposeSupport {
+    public static final String COMPOSE_OUTPUTS_ELEMENTS = "composeCompilerOutputsElements";
+    public static final String AGGREGATE_COMPOSE_REPORT = "composeStabilityReport";
+    public static final String METRICS_DIRECTORY = "metrics";
+    public static final String REPORTS_DIRECTORY = "reports";
+
+    private static final String AGGREGATE_COMPOSE_OUTPUTS = "aggregateComposeCompilerOutputs";
+    private static final String COMPOSE_OUTPUTS = "compose-compiler-outputs";
+
+    public static final Attribute<String> COMPOSE_OUTPUTS_ATTRIBUTE = Attribute.of("org.gradle.experimental.android.compose-compiler-outputs", String.class);
+
     private ComposeSupport() { /* Not instantiable */ }
 
     @SuppressWarnings("UnstableApiUsage")
@@ -35,38 +62,124 @@ public final class ComposeSupport {
             androidLib.getTestOptions().getUnitTests().setIncludeAndroidResources(true); // For Robolectric
 
             project.getTasks().withType(KotlinCompile.class).configureEach(task -> {
-                KotlinJvmOptions kotlinOptions = task.getKotlinOptions();
                 List<String> freeCompilerArgs = new ArrayList<>();
-                freeCompilerArgs.addAll(buildComposeMetricsParameters(project));
                 freeCompilerArgs.addAll(stabilityConfiguration(project, dslModel));
                 freeCompilerArgs.addAll(strongSkippingConfiguration(dslModel));
-                kotlinOptions.setFreeCompilerArgs(freeCompilerArgs);
+                task.getKotlinOptions().setFreeCompilerArgs(freeCompilerArgs);
             });
+
+            boolean enableMetrics = Objects.equals(project.getProviders().gradleProperty("enableComposeCompilerMetrics").getOrNull(), "true");
+            // Reports are always written when a stability budget needs to be checked
+            boolean enableReports = Objects.equals(project.getProviders().gradleProperty("enableComposeCompilerReports").getOrNull(), "true") || hasStabilityBudget(dslModel);
+            if (enableMetrics || enableReports) {
+                configureCompilerOutputs(project, dslModel, enableMetrics, enableReports);
+            }
         }
     }
 
-    private static List<String> buildComposeMetricsParameters(Project project) {
-        List<String> metricParameters = new ArrayList<>();
-        Path relativePath = project.getProjectDir().toPath().relativize(project.getRootDir().toPath());
-        File buildDir = project.getLayout().getBuildDirectory().get().getAsFile();
-
-        Provider<String> enableMetricsProvider = project.getProviders().gradleProperty("enableComposeCompilerMetrics");
-        boolean enableMetrics = Objects.equals(enableMetricsProvider.getOrNull(), "true");
-        if (enableMetrics) {
-            Path metricsFolder = buildDir.toPath().resolve("compose-metrics").resolve(relativePath);
-            metricParameters.add("-P");
-            metricParameters.add("plugin:androidx.compose.compiler.plugins.kotlin:metricsDestination=" + metricsFolder.toAbsolutePath());
-        }
+    private static boolean hasStabilityBudget(AndroidSoftware dslModel) {
+        ComposeStabilityBudget budget = dslModel.getCompose().getStabilityBudget();
+        return budget.getMaxUnstableClasses().isPresent() || budget.getMaxNonSkippableComposables().isPresent();
+    }
+
+    /**
+     * Writes the metrics and reports of the compile task of each variant to its own directory, which is declared
+     * as an output of the task, so the files are restored along with cached compilations, and published for the build-wide report.
+     */
+    private static void configureCompilerOutputs(Project project, AndroidSoftware dslModel, boolean enableMetrics, boolean enableReports) {
+        Configuration outputsElements = composeOutputsElements(project);
+        TaskProvider<CheckComposeStabilityTask> checkStability = hasStabilityBudget(dslModel) ? configureStabilityCheck(project, dslModel.getCompose().getStabilityBudget()) : null;
+
+        AndroidComponentsExtension<?, ?, ?> androidComponents = project.getExtensions().getByType(AndroidComponentsExtension.class);
+        androidComponents.onVariants(androidComponents.selector().all(), variant -> {
+            // The Kotlin plugin names the compile task of a variant after it
+            String compileTaskName = "compile" + StringUtils.capitalize(variant.getName()) + "Kotlin";
+            TaskCollection<KotlinCompile> compileTask = project.getTasks().withType(KotlinCompile.class).named(name -> name.equals(compileTaskName));
+            Provider<Directory> outputDirectory = project.getLayout().getBuildDirectory().dir("compose/" + variant.getName());
+
+            compileTask.configureEach(task -> {
+                task.getOutputs().dir(outputDirectory).withPropertyName("composeCompilerOutputs");
+                List<String> freeCompilerArgs = new ArrayList<>(task.getKotlinOptions().getFreeCompilerArgs());
+                if (enableMetrics) {
+                    freeCompilerArgs.add("-P");
+                    freeCompilerArgs.add("plugin:androidx.compose.compiler.plugins.kotlin:metricsDestination=" + outputDirectory.get().dir(METRICS_DIRECTORY).getAsFile().getAbsolutePath());
+                }
+                if (enableReports) {
+                    freeCompilerArgs.add("-P");
+                    freeCompilerArgs.add("plugin:androidx.compose.compiler.plugins.kotlin:reportsDestination=" + outputDirectory.get().dir(REPORTS_DIRECTORY).getAsFile().getAbsolutePath());
+                }
+                task.getKotlinOptions().setFreeCompilerArgs(freeCompilerArgs);
+            });
 
-        Provider<String> enableReportsProvider = project.getProviders().gradleProperty("enableComposeCompilerReports");
-        boolean enableReports = Objects.equals(enableReportsProvider.getOrNull(), "true");
-        if (enableReports) {
-            Path reportsFolder = buildDir.toPath().resolve("compose-reports").resolve(relativePath);
-            metricParameters.add("-P");
-            metricParameters.add("plugin:androidx.compose.compiler.plugins.kotlin:reportsDestination=" + reportsFolder.toAbsolutePath());
+            outputsElements.getOutgoing().artifact(outputDirectory, artifact -> artifact.builtBy(compileTask));
+            if (checkStability != null) {
+                // Carries the dependency on the compile task, so only the tasks writing the reports run before the check
+                Provider<Directory> reportDirectory = outputDirectory.map(directory -> directory.dir(REPORTS_DIRECTORY));
+                checkStability.configure(task -> task.getComposeReports().from(project.files(reportDirectory).builtBy(compileTask)));
+            }
+        });
+    }
+
+    /**
+     * Registers {@code checkComposeStability}, which checks the reports of the variant compile tasks
+     * against the budget, and runs it as part of {@code check}. The reports are added as variants are created.
+     */
+    private static TaskProvider<CheckComposeStabilityTask> configureStabilityCheck(Project project, ComposeStabilityBudget budget) {
+        TaskProvider<CheckComposeStabilityTask> checkStability = project.getTasks().register("checkComposeStability", CheckComposeStabilityTask.class, task -> {
+            task.setDescription("Checks the Compose compiler reports against the stability budget.");
+            task.getMaxUnstableClasses().set(budget.getMaxUnstableClasses());
+            task.getMaxNonSkippableComposables().set(budget.getMaxNonSkippableComposables());
+            task.getOutput().set(project.getLayout().getBuildDirectory().file("intermediates/checkComposeStability/summary.txt"));
+        });
+        project.getTasks().named(LifecycleBasePlugin.CHECK_TASK_NAME).configure(task -> task.dependsOn(checkStability));
+        return checkStability;
+    }
+
+    /**
+     * Returns the consumable configuration the Compose compiler output directories of the project's variants are published with.
+     */
+    public static Configuration composeOutputsElements(Project project) {
+        Configuration existing = project.getConfigurations().findByName(COMPOSE_OUTPUTS_ELEMENTS);
+        if (existing != null) {
+            return existing;
         }
+        return project.getConfigurations().create(COMPOSE_OUTPUTS_ELEMENTS, configuration -> {
+            configuration.setCanBeConsumed(true);
+            configuration.setCanBeResolved(false);
+            configuration.setDescription("Compose compiler metrics and reports of the variants of this project.");
+            composeOutputsAttributes(configuration.getAttributes(), project.getObjects());
+        });
+    }
+
+    /**
+     * Registers the {@value #AGGREGATE_COMPOSE_REPORT} task on the root project, reading the Compose compiler outputs of all projects in the settings.
+     */
+    public static void registerAggregateReport(Settings settings, Project rootProject) {
+        Configuration composeOutputs = rootProject.getConfigurations().create(AGGREGATE_COMPOSE_OUTPUTS, configuration -> {
+            configuration.setCanBeConsumed(false);
+            configuration.setCanBeResolved(true);
+            configuration.setVisible(false);
+            composeOutputsAttributes(configuration.getAttributes(), rootProject.getObjects());
+        });
+        AggregationSupport.addProjectDependencies(settings.getRootProject(), composeOutputs, rootProject);
+
+        rootProject.getTasks().register(AGGREGATE_COMPOSE_REPORT, AggregateComposeReportsTask.class, task -> {
+            task.setGroup("help");
+            task.setDescription("Ranks the unstable parameters and non-skippable composables reported by the Compose compiler across all projects.");
+
+            // Projects without Compose compiler outputs have no such variant, skip them instead of failing
+            ArtifactCollection artifacts = composeOutputs.getIncoming().artifactView(view -> view.lenient(true)).getArtifacts();
+            task.getComposeOutputs().from(artifacts.getArtifactFiles());
+            task.getComposeOutputArtifacts().set(artifacts.getResolvedArtifacts());
+            task.getModules().set(artifacts.getResolvedArtifacts().map(resolved -> resolved.stream().map(AggregateComposeReportsTask::moduleName).toList()));
+            task.getJsonReport().set(rootProject.getLayout().getBuildDirectory().file("reports/compose/summary.json"));
+            task.getTextReport().set(rootProject.getLayout().getBuildDirectory().file("reports/compose/stability.txt"));
+        });
+    }
 
-        return metricParameters;
+    private static void composeOutputsAttributes(AttributeContainer attributes, ObjectFactory objects) {
+        AggregationSupport.verificationAttributes(attributes, objects, COMPOSE_OUTPUTS);
+        attributes.attribute(COMPOSE_OUTPUTS_ATTRIBUTE, COMPOSE_OUTPUTS);
     }
 
     private static List<String> stabilityConfiguration(Project project, AndroidSoftware dslModel) {
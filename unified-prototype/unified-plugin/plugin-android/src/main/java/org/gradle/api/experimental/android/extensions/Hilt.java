@@ -1,10 +1,39 @@
 package org.gradle.api.experimental.android.extensions;
 
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.dsl.Dependencies;
+import org.gradle.api.artifacts.dsl.DependencyCollector;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
 import org.gradle.declarative.dsl.model.annotations.Restricted;
 
+@SuppressWarnings("UnstableApiUsage")
 @Restricted
 public interface Hilt {
     @Restricted
     Property<Boolean> getEnabled();
+
+    /**
+     * Hilt libraries version to use.
+     */
+    @Restricted
+    Property<String> getVersion();
+
+    /**
+     * The Hilt runtime and compiler, only added to the project when Hilt is enabled.
+     */
+    @Nested
+    HiltDependencies getDependencies();
+
+    @Configuring
+    default void dependencies(Action<? super HiltDependencies> action) {
+        action.execute(getDependencies());
+    }
+
+    @Restricted
+    interface HiltDependencies extends Dependencies {
+        DependencyCollector getImplementation();
+        DependencyCollector getKsp();
+    }
 }
@@ -0,0 +1,24 @@
+package org.gradle.api.experimental.android.extensions;
+
+import org.gradle.api.provider.Property;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Settings of the Kotlin Symbol Processing tasks, used when Hilt or Room are enabled.
+ */
+@Restricted
+public interface Ksp {
+    /**
+     * Whether symbol processing only reprocesses the sources affected by a change, including changes in other modules.
+     * When not set, the {@code ksp.incremental} properties of the build apply, and KSP processes incrementally by default.
+     */
+    @Restricted
+    Property<Boolean> getIncremental();
+
+    /**
+     * Whether symbol processing runs in its own compiler process instead of using the execution strategy configured for the build,
+     * trading startup time for isolation from other compilations.
+     */
+    @Restricted
+    Property<Boolean> getWorkerIsolation();
+}
@@ -7,4 +7,31 @@ import org.gradle.declarative.dsl.model.annotations.Restricted;
 public interface Minify {
     @Restricted
     Property<Boolean> getEnabled();
+
+    /**
+     * Whether R8 runs in full mode rather than ProGuard compatibility mode.
+     * <p>
+     * AGP only supports this build-wide, through the {@code android.enableR8.fullMode} Gradle property,
+     * so a mismatch with that property is reported as a warning.
+     */
+    @Restricted
+    Property<Boolean> getFullMode();
+
+    /**
+     * Whether to remove unused resources after code shrinking. Only supported by applications.
+     */
+    @Restricted
+    Property<Boolean> getShrinkResources();
+
+    /**
+     * Whether to apply the keep rules shipped by external dependencies.
+     */
+    @Restricted
+    Property<Boolean> getKeepRulesFromDependencies();
+
+    /**
+     * Directory, relative to the project directory, to copy the R8 mapping file of each variant to after assembling it.
+     */
+    @Restricted
+    Property<String> getMappingOutput();
 }
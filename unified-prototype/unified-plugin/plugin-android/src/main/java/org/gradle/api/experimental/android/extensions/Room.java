@@ -1,8 +1,14 @@
 package org.gradle.api.experimental.android.extensions;
 
+import org.gradle.api.Action;
+import org.gradle.api.artifacts.dsl.Dependencies;
+import org.gradle.api.artifacts.dsl.DependencyCollector;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
 import org.gradle.declarative.dsl.model.annotations.Restricted;
 
+@SuppressWarnings("UnstableApiUsage")
 @Restricted
 public interface Room {
     @Restricted
@@ -16,4 +22,21 @@ public interface Room {
      */
     @Restricted
     Property<String> getVersion();
+
+    /**
+     * The Room runtime and compiler, only added to the project when Room is enabled.
+     */
+    @Nested
+    RoomDependencies getDependencies();
+
+    @Configuring
+    default void dependencies(Action<? super RoomDependencies> action) {
+        action.execute(getDependencies());
+    }
+
+    @Restricted
+    interface RoomDependencies extends Dependencies {
+        DependencyCollector getImplementation();
+        DependencyCollector getKsp();
+    }
 }
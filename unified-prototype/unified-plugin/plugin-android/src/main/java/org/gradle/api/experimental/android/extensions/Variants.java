@@ -0,0 +1,34 @@
+package org.gradle.api.experimental.android.extensions;
+
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.declarative.dsl.model.annotations.Adding;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Controls which of the build type and flavor variants of an Android project are configured.
+ * <p>
+ * Disabled variants are dropped in AGP's {@code beforeVariants} callback, so none of their tasks are created.
+ */
+@Restricted
+public interface Variants {
+    /**
+     * The names of the variants to configure, such as {@code demoDebug}.
+     * <p>
+     * All variants are configured when this is empty.
+     */
+    ListProperty<String> getEnabled();
+
+    @Adding
+    default void enable(String variantName) {
+        getEnabled().add(variantName);
+    }
+
+    /**
+     * Whether to skip configuring release variants when not running on CI.
+     * <p>
+     * A build is considered to run on CI when the {@code CI} environment variable is set.
+     */
+    @Restricted
+    Property<Boolean> getDisableReleaseOnLocalBuilds();
+}
@@ -0,0 +1,225 @@
+package org.gradle.api.experimental.android.extensions.testing;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ProjectComponentIdentifier;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.report.DirectorySourceFileLocator;
+import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.xml.XMLFormatter;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Generates a coverage report for every project variant that exported JaCoCo coverage data, using the execution
+ * data of all projects merged together, so code exercised by the tests of another project is counted as covered.
+ * <p>
+ * The execution data is merged first, then each report is generated by its own worker, in parallel. Workers run
+ * with class loader isolation, so the JaCoCo version used for reports is independent of the build's classpath.
+ */
+@DisableCachingByDefault(because = "Report names depend on project paths, which are not part of the inputs")
+public abstract class AggregateCoverageReportTask extends DefaultTask {
+    private static final String SUMMARY_FILE = "summary.properties";
+
+    /**
+     * Coverage data directories, each containing {@code classes}, {@code sources} and {@code exec} directories.
+     */
+    @PathSensitive(PathSensitivity.RELATIVE)
+    @InputFiles
+    public abstract ConfigurableFileCollection getCoverageData();
+
+    @Internal
+    public abstract SetProperty<ResolvedArtifactResult> getCoverageDataArtifacts();
+
+    @Classpath
+    public abstract ConfigurableFileCollection getJacocoClasspath();
+
+    @OutputDirectory
+    public abstract DirectoryProperty getReportDirectory();
+
+    @Inject
+    public abstract WorkerExecutor getWorkerExecutor();
+
+    @TaskAction
+    public void taskAction() {
+        if (getCoverageDataArtifacts().get().isEmpty()) {
+            getLogger().lifecycle("No project of the build exports JaCoCo coverage data, no report to generate.");
+            return;
+        }
+
+        File reportDirectory = getReportDirectory().get().getAsFile();
+        WorkQueue workQueue = getWorkerExecutor().classLoaderIsolation(spec -> spec.getClasspath().from(getJacocoClasspath()));
+
+        List<File> executionData = new ArrayList<>();
+        for (ResolvedArtifactResult artifact : getCoverageDataArtifacts().get()) {
+            File[] files = new File(artifact.getFile(), "exec").listFiles((dir, name) -> name.endsWith(".exec") || name.endsWith(".ec"));
+            if (files != null) {
+                executionData.addAll(List.of(files));
+            }
+        }
+        File mergedExecutionData = new File(reportDirectory, "merged.exec");
+        workQueue.submit(MergeExecutionData.class, parameters -> {
+            parameters.getExecutionData().from(executionData);
+            parameters.getMergedExecutionData().set(mergedExecutionData);
+        });
+        workQueue.await();
+
+        List<String> reportNames = new ArrayList<>();
+        for (ResolvedArtifactResult artifact : getCoverageDataArtifacts().get()) {
+            String reportName = reportName(artifact.getId().getComponentIdentifier(), artifact.getFile());
+            reportNames.add(reportName);
+            workQueue.submit(GenerateCoverageReport.class, parameters -> {
+                parameters.getReportName().set(reportName);
+                parameters.getExecutionData().set(mergedExecutionData);
+                parameters.getClasses().set(new File(artifact.getFile(), "classes"));
+                parameters.getSources().set(new File(artifact.getFile(), "sources"));
+                parameters.getReportDirectory().set(new File(reportDirectory, reportName.replace(':', '/')));
+            });
+        }
+        workQueue.await();
+
+        writeIndex(reportDirectory, reportNames);
+        getLogger().lifecycle("Aggregated coverage report written to " + new File(reportDirectory, "index.html").toURI());
+    }
+
+    /**
+     * Names a report after the project and variant the coverage data came from, such as {@code core:ui:demoDebug}.
+     */
+    private static String reportName(ComponentIdentifier component, File coverageData) {
+        String projectPath = component instanceof ProjectComponentIdentifier project ? project.getProjectPath() : component.getDisplayName();
+        String projectName = projectPath.equals(":") ? "root" : projectPath.substring(1);
+        return projectName + ":" + coverageData.getName();
+    }
+
+    private static void writeIndex(File reportDirectory, List<String> reportNames) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Aggregated coverage report</title>\n");
+        html.append("<style>table{border-collapse:collapse}th,td{border:1px solid #ccc;padding:4px 8px;text-align:left}</style>\n");
+        html.append("</head>\n<body>\n<h1>Aggregated coverage report</h1>\n");
+        html.append("<table>\n<tr><th>Project variant</th><th>Covered lines</th><th>Missed lines</th><th>Line coverage</th></tr>\n");
+        reportNames.sort(Comparator.naturalOrder());
+        for (String reportName : reportNames) {
+            String path = reportName.replace(':', '/');
+            Properties summary = new Properties();
+            try (InputStream input = Files.newInputStream(new File(reportDirectory, path + "/" + SUMMARY_FILE).toPath())) {
+                summary.load(input);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read coverage summary of " + reportName, e);
+            }
+            long covered = Long.parseLong(summary.getProperty("lines.covered"));
+            long missed = Long.parseLong(summary.getProperty("lines.missed"));
+            String ratio = covered + missed == 0 ? "n/a" : String.format("%.1f%%", 100.0 * covered / (covered + missed));
+            html.append("<tr><td><a href=\"").append(path).append("/index.html\">").append(reportName).append("</a></td><td>")
+                    .append(covered).append("</td><td>").append(missed).append("</td><td>").append(ratio).append("</td></tr>\n");
+        }
+        html.append("</table>\n</body>\n</html>\n");
+        try {
+            Files.write(new File(reportDirectory, "index.html").toPath(), html.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write aggregated coverage index", e);
+        }
+    }
+
+    public interface MergeExecutionDataParameters extends WorkParameters {
+        ConfigurableFileCollection getExecutionData();
+        RegularFileProperty getMergedExecutionData();
+    }
+
+    public abstract static class MergeExecutionData implements WorkAction<MergeExecutionDataParameters> {
+        @Override
+        public void execute() {
+            ExecFileLoader loader = new ExecFileLoader();
+            try {
+                for (File file : getParameters().getExecutionData()) {
+                    loader.load(file);
+                }
+                loader.save(getParameters().getMergedExecutionData().get().getAsFile(), false);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to merge JaCoCo execution data", e);
+            }
+        }
+    }
+
+    public interface GenerateCoverageReportParameters extends WorkParameters {
+        Property<String> getReportName();
+        RegularFileProperty getExecutionData();
+        DirectoryProperty getClasses();
+        DirectoryProperty getSources();
+        DirectoryProperty getReportDirectory();
+    }
+
+    public abstract static class GenerateCoverageReport implements WorkAction<GenerateCoverageReportParameters> {
+        @Override
+        public void execute() {
+            GenerateCoverageReportParameters parameters = getParameters();
+            File reportDirectory = parameters.getReportDirectory().get().getAsFile();
+            try {
+                ExecFileLoader loader = new ExecFileLoader();
+                loader.load(parameters.getExecutionData().get().getAsFile());
+
+                CoverageBuilder coverageBuilder = new CoverageBuilder();
+                File classes = parameters.getClasses().get().getAsFile();
+                if (classes.exists()) {
+                    new Analyzer(loader.getExecutionDataStore(), coverageBuilder).analyzeAll(classes);
+                }
+                IBundleCoverage bundle = coverageBuilder.getBundle(parameters.getReportName().get());
+                DirectorySourceFileLocator sources = new DirectorySourceFileLocator(parameters.getSources().get().getAsFile(), StandardCharsets.UTF_8.name(), 4);
+
+                IReportVisitor html = new HTMLFormatter().createVisitor(new FileMultiReportOutput(reportDirectory));
+                html.visitInfo(loader.getSessionInfoStore().getInfos(), loader.getExecutionDataStore().getContents());
+                html.visitBundle(bundle, sources);
+                html.visitEnd();
+
+                try (OutputStream xmlOutput = new FileOutputStream(new File(reportDirectory, "report.xml"))) {
+                    IReportVisitor xml = new XMLFormatter().createVisitor(xmlOutput);
+                    xml.visitInfo(loader.getSessionInfoStore().getInfos(), loader.getExecutionDataStore().getContents());
+                    xml.visitBundle(bundle, sources);
+                    xml.visitEnd();
+                }
+
+                Properties summary = new Properties();
+                summary.setProperty("lines.covered", Integer.toString(bundle.getLineCounter().getCoveredCount()));
+                summary.setProperty("lines.missed", Integer.toString(bundle.getLineCounter().getMissedCount()));
+                try (OutputStream summaryOutput = new FileOutputStream(new File(reportDirectory, SUMMARY_FILE))) {
+                    summary.store(summaryOutput, null);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to generate coverage report for " + parameters.getReportName().get(), e);
+            }
+        }
+    }
+}
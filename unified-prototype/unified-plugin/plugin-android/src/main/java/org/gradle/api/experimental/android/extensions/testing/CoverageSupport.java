@@ -0,0 +1,88 @@
+package org.gradle.api.experimental.android.extensions.testing;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.ArtifactCollection;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.experimental.common.AggregationSupport;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.model.ObjectFactory;
+
+/**
+ * Shares the JaCoCo coverage data of Android projects with a build-wide report.
+ * <p>
+ * Each project with JaCoCo enabled exports, per variant, a directory containing its classes, sources and execution data.
+ * The directories are published as a verification variant of the project. The root project resolves them
+ * from every project of the build, skipping the ones without coverage data.
+ * <p>
+ * Reports are generated with {@value #DEFAULT_JACOCO_VERSION}, whatever version the projects configure, since all JaCoCo versions
+ * since 0.7.5 write the same execution data format.
+ */
+public final class CoverageSupport {
+    public static final String DEFAULT_JACOCO_VERSION = "0.8.7";
+    public static final String COVERAGE_DATA_ELEMENTS = "coverageDataElements";
+    public static final String AGGREGATE_COVERAGE_REPORT = "jacocoAggregateReport";
+
+    private static final String AGGREGATE_COVERAGE_DATA = "aggregateCoverageData";
+    private static final String JACOCO_REPORT_CLASSPATH = "jacocoAggregateReportClasspath";
+
+    public static final Attribute<String> COVERAGE_DATA_ATTRIBUTE = Attribute.of("org.gradle.experimental.android.coverage-data", String.class);
+    private static final String COVERAGE_DATA = "jacoco";
+
+    private CoverageSupport() { /* Not instantiable */ }
+
+    /**
+     * Returns the consumable configuration the coverage data directories of the project's variants are published with.
+     */
+    public static Configuration coverageDataElements(Project project) {
+        Configuration existing = project.getConfigurations().findByName(COVERAGE_DATA_ELEMENTS);
+        if (existing != null) {
+            return existing;
+        }
+        return project.getConfigurations().create(COVERAGE_DATA_ELEMENTS, configuration -> {
+            configuration.setCanBeConsumed(true);
+            configuration.setCanBeResolved(false);
+            configuration.setDescription("JaCoCo coverage data of the variants of this project.");
+            coverageDataAttributes(configuration.getAttributes(), project.getObjects());
+        });
+    }
+
+    /**
+     * Registers the {@value #AGGREGATE_COVERAGE_REPORT} task on the root project, reading the coverage data of all projects in the settings.
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    public static void registerAggregateReport(Settings settings, Project rootProject) {
+        Configuration coverageData = rootProject.getConfigurations().create(AGGREGATE_COVERAGE_DATA, configuration -> {
+            configuration.setCanBeConsumed(false);
+            configuration.setCanBeResolved(true);
+            configuration.setVisible(false);
+            coverageDataAttributes(configuration.getAttributes(), rootProject.getObjects());
+        });
+        AggregationSupport.addProjectDependencies(settings.getRootProject(), coverageData, rootProject);
+
+        Configuration jacocoClasspath = rootProject.getConfigurations().create(JACOCO_REPORT_CLASSPATH, configuration -> {
+            configuration.setCanBeConsumed(false);
+            configuration.setCanBeResolved(true);
+            configuration.setVisible(false);
+        });
+        jacocoClasspath.getDependencies().add(rootProject.getDependencies().create("org.jacoco:org.jacoco.report:" + DEFAULT_JACOCO_VERSION));
+
+        rootProject.getTasks().register(AGGREGATE_COVERAGE_REPORT, AggregateCoverageReportTask.class, task -> {
+            task.setGroup("verification");
+            task.setDescription("Merges the JaCoCo execution data of all projects and generates a coverage report for each project variant.");
+
+            // Projects without JaCoCo enabled have no coverage data variant, skip them instead of failing
+            ArtifactCollection artifacts = coverageData.getIncoming().artifactView(view -> view.lenient(true)).getArtifacts();
+            task.getCoverageData().from(artifacts.getArtifactFiles());
+            task.getCoverageDataArtifacts().set(artifacts.getResolvedArtifacts());
+            task.getJacocoClasspath().from(jacocoClasspath);
+            task.getReportDirectory().set(rootProject.getLayout().getBuildDirectory().dir("reports/jacoco/aggregate"));
+        });
+    }
+
+    private static void coverageDataAttributes(AttributeContainer attributes, ObjectFactory objects) {
+        AggregationSupport.verificationAttributes(attributes, objects, COVERAGE_DATA);
+        attributes.attribute(COVERAGE_DATA_ATTRIBUTE, COVERAGE_DATA);
+    }
+}
@@ -46,23 +46,38 @@ public abstract class StandaloneAndroidLibraryPlugin extends AbstractAndroidSoft
         // Setup library-specific conventions
         dslModel.getProtobuf().getEnabled().convention(false);
 
-        // Register an afterEvaluate listener before we apply the Android plugin to ensure we can
-        // run actions before Android does.
-        project.afterEvaluate(p -> linkDslModelToPlugin(p, dslModel));
-
         // Apply the official Android plugin and support for Kotlin
         project.getPlugins().apply("com.android.library");
         project.getPlugins().apply("org.jetbrains.kotlin.android");
 
+        // TODO:DG All this configuration should be moved to the NiA project
+        if (NiaSupport.isNiaProject(project)) {
+            NiaSupport.applyNiaConventionPlugins(project);
+        }
+
         // After AGP creates configurations, link deps to the collectors
         linkCommonDependencies(dslModel.getDependencies(), project.getConfigurations());
+        linkDslModelToPluginLazy(project, dslModel);
+
+        // Apply the plugins enabled in the model, then link the rest of the model, once the build script has been evaluated and before AGP creates variants
+        LibraryAndroidComponentsExtension androidComponents = project.getExtensions().getByType(LibraryAndroidComponentsExtension.class);
+        androidComponents.finalizeDsl(android -> applyPlugins(project, dslModel));
+        androidComponents.finalizeDsl(android -> linkDslModelToPlugin(project, dslModel, android));
+    }
+
+    @Override
+    protected void applyPlugins(Project project, AndroidSoftware dslModel) {
+        super.applyPlugins(project, dslModel);
+
+        if (getAndroidLibrary().getProtobuf().getEnabled().get()) {
+            project.getPlugins().apply("com.google.protobuf");
+        }
     }
 
     /**
-     * Performs linking actions that must occur within an afterEvaluate block.
+     * Performs linking actions on the Android DSL, from AGP's {@code finalizeDsl} callback.
      */
-    private void linkDslModelToPlugin(Project project, AndroidLibrary dslModel) {
-        LibraryExtension android = project.getExtensions().getByType(LibraryExtension.class);
+    private void linkDslModelToPlugin(Project project, AndroidLibrary dslModel, LibraryExtension android) {
         super.linkDslModelToPlugin(project, dslModel, android);
 
         configureProtobuf(project, dslModel, android);
@@ -77,8 +92,6 @@ public abstract class StandaloneAndroidLibraryPlugin extends AbstractAndroidSoft
 
     protected void configureProtobuf(Project project, AndroidLibrary dslModel, CommonExtension<?, ?, ?, ?, ?, ?> android) {
         if (dslModel.getProtobuf().getEnabled().get()) {
-            project.getPlugins().apply("com.google.protobuf");
-
             String option = dslModel.getProtobuf().getOption().getOrNull();
             project.getLogger().info("Protobuf is enabled using option=" + option + " in: " + project.getPath());
             if (Objects.equals(option, "lite")) {
@@ -0,0 +1,805 @@
+/*
+ * Copyright 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.experimental.android.nia;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Produces the badging of an APK in the format of {@code aapt2 dump badging}, without the Android build tools.
+ * <p>
+ * The manifest and resource table are decoded in-process, and the lines are produced with the rules of aapt2's
+ * {@code DumpManifest.cpp}: the elements are printed in document order, followed by the implied permissions, the
+ * feature groups with their implied features, the provided components, the supported screens, locales, densities
+ * and native code. Values are resolved against aapt2's default device configuration.
+ * <p>
+ * Not reproduced are the lines only printed for rarely used elements ({@code uses-configuration},
+ * {@code compatible-screens}, {@code supports-input}, static and SDK libraries, {@code required-feature} of
+ * permissions), the {@code payment} component, which aapt2 detects by reading the service's metadata XML, and the
+ * {@code alt-native-code} split of {@code multiArch} applications.
+ */
+final class ApkBadging {
+    private static final String ANDROID_MANIFEST = "AndroidManifest.xml";
+    private static final String RESOURCE_TABLE = "resources.arsc";
+
+    private static final int SDK_DONUT = 4;
+    private static final int SDK_GINGERBREAD = 9;
+    private static final int SDK_JELLY_BEAN = 16;
+    private static final int SDK_LOLLIPOP = 21;
+
+    private static final String ACTION_MAIN = "android.intent.action.MAIN";
+    private static final String ACTION_SEARCH = "android.intent.action.SEARCH";
+    private static final String ACTION_DOCUMENTS_PROVIDER = "android.content.action.DOCUMENTS_PROVIDER";
+    private static final String CATEGORY_LAUNCHER = "android.intent.category.LAUNCHER";
+    private static final String CATEGORY_LEANBACK_LAUNCHER = "android.intent.category.LEANBACK_LAUNCHER";
+    private static final String CATEGORY_HOME = "android.intent.category.HOME";
+
+    private static final Map<String, String> ACTIVITY_COMPONENTS = Map.of(
+            ACTION_MAIN, "main",
+            "android.intent.action.VIDEO_CAMERA", "camera",
+            "android.intent.action.STILL_IMAGE_CAMERA", "camera",
+            "android.intent.action.STILL_IMAGE_CAMERA_SECURE", "camera-secure"
+    );
+    private static final Map<String, String> RECEIVER_COMPONENTS = Map.of(
+            "android.appwidget.action.APPWIDGET_UPDATE", "app-widget",
+            "android.app.action.DEVICE_ADMIN_ENABLED", "device-admin"
+    );
+    private static final Map<String, String> SERVICE_COMPONENTS = Map.of(
+            "android.view.InputMethod", "ime",
+            "android.service.wallpaper.WallpaperService", "wallpaper",
+            "android.accessibilityservice.AccessibilityService", "accessibility",
+            "android.printservice.PrintService", "print-service",
+            "android.nfc.cardemulation.action.HOST_APDU_SERVICE", "host-apdu",
+            "android.nfc.cardemulation.action.OFF_HOST_APDU_SERVICE", "offhost-apdu",
+            "android.service.notification.NotificationListenerService", "notification-listener",
+            "android.service.dreams.DreamService", "dream"
+    );
+    // The permission a receiver or service must be protected with to provide the component of an action
+    private static final Map<String, String> COMPONENT_PERMISSIONS = Map.of(
+            "android.app.action.DEVICE_ADMIN_ENABLED", "android.permission.BIND_DEVICE_ADMIN",
+            "android.accessibilityservice.AccessibilityService", "android.permission.BIND_ACCESSIBILITY_SERVICE",
+            "android.printservice.PrintService", "android.permission.BIND_PRINT_SERVICE",
+            "android.nfc.cardemulation.action.HOST_APDU_SERVICE", "android.permission.BIND_NFC_SERVICE",
+            "android.nfc.cardemulation.action.OFF_HOST_APDU_SERVICE", "android.permission.BIND_NFC_SERVICE",
+            "android.service.notification.NotificationListenerService", "android.permission.BIND_NOTIFICATION_LISTENER_SERVICE",
+            "android.service.dreams.DreamService", "android.permission.BIND_DREAM_SERVICE",
+            "android.view.InputMethod", "android.permission.BIND_INPUT_METHOD",
+            "android.service.wallpaper.WallpaperService", "android.permission.BIND_WALLPAPER"
+    );
+    private static final List<String> PROVIDED_COMPONENTS = List.of(
+            "app-widget", "device-admin", "ime", "wallpaper", "accessibility", "print-service", "payment", "search",
+            "document-provider", "launcher", "notification-listener", "dream", "camera", "camera-secure"
+    );
+    private static final Set<String> TELEPHONY_PERMISSIONS = Set.of(
+            "android.permission.CALL_PHONE", "android.permission.CALL_PRIVILEGED", "android.permission.MODIFY_PHONE_STATE",
+            "android.permission.PROCESS_OUTGOING_CALLS", "android.permission.READ_SMS", "android.permission.RECEIVE_SMS",
+            "android.permission.RECEIVE_MMS", "android.permission.RECEIVE_WAP_PUSH", "android.permission.SEND_SMS",
+            "android.permission.WRITE_APN_SETTINGS", "android.permission.WRITE_SMS"
+    );
+
+    private static final ResourceConfig DEFAULT_CONFIG = ResourceConfig.defaultConfig();
+
+    private final BinaryXml.Element manifest;
+    private final ResourceTable resources;
+    private final StringBuilder badging = new StringBuilder();
+
+    // Collected from the whole manifest before anything is printed
+    private int targetSdk;
+    private final FeatureGroup commonFeatures = new FeatureGroup("");
+    private final Map<BinaryXml.Element, FeatureGroup> featureGroups = new LinkedHashMap<>();
+    private final Set<String> components = new HashSet<>();
+    private boolean otherActivities;
+    private boolean otherReceivers;
+    private boolean otherServices;
+    private BinaryXml.Element supportsScreens;
+
+    private ApkBadging(BinaryXml.Element manifest, ResourceTable resources) {
+        this.manifest = manifest;
+        this.resources = resources;
+    }
+
+    static String dumpBadging(File apk) throws IOException {
+        try (ZipFile zip = new ZipFile(apk)) {
+            ZipEntry manifestEntry = zip.getEntry(ANDROID_MANIFEST);
+            if (manifestEntry == null) {
+                throw new IllegalArgumentException("No " + ANDROID_MANIFEST + " in " + apk);
+            }
+            BinaryXml.Element manifest = BinaryXml.parse(read(zip, manifestEntry));
+            ZipEntry resourcesEntry = zip.getEntry(RESOURCE_TABLE);
+            ResourceTable resources = resourcesEntry != null ? ResourceTable.parse(read(zip, resourcesEntry)) : ResourceTable.EMPTY;
+
+            ApkBadging badging = new ApkBadging(manifest, resources);
+            badging.dump(architectures(zip));
+            return badging.badging.toString();
+        }
+    }
+
+    private void dump(Set<String> architectures) {
+        collect(manifest, null);
+        print(manifest);
+        printImpliedPermissions();
+
+        // Without a touchscreen, declared or implied, the app can run with a fake touch input
+        if (!commonFeatures.hasFeature("android.hardware.touchscreen")) {
+            commonFeatures.addImpliedFeature("android.hardware.faketouch", "default feature for all apps", false);
+        }
+        if (featureGroups.isEmpty()) {
+            commonFeatures.print(badging, true);
+        } else {
+            for (FeatureGroup featureGroup : featureGroups.values()) {
+                featureGroup.merge(commonFeatures);
+                featureGroup.print(badging, false);
+            }
+        }
+
+        for (String component : PROVIDED_COMPONENTS) {
+            if (components.contains(component)) {
+                badging.append("provides-component:'").append(component).append("'\n");
+            }
+        }
+        if (components.contains("main")) {
+            badging.append("main\n");
+        }
+        if (otherActivities) {
+            badging.append("other-activities\n");
+        }
+        if (otherReceivers) {
+            badging.append("other-receivers\n");
+        }
+        if (otherServices) {
+            badging.append("other-services\n");
+        }
+
+        printSupportsScreens();
+
+        badging.append("locales:");
+        resources.locales().forEach(locale -> badging.append(" '").append(locale.isEmpty() ? "--_--" : locale).append('\''));
+        badging.append('\n');
+        badging.append("densities:");
+        resources.densities().forEach(density -> badging.append(" '").append(density).append('\''));
+        badging.append('\n');
+
+        if (!architectures.isEmpty()) {
+            badging.append("native-code:");
+            architectures.forEach(architecture -> badging.append(" '").append(architecture).append('\''));
+            badging.append('\n');
+        }
+    }
+
+    private void collect(BinaryXml.Element element, BinaryXml.Element parent) {
+        switch (element.name) {
+            case "uses-sdk" -> {
+                Integer minSdk = integer(element, "minSdkVersion");
+                String minSdkName = minSdk == null ? string(element, "minSdkVersion") : null;
+                Integer targetSdkVersion = integer(element, "targetSdkVersion");
+                String targetSdkName = targetSdkVersion == null ? string(element, "targetSdkVersion") : null;
+                if ("Donut".equals(minSdkName) || "Donut".equals(targetSdkName)) {
+                    raiseTargetSdk(SDK_DONUT);
+                }
+                if (minSdk != null) {
+                    raiseTargetSdk(minSdk);
+                }
+                if (targetSdkVersion != null) {
+                    raiseTargetSdk(targetSdkVersion);
+                } else if (targetSdkName != null) {
+                    raiseTargetSdk(ResourceConfig.SDK_CUR_DEVELOPMENT);
+                }
+            }
+            case "uses-permission" -> commonFeatures.addImpliedFeaturesForPermission(targetSdk, stringOrEmpty(element, "name"), false);
+            case "uses-permission-sdk-23" -> commonFeatures.addImpliedFeaturesForPermission(targetSdk, stringOrEmpty(element, "name"), true);
+            case "feature-group" -> featureGroups.put(element, new FeatureGroup(stringOrEmpty(element, "label")));
+            case "uses-feature" -> {
+                FeatureGroup featureGroup = parent != null ? featureGroups.get(parent) : null;
+                // All the features of a feature group are required
+                boolean required = featureGroup != null || integer(element, "required", -1) != 0;
+                if (featureGroup == null) {
+                    featureGroup = commonFeatures;
+                }
+                String name = string(element, "name");
+                Integer glEsVersion = integer(element, "glEsVersion");
+                if (name != null) {
+                    featureGroup.addFeature(name, required, integer(element, "version", 0));
+                } else if (glEsVersion != null) {
+                    featureGroup.openGlesVersion = Math.max(featureGroup.openGlesVersion, glEsVersion);
+                }
+            }
+            case "supports-screens" -> supportsScreens = element;
+            case "activity", "activity-alias" -> collectActivity(element);
+            case "receiver" -> otherReceivers |= !collectComponents(element, RECEIVER_COMPONENTS);
+            case "service" -> otherServices |= !collectComponents(element, SERVICE_COMPONENTS);
+            case "provider" -> {
+                boolean storageAccessFramework = integer(element, "exported", 0) != 0
+                        && integer(element, "grantUriPermissions", 0) != 0
+                        && "android.permission.MANAGE_DOCUMENTS".equals(string(element, "permission"));
+                if (storageAccessFramework && actions(element).contains(ACTION_DOCUMENTS_PROVIDER)) {
+                    components.add("document-provider");
+                }
+            }
+            case "action" -> {
+                if (ACTION_SEARCH.equals(string(element, "name"))) {
+                    components.add("search");
+                }
+            }
+            default -> { }
+        }
+        for (BinaryXml.Element child : element.children) {
+            collect(child, element);
+        }
+    }
+
+    private void collectActivity(BinaryXml.Element activity) {
+        Integer orientation = integer(activity, "screenOrientation");
+        if (orientation != null) {
+            if (orientation == 0 || orientation == 6 || orientation == 8) {
+                commonFeatures.addImpliedFeature("android.hardware.screen.landscape", "one or more activities have specified a landscape orientation", false);
+            } else if (orientation == 1 || orientation == 7 || orientation == 9) {
+                commonFeatures.addImpliedFeature("android.hardware.screen.portrait", "one or more activities have specified a portrait orientation", false);
+            }
+        }
+        boolean hasComponent = false;
+        for (String action : actions(activity)) {
+            String component = ACTIVITY_COMPONENTS.get(action);
+            if (component != null) {
+                components.add(component);
+                hasComponent = true;
+            }
+        }
+        if (categories(activity).contains(CATEGORY_HOME)) {
+            components.add("launcher");
+        }
+        otherActivities |= !hasComponent;
+    }
+
+    /**
+     * Adds the components a receiver or service provides, returning whether it provides any.
+     */
+    private boolean collectComponents(BinaryXml.Element element, Map<String, String> actionComponents) {
+        String permission = string(element, "permission");
+        boolean hasComponent = false;
+        for (String action : actions(element)) {
+            String component = actionComponents.get(action);
+            String requiredPermission = COMPONENT_PERMISSIONS.get(action);
+            if (component != null && (requiredPermission == null || requiredPermission.equals(permission))) {
+                components.add(component);
+                hasComponent = true;
+            }
+        }
+        return hasComponent;
+    }
+
+    private void raiseTargetSdk(int sdk) {
+        targetSdk = Math.max(targetSdk, sdk);
+    }
+
+    private void print(BinaryXml.Element element) {
+        switch (element.name) {
+            case "manifest" -> printPackage(element);
+            case "uses-sdk" -> printUsesSdk(element);
+            case "uses-permission" -> {
+                String name = string(element, "name");
+                if (name != null) {
+                    int maxSdkVersion = integer(element, "maxSdkVersion", -1);
+                    printPermission("uses-permission", name, maxSdkVersion);
+                    if (integer(element, "required", 1) == 0) {
+                        printPermission("optional-permission", name, maxSdkVersion);
+                    }
+                }
+            }
+            case "uses-permission-sdk-23" -> {
+                String name = string(element, "name");
+                if (name != null) {
+                    printPermission("uses-permission-sdk-23", name, integer(element, "maxSdkVersion", -1));
+                }
+            }
+            case "permission" -> {
+                String name = string(element, "name");
+                if (name != null) {
+                    badging.append("permission: ").append(name).append('\n');
+                }
+            }
+            case "application" -> printApplication(element);
+            case "activity", "activity-alias" -> printActivity(element);
+            case "property" -> printProperty(element);
+            case "uses-library", "uses-native-library" -> {
+                String required = integer(element, "required", 1) == 0 ? "-not-required" : "";
+                badging.append(element.name).append(required).append(":'").append(stringOrEmpty(element, "name")).append("'\n");
+            }
+            case "original-package" -> badging.append("original-package:'").append(stringOrEmpty(element, "name")).append("'\n");
+            default -> { }
+        }
+        for (BinaryXml.Element child : element.children) {
+            print(child);
+        }
+    }
+
+    private void printPackage(BinaryXml.Element manifest) {
+        int versionCode = integer(manifest, "versionCode", 0);
+        badging.append("package: name='").append(stringOrEmpty(manifest, "package")).append("' ")
+                .append("versionCode='").append(versionCode > 0 ? Integer.toString(versionCode) : "").append("' ")
+                .append("versionName='").append(stringOrEmpty(manifest, "versionName")).append('\'');
+        appendAttribute(" split", string(manifest, "split"));
+        appendAttribute(" platformBuildVersionName", stringOrInteger(manifest, "platformBuildVersionName"));
+        appendAttribute(" platformBuildVersionCode", stringOrInteger(manifest, "platformBuildVersionCode"));
+        Integer compileSdkVersion = integer(manifest, "compileSdkVersion");
+        appendAttribute(" compileSdkVersion", compileSdkVersion != null ? compileSdkVersion.toString() : null);
+        appendAttribute(" compileSdkVersionCodename", string(manifest, "compileSdkVersionCodename"));
+        badging.append('\n');
+
+        Integer installLocation = integer(manifest, "installLocation");
+        if (installLocation != null && installLocation >= 0 && installLocation <= 2) {
+            String location = List.of("auto", "internalOnly", "preferExternal").get(installLocation);
+            badging.append("install-location:'").append(location).append("'\n");
+        }
+    }
+
+    private void printUsesSdk(BinaryXml.Element usesSdk) {
+        printSdkVersion("sdkVersion", usesSdk, "minSdkVersion");
+        Integer maxSdkVersion = integer(usesSdk, "maxSdkVersion");
+        if (maxSdkVersion != null) {
+            badging.append("maxSdkVersion:'").append(maxSdkVersion).append("'\n");
+        }
+        printSdkVersion("targetSdkVersion", usesSdk, "targetSdkVersion");
+    }
+
+    private void printSdkVersion(String label, BinaryXml.Element usesSdk, String attribute) {
+        String version = stringOrInteger(usesSdk, attribute);
+        if (version != null) {
+            badging.append(label).append(":'").append(version).append("'\n");
+        }
+    }
+
+    private void printPermission(String label, String name, int maxSdkVersion) {
+        badging.append(label).append(": name='").append(name).append('\'');
+        if (maxSdkVersion >= 0) {
+            badging.append(" maxSdkVersion='").append(maxSdkVersion).append('\'');
+        }
+        badging.append('\n');
+    }
+
+    private void printApplication(BinaryXml.Element application) {
+        BinaryXml.Value label = application.attributes.get("label");
+        for (String locale : resources.locales()) {
+            String localeLabel = string(label, ResourceConfig.forLocale(locale));
+            if (localeLabel != null) {
+                badging.append(locale.isEmpty() ? "application-label" : "application-label-" + locale)
+                        .append(":'").append(normalizeForOutput(localeLabel)).append("'\n");
+            }
+        }
+        BinaryXml.Value icon = application.attributes.get("icon");
+        for (int density : resources.densities()) {
+            String densityIcon = string(icon, ResourceConfig.forDensity(density));
+            if (densityIcon != null) {
+                badging.append("application-icon-").append(density).append(":'").append(densityIcon).append("'\n");
+            }
+        }
+
+        badging.append("application: label='").append(normalizeForOutput(stringOrEmpty(application, "label")))
+                .append("' icon='").append(stringOrEmpty(application, "icon")).append('\'');
+        appendAttribute(" banner", string(application, "banner"));
+        badging.append('\n');
+
+        int testOnly = integer(application, "testOnly", 0);
+        if (testOnly != 0) {
+            badging.append("testOnly='").append(testOnly).append("'\n");
+        }
+        if (integer(application, "isGame", 0) != 0) {
+            badging.append("application-isGame\n");
+        }
+        if (integer(application, "debuggable", 0) != 0) {
+            badging.append("application-debuggable\n");
+        }
+    }
+
+    private void printActivity(BinaryXml.Element activity) {
+        boolean main = actions(activity).contains(ACTION_MAIN);
+        Set<String> categories = categories(activity);
+
+        String name = stringOrEmpty(activity, "name");
+        // Relative class names are qualified with the package
+        String packageName = stringOrEmpty(manifest, "package");
+        if (name.indexOf('.') < 0) {
+            name = packageName + "." + name;
+        } else if (name.startsWith(".")) {
+            name = packageName + name;
+        }
+        String label = normalizeForOutput(stringOrEmpty(activity, "label"));
+        String icon = stringOrEmpty(activity, "icon");
+
+        if (main && categories.contains(CATEGORY_LAUNCHER)) {
+            badging.append("launchable-activity:").append(" name='").append(name).append("' ")
+                    .append(" label='").append(label).append("' icon='").append(icon).append("'\n");
+        }
+        if (main && categories.contains(CATEGORY_LEANBACK_LAUNCHER)) {
+            badging.append("leanback-launchable-activity:").append(" name='").append(name).append("' ")
+                    .append(" label='").append(label).append("' icon='").append(icon)
+                    .append("' banner='").append(stringOrEmpty(activity, "banner")).append("'\n");
+        }
+    }
+
+    private void printProperty(BinaryXml.Element property) {
+        badging.append("property: name='").append(stringOrEmpty(property, "name")).append("' ");
+        String value = stringOrInteger(property, "value");
+        String resource = stringOrInteger(property, "resource");
+        if (value != null) {
+            badging.append("value='").append(value).append("' ");
+        } else if (resource != null) {
+            badging.append("resource='").append(resource).append("' ");
+        }
+        badging.append('\n');
+    }
+
+    private void printImpliedPermissions() {
+        BinaryXml.Element writeExternalStorage = findPermission("android.permission.WRITE_EXTERNAL_STORAGE");
+        boolean impliedWriteExternalStorage = false;
+        if (targetSdk < SDK_DONUT) {
+            if (writeExternalStorage == null) {
+                printImpliedPermission("android.permission.WRITE_EXTERNAL_STORAGE", "targetSdkVersion < 4", -1);
+                impliedWriteExternalStorage = true;
+            }
+            if (findPermission("android.permission.READ_PHONE_STATE") == null) {
+                printImpliedPermission("android.permission.READ_PHONE_STATE", "targetSdkVersion < 4", -1);
+            }
+        }
+        // Apps that can write the external storage can always read it
+        if (findPermission("android.permission.READ_EXTERNAL_STORAGE") == null && (impliedWriteExternalStorage || writeExternalStorage != null)) {
+            int maxSdkVersion = writeExternalStorage != null ? integer(writeExternalStorage, "maxSdkVersion", -1) : -1;
+            printImpliedPermission("android.permission.READ_EXTERNAL_STORAGE", "requested WRITE_EXTERNAL_STORAGE", maxSdkVersion);
+        }
+        if (targetSdk < SDK_JELLY_BEAN) {
+            if (findPermission("android.permission.READ_CALL_LOG") == null && findPermission("android.permission.READ_CONTACTS") != null) {
+                printImpliedPermission("android.permission.READ_CALL_LOG", "targetSdkVersion < 16 and requested READ_CONTACTS", -1);
+            }
+            if (findPermission("android.permission.WRITE_CALL_LOG") == null && findPermission("android.permission.WRITE_CONTACTS") != null) {
+                printImpliedPermission("android.permission.WRITE_CALL_LOG", "targetSdkVersion < 16 and requested WRITE_CONTACTS", -1);
+            }
+        }
+    }
+
+    private void printImpliedPermission(String name, String reason, int maxSdkVersion) {
+        printPermission("uses-permission", name, maxSdkVersion);
+        badging.append("uses-implied-permission: name='").append(name).append('\'');
+        if (maxSdkVersion >= 0) {
+            badging.append(" maxSdkVersion='").append(maxSdkVersion).append('\'');
+        }
+        badging.append(" reason='").append(reason).append("'\n");
+    }
+
+    private void printSupportsScreens() {
+        // Unset screen sizes default to supported from the SDK version that introduced them
+        int small = supportsScreensValue("smallScreens", 1);
+        int normal = supportsScreensValue("normalScreens", 1);
+        int large = supportsScreensValue("largeScreens", 1);
+        int xlarge = supportsScreensValue("xlargeScreens", 1);
+        int anyDensity = supportsScreensValue("anyDensity", 1);
+        int requiresSmallestWidthDp = supportsScreensValue("requiresSmallestWidthDp", 0);
+        int compatibleWidthLimitDp = supportsScreensValue("compatibleWidthLimitDp", 0);
+        int largestWidthLimitDp = supportsScreensValue("largestWidthLimitDp", 0);
+        if (small > 0) {
+            small = targetSdk >= SDK_DONUT ? -1 : 0;
+        }
+        if (normal > 0) {
+            normal = -1;
+        }
+        if (large > 0) {
+            large = targetSdk >= SDK_DONUT ? -1 : 0;
+        }
+        if (xlarge > 0) {
+            xlarge = targetSdk >= SDK_GINGERBREAD ? -1 : 0;
+        }
+        if (anyDensity > 0) {
+            anyDensity = targetSdk >= SDK_DONUT || requiresSmallestWidthDp > 0 || compatibleWidthLimitDp > 0 ? -1 : 0;
+        }
+
+        badging.append("supports-screens:");
+        if (small != 0) {
+            badging.append(" 'small'");
+        }
+        if (normal != 0) {
+            badging.append(" 'normal'");
+        }
+        if (large != 0) {
+            badging.append(" 'large'");
+        }
+        if (xlarge != 0) {
+            badging.append(" 'xlarge'");
+        }
+        badging.append('\n');
+        badging.append("supports-any-density: '").append(anyDensity != 0 ? "true" : "false").append("'\n");
+        if (requiresSmallestWidthDp > 0) {
+            badging.append("requires-smallest-width:'").append(requiresSmallestWidthDp).append("'\n");
+        }
+        if (compatibleWidthLimitDp > 0) {
+            badging.append("compatible-width-limit:'").append(compatibleWidthLimitDp).append("'\n");
+        }
+        if (largestWidthLimitDp > 0) {
+            badging.append("largest-width-limit:'").append(largestWidthLimitDp).append("'\n");
+        }
+    }
+
+    private int supportsScreensValue(String attribute, int defaultValue) {
+        return supportsScreens != null ? integer(supportsScreens, attribute, defaultValue) : defaultValue;
+    }
+
+    private BinaryXml.Element findPermission(String name) {
+        return findElement(manifest, element -> element.name.equals("uses-permission") && name.equals(string(element, "name")));
+    }
+
+    private static BinaryXml.Element findElement(BinaryXml.Element element, Predicate<BinaryXml.Element> predicate) {
+        if (predicate.test(element)) {
+            return element;
+        }
+        for (BinaryXml.Element child : element.children) {
+            BinaryXml.Element found = findElement(child, predicate);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private Set<String> actions(BinaryXml.Element component) {
+        return intentFilterNames(component, "action");
+    }
+
+    private Set<String> categories(BinaryXml.Element component) {
+        return intentFilterNames(component, "category");
+    }
+
+    private Set<String> intentFilterNames(BinaryXml.Element component, String elementName) {
+        Set<String> names = new TreeSet<>();
+        for (BinaryXml.Element intentFilter : component.children("intent-filter")) {
+            for (BinaryXml.Element element : intentFilter.children(elementName)) {
+                names.add(stringOrEmpty(element, "name"));
+            }
+        }
+        return names;
+    }
+
+    private void appendAttribute(String name, String value) {
+        if (value != null) {
+            badging.append(name).append("='").append(value).append('\'');
+        }
+    }
+
+    private String string(BinaryXml.Element element, String attribute) {
+        return string(element.attributes.get(attribute), DEFAULT_CONFIG);
+    }
+
+    private String stringOrEmpty(BinaryXml.Element element, String attribute) {
+        String value = string(element, attribute);
+        return value != null ? value : "";
+    }
+
+    /**
+     * Returns the string of a value, following references with the value of the configuration best matching {@code config}.
+     */
+    private String string(BinaryXml.Value value, ResourceConfig config) {
+        BinaryXml.Value resolved = resources.resolve(value, config);
+        return resolved != null ? resolved.string : null;
+    }
+
+    private Integer integer(BinaryXml.Element element, String attribute) {
+        BinaryXml.Value resolved = resources.resolve(element.attributes.get(attribute), DEFAULT_CONFIG);
+        return resolved != null && resolved.isInteger() ? resolved.data : null;
+    }
+
+    private int integer(BinaryXml.Element element, String attribute, int defaultValue) {
+        Integer value = integer(element, attribute);
+        return value != null ? value : defaultValue;
+    }
+
+    private String stringOrInteger(BinaryXml.Element element, String attribute) {
+        String string = string(element, attribute);
+        if (string != null) {
+            return string;
+        }
+        Integer integer = integer(element, attribute);
+        return integer != null ? integer.toString() : null;
+    }
+
+    /**
+     * Escapes backslashes, new lines and double quotes, as {@code ResTable::normalizeForOutput} does for labels.
+     */
+    private static String normalizeForOutput(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\"", "\\\"");
+    }
+
+    /**
+     * Returns the directory names following {@code lib/} in the APK's entries, as aapt2 lists the native code.
+     */
+    private static Set<String> architectures(ZipFile zip) {
+        Set<String> architectures = new TreeSet<>();
+        Collections.list(zip.entries()).forEach(entry -> {
+            String path = entry.getName();
+            int lib = path.indexOf("lib/");
+            if (lib >= 0) {
+                path = path.substring(lib + 4);
+                int slash = path.indexOf('/');
+                architectures.add(slash >= 0 ? path.substring(0, slash) : path);
+            }
+        });
+        return architectures;
+    }
+
+    private static byte[] read(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream input = zip.getInputStream(entry)) {
+            return input.readAllBytes();
+        }
+    }
+
+    /**
+     * The features of a {@code feature-group}, or the features declared outside of any group along with the
+     * features implied by the permissions and activities.
+     */
+    private static final class FeatureGroup {
+        private final String label;
+        private int openGlesVersion;
+        private final Map<String, Feature> features = new TreeMap<>();
+        private final Map<String, ImpliedFeature> impliedFeatures = new TreeMap<>();
+
+        FeatureGroup(String label) {
+            this.label = label;
+        }
+
+        void addFeature(String name, boolean required, int version) {
+            features.put(name, new Feature(required, version));
+            if (!required) {
+                return;
+            }
+            // Requiring a specific feature requires the feature it refines
+            switch (name) {
+                case "android.hardware.camera.autofocus", "android.hardware.camera.flash" -> addFeature("android.hardware.camera", true, 0);
+                case "android.hardware.location.gps", "android.hardware.location.network" -> addFeature("android.hardware.location", true, 0);
+                case "android.hardware.faketouch.multitouch" -> addFeature("android.hardware.faketouch", true, 0);
+                case "android.hardware.faketouch.multitouch.distinct", "android.hardware.faketouch.multitouch.jazzhands" -> {
+                    addFeature("android.hardware.faketouch.multitouch", true, 0);
+                    addFeature("android.hardware.faketouch", true, 0);
+                }
+                case "android.hardware.touchscreen.multitouch" -> addFeature("android.hardware.touchscreen", true, 0);
+                case "android.hardware.touchscreen.multitouch.distinct", "android.hardware.touchscreen.multitouch.jazzhands" -> {
+                    addFeature("android.hardware.touchscreen.multitouch", true, 0);
+                    addFeature("android.hardware.touchscreen", true, 0);
+                }
+                case "android.hardware.opengles.aep" -> openGlesVersion = Math.max(openGlesVersion, 0x00030001);
+                default -> { }
+            }
+        }
+
+        void addImpliedFeature(String name, String reason, boolean sdk23) {
+            ImpliedFeature impliedFeature = impliedFeatures.computeIfAbsent(name, n -> new ImpliedFeature(sdk23));
+            // A feature implied for all SDK versions takes precedence over one only implied from SDK 23
+            impliedFeature.sdk23 &= sdk23;
+            impliedFeature.reasons.add(reason);
+        }
+
+        void addImpliedFeaturesForPermission(int targetSdk, String permission, boolean sdk23) {
+            String requested = "requested " + permission + " permission";
+            switch (permission) {
+                case "android.permission.CAMERA" -> addImpliedFeature("android.hardware.camera", requested, sdk23);
+                case "android.permission.ACCESS_FINE_LOCATION" -> {
+                    if (targetSdk < SDK_LOLLIPOP) {
+                        addImpliedFeature("android.hardware.location.gps", requested, sdk23);
+                        addImpliedFeature("android.hardware.location.gps", "targetSdkVersion < " + SDK_LOLLIPOP, sdk23);
+                    }
+                    addImpliedFeature("android.hardware.location", requested, sdk23);
+                }
+                case "android.permission.ACCESS_COARSE_LOCATION" -> {
+                    if (targetSdk < SDK_LOLLIPOP) {
+                        addImpliedFeature("android.hardware.location.network", requested, sdk23);
+                        addImpliedFeature("android.hardware.location.network", "targetSdkVersion < " + SDK_LOLLIPOP, sdk23);
+                    }
+                    addImpliedFeature("android.hardware.location", requested, sdk23);
+                }
+                case "android.permission.ACCESS_MOCK_LOCATION", "android.permission.ACCESS_LOCATION_EXTRA_COMMANDS",
+                     "android.permission.INSTALL_LOCATION_PROVIDER" -> addImpliedFeature("android.hardware.location", requested, sdk23);
+                case "android.permission.BLUETOOTH", "android.permission.BLUETOOTH_ADMIN" -> {
+                    if (targetSdk > SDK_DONUT) {
+                        addImpliedFeature("android.hardware.bluetooth", requested, sdk23);
+                        addImpliedFeature("android.hardware.bluetooth", "targetSdkVersion > " + SDK_DONUT, sdk23);
+                    }
+                }
+                case "android.permission.RECORD_AUDIO" -> addImpliedFeature("android.hardware.microphone", requested, sdk23);
+                case "android.permission.ACCESS_WIFI_STATE", "android.permission.CHANGE_WIFI_STATE",
+                     "android.permission.CHANGE_WIFI_MULTICAST_STATE" -> addImpliedFeature("android.hardware.wifi", requested, sdk23);
+                default -> {
+                    if (TELEPHONY_PERMISSIONS.contains(permission)) {
+                        addImpliedFeature("android.hardware.telephony", "requested a telephony permission", sdk23);
+                    }
+                }
+            }
+        }
+
+        boolean hasFeature(String name) {
+            return features.containsKey(name) || impliedFeatures.containsKey(name);
+        }
+
+        /**
+         * Adds the features declared outside of any group to this group.
+         */
+        void merge(FeatureGroup common) {
+            openGlesVersion = Math.max(openGlesVersion, common.openGlesVersion);
+            common.features.forEach(features::putIfAbsent);
+        }
+
+        void print(StringBuilder badging, boolean withImpliedFeatures) {
+            badging.append("feature-group: label='").append(label).append("'\n");
+            if (openGlesVersion > 0) {
+                badging.append("  uses-gl-es: '0x").append(Integer.toHexString(openGlesVersion)).append("'\n");
+            }
+            features.forEach((name, feature) -> {
+                badging.append("  uses-feature").append(feature.required ? "" : "-not-required").append(": name='").append(name).append('\'');
+                if (feature.version > 0) {
+                    badging.append(" version='").append(feature.version).append('\'');
+                }
+                badging.append('\n');
+            });
+            if (!withImpliedFeatures) {
+                return;
+            }
+            impliedFeatures.forEach((name, impliedFeature) -> {
+                if (features.containsKey(name)) {
+                    return;
+                }
+                String suffix = impliedFeature.sdk23 ? "-sdk-23" : "";
+                badging.append("  uses-feature").append(suffix).append(": name='").append(name).append("'\n");
+                badging.append("  uses-implied-feature").append(suffix).append(": name='").append(name).append("' reason='");
+                // The reasons are joined as a sentence: "a", "a, and b", "a, b, and c"
+                List<String> reasons = List.copyOf(impliedFeature.reasons);
+                for (int i = 0; i < reasons.size(); i++) {
+                    badging.append(reasons.get(i));
+                    if (i + 2 < reasons.size()) {
+                        badging.append(", ");
+                    } else if (i + 1 < reasons.size()) {
+                        badging.append(", and ");
+                    }
+                }
+                badging.append("'\n");
+            });
+        }
+    }
+
+    private static final class Feature {
+        final boolean required;
+        final int version;
+
+        Feature(boolean required, int version) {
+            this.required = required;
+            this.version = version;
+        }
+    }
+
+    private static final class ImpliedFeature {
+        boolean sdk23;
+        final Set<String> reasons = new TreeSet<>();
+
+        ImpliedFeature(boolean sdk23) {
+            this.sdk23 = sdk23;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.experimental.android.nia;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes the chunked binary formats aapt2 writes into an APK: compiled XML files such as
+ * {@code AndroidManifest.xml}, and the string pools shared with {@code resources.arsc}.
+ * <p>
+ * See {@code frameworks/base/libs/androidfw/include/androidfw/ResourceTypes.h} for the layouts.
+ */
+final class BinaryXml {
+    static final int RES_STRING_POOL_TYPE = 0x0001;
+    static final int RES_TABLE_TYPE = 0x0002;
+    static final int RES_XML_TYPE = 0x0003;
+    static final int RES_XML_START_ELEMENT_TYPE = 0x0102;
+    static final int RES_XML_END_ELEMENT_TYPE = 0x0103;
+
+    static final int TYPE_REFERENCE = 0x01;
+    static final int TYPE_STRING = 0x03;
+    static final int TYPE_FIRST_INT = 0x10;
+    static final int TYPE_INT_HEX = 0x11;
+    static final int TYPE_INT_BOOLEAN = 0x12;
+    static final int TYPE_LAST_INT = 0x1f;
+
+    private static final int UTF8_FLAG = 1 << 8;
+
+    private BinaryXml() { /* Not instantiable */ }
+
+    /**
+     * A typed attribute or resource value.
+     */
+    static final class Value {
+        final int type;
+        final int data;
+        final String string;
+
+        Value(int type, int data, String string) {
+            this.type = type;
+            this.data = data;
+            this.string = string;
+        }
+
+        boolean isReference() {
+            return type == TYPE_REFERENCE && data != 0;
+        }
+
+        /**
+         * Returns whether the value is an integer, including booleans and colors. A {@code true} boolean is {@code -1}.
+         */
+        boolean isInteger() {
+            return type >= TYPE_FIRST_INT && type <= TYPE_LAST_INT;
+        }
+
+        @Override
+        public String toString() {
+            if (string != null) {
+                return string;
+            }
+            return switch (type) {
+                case TYPE_INT_BOOLEAN -> data != 0 ? "true" : "false";
+                case TYPE_INT_HEX -> "0x" + Integer.toHexString(data);
+                default -> Integer.toString(data);
+            };
+        }
+    }
+
+    /**
+     * An element of a compiled XML file, with its attributes keyed by name.
+     */
+    static final class Element {
+        final String name;
+        final Map<String, Value> attributes = new LinkedHashMap<>();
+        final List<Element> children = new ArrayList<>();
+
+        Element(String name) {
+            this.name = name;
+        }
+
+        List<Element> children(String childName) {
+            return children.stream().filter(child -> child.name.equals(childName)).toList();
+        }
+    }
+
+    static Element parse(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (u16(buffer, 0) != RES_XML_TYPE) {
+            throw new IllegalArgumentException("Not a compiled XML file");
+        }
+
+        String[] strings = new String[0];
+        Deque<Element> elements = new ArrayDeque<>();
+        Element root = null;
+        int offset = u16(buffer, 2);
+        while (offset < bytes.length) {
+            int chunkType = u16(buffer, offset);
+            int headerSize = u16(buffer, offset + 2);
+            int chunkSize = buffer.getInt(offset + 4);
+            if (chunkType == RES_STRING_POOL_TYPE) {
+                strings = readStringPool(buffer, offset);
+            } else if (chunkType == RES_XML_START_ELEMENT_TYPE) {
+                int node = offset + headerSize;
+                Element element = new Element(strings[buffer.getInt(node + 4)]);
+                int attributeStart = u16(buffer, node + 8);
+                int attributeSize = u16(buffer, node + 10);
+                int attributeCount = u16(buffer, node + 12);
+                for (int i = 0; i < attributeCount; i++) {
+                    int attribute = node + attributeStart + i * attributeSize;
+                    String name = strings[buffer.getInt(attribute + 4)];
+                    int rawValue = buffer.getInt(attribute + 8);
+                    int type = buffer.get(attribute + 15) & 0xff;
+                    int data = buffer.getInt(attribute + 16);
+                    String string = type == TYPE_STRING ? strings[data] : rawValue >= 0 ? strings[rawValue] : null;
+                    element.attributes.put(name, new Value(type, data, string));
+                }
+                if (root == null) {
+                    root = element;
+                } else {
+                    elements.element().children.add(element);
+                }
+                elements.push(element);
+            } else if (chunkType == RES_XML_END_ELEMENT_TYPE) {
+                elements.pop();
+            }
+            offset += chunkSize;
+        }
+        if (root == null) {
+            throw new IllegalArgumentException("Compiled XML file has no root element");
+        }
+        return root;
+    }
+
+    static String[] readStringPool(ByteBuffer buffer, int chunk) {
+        int headerSize = u16(buffer, chunk + 2);
+        int stringCount = buffer.getInt(chunk + 8);
+        boolean utf8 = (buffer.getInt(chunk + 16) & UTF8_FLAG) != 0;
+        int stringsStart = chunk + buffer.getInt(chunk + 20);
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int position = stringsStart + buffer.getInt(chunk + headerSize + i * 4);
+            if (utf8) {
+                // The UTF-16 length comes first, followed by the UTF-8 length in bytes
+                position += (buffer.get(position) & 0x80) != 0 ? 2 : 1;
+                int length = buffer.get(position) & 0xff;
+                if ((length & 0x80) != 0) {
+                    length = ((length & 0x7f) << 8) | (buffer.get(position + 1) & 0xff);
+                    position += 2;
+                } else {
+                    position += 1;
+                }
+                strings[i] = new String(buffer.array(), position, length, StandardCharsets.UTF_8);
+            } else {
+                int length = u16(buffer, position);
+                if ((length & 0x8000) != 0) {
+                    length = ((length & 0x7fff) << 16) | u16(buffer, position + 2);
+                    position += 4;
+                } else {
+                    position += 2;
+                }
+                strings[i] = new String(buffer.array(), position, length * 2, StandardCharsets.UTF_16LE);
+            }
+        }
+        return strings;
+    }
+
+    static int u16(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset) & 0xffff;
+    }
+}
@@ -17,6 +17,8 @@
 package org.gradle.api.experimental.android.nia;
 
 import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.experimental.android.diff.LineDiff;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.provider.Property;
@@ -29,10 +31,12 @@ import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.language.base.plugins.LifecycleBasePlugin;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import static com.google.common.truth.Truth.assertWithMessage;
+import java.nio.file.Path;
 
 @CacheableTask
 public abstract class CheckBadgingTask extends DefaultTask {
@@ -61,15 +65,24 @@ public abstract class CheckBadgingTask extends DefaultTask {
 
     @TaskAction
     public void taskAction() {
-        try {
-            String goldenBadgingContent = new String(Files.readAllBytes(Paths.get(getGoldenBadging().get().getAsFile().getAbsolutePath())));
-            String generatedBadgingContent = new String(Files.readAllBytes(Paths.get(getGeneratedBadging().get().getAsFile().getAbsolutePath())));
-            assertWithMessage(
-                    "Generated badging is different from golden badging! " +
-                            "If this change is intended, run ./gradlew " + getUpdateBadgingTaskName().get()
-            ).that(generatedBadgingContent).isEqualTo(goldenBadgingContent);
+        Path goldenBadging = getGoldenBadging().get().getAsFile().toPath();
+        Path generatedBadging = getGeneratedBadging().get().getAsFile().toPath();
+
+        Path diffFile = getOutput().get().file("badging.diff").getAsFile().toPath();
+        int changes;
+        try (BufferedReader golden = Files.newBufferedReader(goldenBadging, StandardCharsets.UTF_8);
+             BufferedReader generated = Files.newBufferedReader(generatedBadging, StandardCharsets.UTF_8);
+             BufferedWriter diff = Files.newBufferedWriter(diffFile, StandardCharsets.UTF_8)) {
+            changes = LineDiff.diff(golden, generated, diff);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to read badging files", e);
+            throw new RuntimeException("Failed to diff badging files " + goldenBadging + " and " + generatedBadging, e);
+        }
+
+        if (changes > 0) {
+            throw new GradleException(
+                    "Generated badging is different from golden badging (" + changes + " changed lines). See the diff at " + diffFile.toUri() + "\n" +
+                            "If this change is intended, run ./gradlew " + getUpdateBadgingTaskName().get()
+            );
         }
     }
 }
@@ -24,12 +24,21 @@ import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
-import org.gradle.process.ExecOperations;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.gradle.workers.WorkerExecutor;
 
 import javax.inject.Inject;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
+/**
+ * Writes the badging of an APK, as {@code aapt2 dump badging} would, by decoding the APK in-process.
+ * <p>
+ * The work is submitted to the worker API so the badging of several variants can be generated in parallel.
+ */
 @CacheableTask
 public abstract class GenerateBadgingTask extends DefaultTask {
     @OutputFile
@@ -39,28 +48,32 @@ public abstract class GenerateBadgingTask extends DefaultTask {
     @InputFile
     public abstract RegularFileProperty getApk();
 
-    @PathSensitive(PathSensitivity.NONE)
-    @InputFile
-    public abstract RegularFileProperty getAapt2Executable();
-
     @Inject
-    public abstract ExecOperations getExecOperations();
+    public abstract WorkerExecutor getWorkerExecutor();
 
     @TaskAction
     public void taskAction() {
-        getExecOperations().exec(execSpec -> {
-            execSpec.commandLine(
-                    getAapt2Executable().get().getAsFile().getAbsolutePath(),
-                    "dump",
-                    "badging",
-                    getApk().get().getAsFile().getAbsolutePath()
-            );
+        getWorkerExecutor().noIsolation().submit(GenerateBadging.class, parameters -> {
+            parameters.getApk().set(getApk());
+            parameters.getBadging().set(getBadging());
+        });
+    }
+
+    public interface GenerateBadgingParameters extends WorkParameters {
+        RegularFileProperty getApk();
+        RegularFileProperty getBadging();
+    }
 
-            try (OutputStream os = new FileOutputStream(getBadging().get().getAsFile())) {
-                execSpec.setStandardOutput(os);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to write badging output", e);
+    public abstract static class GenerateBadging implements WorkAction<GenerateBadgingParameters> {
+        @Override
+        public void execute() {
+            File apk = getParameters().getApk().get().getAsFile();
+            try {
+                String badging = ApkBadging.dumpBadging(apk);
+                Files.write(getParameters().getBadging().get().getAsFile().toPath(), badging.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to generate badging for " + apk, e);
             }
-        });
+        }
     }
 }
@@ -1,6 +1,6 @@
 package org.gradle.api.experimental.android.nia;
 
-import com.android.SdkConstants;
+import com.android.build.api.artifact.ScopedArtifact;
 import com.android.build.api.artifact.SingleArtifact;
 import com.android.build.api.dsl.ApplicationExtension;
 import com.android.build.api.dsl.ApplicationProductFlavor;
@@ -16,7 +16,8 @@ import com.android.build.api.variant.ApplicationAndroidComponentsExtension;
 import com.android.build.api.variant.BuiltArtifactsLoader;
 import com.android.build.api.variant.HasAndroidTest;
 import com.android.build.api.variant.LibraryAndroidComponentsExtension;
-import com.android.build.gradle.BaseExtension;
+import com.android.build.api.variant.ScopedArtifacts;
+import com.android.build.api.variant.Variant;
 import com.dropbox.gradle.plugins.dependencyguard.DependencyGuardPluginExtension;
 import com.google.firebase.crashlytics.buildtools.gradle.CrashlyticsExtension;
 import org.apache.commons.lang3.StringUtils;
@@ -24,10 +25,16 @@ import org.apache.commons.lang3.text.WordUtils;
 import org.gradle.api.*;
 import org.gradle.api.experimental.android.AndroidSoftware;
 import org.gradle.api.experimental.android.application.AndroidApplication;
+import org.gradle.api.experimental.android.extensions.testing.CoverageSupport;
 import org.gradle.api.experimental.android.library.AndroidLibrary;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.RegularFile;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Copy;
+import org.gradle.api.tasks.Sync;
+import org.gradle.api.tasks.TaskProvider;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.testing.jacoco.plugins.JacocoPluginExtension;
 import org.gradle.testing.jacoco.plugins.JacocoTaskExtension;
@@ -64,6 +71,30 @@ public final class NiaSupport {
         return Objects.equals(project.getRootProject().getName().replace("-", ""), NiaSupport.NIA_PROJECT_NAME);
     }
 
+    /**
+     * Applies the plugins of every NiA project, when the software type plugin is applied.
+     * JaCoCo is applied whether coverage is enabled in the model or not, and {@link #configureJacoco} only enables it for the tests
+     * when it is, so that no plugin depends on the model read by AGP's {@code finalizeDsl} callback.
+     */
+    public static void applyNiaConventionPlugins(Project project) {
+        project.getPlugins().apply("jacoco");
+    }
+
+    /**
+     * Applies the plugins a NiA application enables in its model, before {@link #configureNiaApplication} links the model.
+     */
+    public static void applyNiaApplicationPlugins(Project project, AndroidApplication dslModel) {
+        if (dslModel.getDependencyGuard().getEnabled().get()) {
+            // Slight change of behavior here - NiA just applies this plugin to all applications, which seems unnecessary
+            project.getPlugins().apply("com.dropbox.dependency-guard");
+        }
+        if (dslModel.getFirebase().getEnabled().get()) {
+            project.getPlugins().apply("com.google.gms.google-services");
+            project.getPlugins().apply("com.google.firebase.firebase-perf");
+            project.getPlugins().apply("com.google.firebase.crashlytics");
+        }
+    }
+
     public static void configureNiaLibrary(Project project, AndroidLibrary dslModel) {
         LibraryExtension androidLib = project.getExtensions().getByType(LibraryExtension.class);
         LibraryAndroidComponentsExtension androidLibComponents = project.getExtensions().getByType(LibraryAndroidComponentsExtension.class);
@@ -120,25 +151,21 @@ public final class NiaSupport {
     @SuppressWarnings("UnstableApiUsage")
     private static void configureFirebase(Project project, AndroidApplication dslModel, ApplicationExtension androidApp) {
         if (dslModel.getFirebase().getEnabled().get()) {
-            project.getPlugins().apply("com.google.gms.google-services");
-            project.getPlugins().apply("com.google.firebase.firebase-perf");
-            project.getPlugins().apply("com.google.firebase.crashlytics");
-
             dslModel.getDependencies().getImplementation().add(project.getDependencies().platform("com.google.firebase:firebase-bom:" + dslModel.getFirebase().getVersion().get()));
             dslModel.getDependencies().getImplementation().add("com.google.firebase:firebase-analytics-ktx");
             dslModel.getDependencies().getImplementation().add("com.google.firebase:firebase-perf-ktx");
             dslModel.getDependencies().getImplementation().add("com.google.firebase:firebase-crashlytics-ktx");
+        }
 
+        project.getPlugins().withId("com.google.firebase.crashlytics", plugin -> {
             androidApp.getBuildTypes().configureEach(buildType -> {
                 CrashlyticsExtension crashlyticsExtension = buildType.getExtensions().getByType(CrashlyticsExtension.class);
                 crashlyticsExtension.setMappingFileUploadEnabled(dslModel.getFirebase().getMappingFileUploadEnabled().get());
             });
-        }
+        });
     }
 
     private static void configureBadgingTasks(Project project, ApplicationAndroidComponentsExtension androidAppComponents) {
-        BaseExtension baseExtension = project.getExtensions().getByType(BaseExtension.class);
-
         androidAppComponents.onVariants(androidAppComponents.selector().all(), variant -> {
             // Registers a new task to verify the app bundle.
             String capitalizedVariantName = WordUtils.capitalize(variant.getName());
@@ -147,23 +174,19 @@ public final class NiaSupport {
                 @SuppressWarnings("UnstableApiUsage") SingleArtifact.APK_FROM_BUNDLE apkFromBundle = SingleArtifact.APK_FROM_BUNDLE.INSTANCE;
                 task.getApk().set(variant.getArtifacts().get(apkFromBundle));
 
-                task.getAapt2Executable().set(
-                        new File(baseExtension.getSdkDirectory(),
-                                SdkConstants.FD_BUILD_TOOLS + "/" + baseExtension.getBuildToolsVersion() + "/" + SdkConstants.FN_AAPT2));
-
                 task.getBadging().set(project.getLayout().getBuildDirectory().file("outputs/apk_from_bundle/" + variant.getName() + "/" + variant.getName() + "-badging.txt"));
             });
 
             String updateBadgingTaskName = "update" + capitalizedVariantName + "Badging";
             project.getTasks().register(updateBadgingTaskName, Copy.class, task -> {
-                task.from(generateBadging.get().getBadging());
+                task.from(generateBadging.flatMap(GenerateBadgingTask::getBadging));
                 task.into(project.getLayout().getProjectDirectory());
             });
 
             String checkBadgingTaskName = "check" + capitalizedVariantName + "Badging";
             project.getTasks().register(checkBadgingTaskName, CheckBadgingTask.class, task -> {
                 task.getGoldenBadging().set(project.getLayout().getProjectDirectory().file(variant.getName() + "-badging.txt"));
-                task.getGoldenBadging().set(generateBadging.get().getBadging());
+                task.getGeneratedBadging().set(generateBadging.flatMap(GenerateBadgingTask::getBadging));
                 task.getUpdateBadgingTaskName().set(updateBadgingTaskName);
                 task.getOutput().set(project.getLayout().getBuildDirectory().dir("intermediates/" + checkBadgingTaskName));
             });
@@ -172,11 +195,29 @@ public final class NiaSupport {
 
     @SuppressWarnings("deprecation")
     private static void disableUnnecessaryAndroidTests(Project project, LibraryAndroidComponentsExtension androidLibComponents) {
+        boolean hasAndroidTestSources = containsFile(project.getLayout().getProjectDirectory().dir("src/androidTest").getAsFile());
         androidLibComponents.beforeVariants(androidLibComponents.selector().all(), it -> {
-            it.setEnableAndroidTest(it.getEnableAndroidTest() && project.getLayout().getProjectDirectory().file("src/androidTest").getAsFile().exists());
+            it.setEnableAndroidTest(it.getEnableAndroidTest() && hasAndroidTestSources);
         });
     }
 
+    /**
+     * Returns whether a directory contains a file, stopping at the first one. Looked up with {@link File} rather than NIO,
+     * so the configuration cache tracks the directories listed.
+     */
+    private static boolean containsFile(File dir) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return false;
+        }
+        for (File child : children) {
+            if (child.isFile() || (child.isDirectory() && containsFile(child))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("UnstableApiUsage")
     private static void configureFeature(Project project, AndroidSoftware dslModel, CommonExtension<?, ?, ?, ?, ?, ?> android) {
         if (dslModel.getFeature().getEnabled().get()) {
@@ -199,6 +240,8 @@ public final class NiaSupport {
     /**
      * All NiA Android libraries get flavors, but only NiA Applications that specifically ask
      * for them will also get flavors.
+     * <p>
+     * The resulting variants, such as {@code demoDebug}, can be filtered with the {@code variants} block of the model.
      *
      * @param android the Android extension to configure
      */
@@ -312,6 +355,7 @@ public final class NiaSupport {
 
     @SuppressWarnings("UnstableApiUsage")
     private static void configurePrintApksTask(Project project, AndroidComponentsExtension<?, ?, ?> androidComponents) {
+        SourcePresenceService.register(project);
         androidComponents.onVariants(androidComponents.selector().all(), variant -> {
             if (variant instanceof HasAndroidTest hasAndroidTestVariant) {
                 BuiltArtifactsLoader loader = variant.getArtifacts().getBuiltArtifactsLoader();
@@ -358,69 +402,120 @@ public final class NiaSupport {
         );
     }
 
-    @SuppressWarnings("deprecation")
+    /**
+     * Instruments the unit tests and registers a JaCoCo report for each variant, when coverage is enabled in the model.
+     */
+    @SuppressWarnings({"deprecation", "UnstableApiUsage"})
     private static void configureJacoco(Project project, AndroidSoftware dslModel, CommonExtension<?, ?, ?, ?, ?, ?> android) {
-        if (dslModel.getTesting().getJacoco().getEnabled().get()) {
-            project.getLogger().info("JaCoCo is enabled in: " + project.getPath());
+        Property<Boolean> enabled = dslModel.getTesting().getJacoco().getEnabled();
+        project.getTasks().withType(Test.class).configureEach(test -> {
+            JacocoTaskExtension jacocoTaskExtension = test.getExtensions().getByType(JacocoTaskExtension.class);
+            jacocoTaskExtension.setEnabled(enabled.get());
+
+            // Required for JaCoCo + Robolectric
+            // https://github.com/robolectric/robolectric/issues/2230
+            // Consider removing if not we don't add Robolectric
+            jacocoTaskExtension.setIncludeNoLocationClasses(true);
+
+            // Required for JDK 11 with the above
+            // https://github.com/gradle/gradle/issues/5184#issuecomment-391982009
+            jacocoTaskExtension.setExcludes(Collections.singletonList("jdk.internal.*"));
+        });
+        if (!enabled.get()) {
+            return;
+        }
+        project.getLogger().info("JaCoCo is enabled in: " + project.getPath());
 
-            project.getPlugins().apply("jacoco");
+        android.getBuildTypes().configureEach(buildType -> {
+            buildType.setEnableAndroidTestCoverage(true);
+            buildType.setEnableUnitTestCoverage(true);
+        });
 
-            android.getBuildTypes().configureEach(buildType -> {
-                buildType.setEnableAndroidTestCoverage(true);
-                buildType.setEnableUnitTestCoverage(true);
-            });
+        // The extension only takes a plain value, read once the build script has set it
+        project.getExtensions().getByType(JacocoPluginExtension.class).setToolVersion(dslModel.getTesting().getJacoco().getVersion().get());
 
-            JacocoPluginExtension jacocoPluginExtension = project.getExtensions().getByType(JacocoPluginExtension.class);
-            jacocoPluginExtension.setToolVersion(dslModel.getTesting().getJacoco().getVersion().get());
+        AndroidComponentsExtension<?, ?, ?> androidComponentsExtension = project.getExtensions().getByType(AndroidComponentsExtension.class);
+        androidComponentsExtension.onVariants(androidComponentsExtension.selector().all(), variant -> {
+            final String testTaskName = "test" + StringUtils.capitalize(variant.getName()) + "UnitTest";
+            ListProperty<RegularFile> allJars = project.getObjects().listProperty(RegularFile.class);
+            ListProperty<Directory> allDirectories = project.getObjects().listProperty(Directory.class);
 
-            AndroidComponentsExtension<?, ?, ?> androidComponentsExtension = project.getExtensions().getByType(AndroidComponentsExtension.class);
-            androidComponentsExtension.onVariants(androidComponentsExtension.selector().all(), variant -> {
-                final String testTaskName = "test" + StringUtils.capitalize(variant.getName()) + "UnitTest";
-                final File buildDir = project.getLayout().getBuildDirectory().get().getAsFile();
-                project.getTasks().register("jacoco" + StringUtils.capitalize(testTaskName) + "Report", JacocoReport.class, task -> {
-                    task.dependsOn(testTaskName);
+            TaskProvider<JacocoReport> reportTask = project.getTasks().register("jacoco" + StringUtils.capitalize(testTaskName) + "Report", JacocoReport.class, task -> {
+                task.dependsOn(testTaskName);
 
-                    task.reports(report -> {
-                        report.getXml().getRequired().set(true);
-                        report.getXml().getRequired().set(true);
-                    });
-
-                    task.getClassDirectories().setFrom(
-                        project.fileTree(project.getBuildDir() + "/tmp/kotlin-classes/" + variant.getName(), tree -> tree.exclude(coverageExclusions()))
-                    );
+                task.reports(report -> {
+                    report.getXml().getRequired().set(true);
+                    report.getHtml().getRequired().set(true);
+                });
 
-                    task.getSourceDirectories().setFrom(
-                        project.files(project.getProjectDir() + "/src/main/java", project.getProjectDir() + "/src/main/kotlin"
-                        ));
+                // Compiled classes of the project, as seen by the variant, whichever language produced them
+                task.getClassDirectories().setFrom(
+                    allJars.map(jars -> jars.stream()
+                            .map(jar -> project.zipTree(jar).matching(classes -> classes.exclude(coverageExclusions())))
+                            .toList()),
+                    allDirectories.map(dirs -> dirs.stream()
+                            .map(dir -> project.getObjects().fileTree().setDir(dir).exclude(coverageExclusions()))
+                            .toList())
+                );
+
+                if (variant.getSources().getJava() != null) {
+                    task.getSourceDirectories().from(variant.getSources().getJava().getAll());
+                }
+                if (variant.getSources().getKotlin() != null) {
+                    task.getSourceDirectories().from(variant.getSources().getKotlin().getAll());
+                }
 
-                    task.getExecutionData().setFrom(
-                        project.files(buildDir + "/jacoco/" + testTaskName + ".exec")
-                    );
-                });
+                task.getExecutionData().setFrom(project.getLayout().getBuildDirectory().file("jacoco/" + testTaskName + ".exec"));
             });
 
-            project.getTasks().withType(Test.class, test -> {
-                JacocoTaskExtension jacocoTaskExtension = test.getExtensions().getByType(JacocoTaskExtension.class);
+            variant.getArtifacts()
+                    .forScope(ScopedArtifacts.Scope.PROJECT)
+                    .use(reportTask)
+                    .toGet(ScopedArtifact.CLASSES.INSTANCE, task -> allJars, task -> allDirectories);
 
-                // Required for JaCoCo + Robolectric
-                // https://github.com/robolectric/robolectric/issues/2230
-                // Consider removing if not we don't add Robolectric
-                jacocoTaskExtension.setIncludeNoLocationClasses(true);
+            exportCoverageData(project, variant, testTaskName);
+        });
+    }
 
-                // Required for JDK 11 with the above
-                // https://github.com/gradle/gradle/issues/5184#issuecomment-391982009
-                jacocoTaskExtension.setExcludes(Collections.singletonList("jdk.internal.*"));
+    /**
+     * Exports the classes, sources and unit test execution data of a variant, for the aggregated coverage report of the build.
+     */
+    private static void exportCoverageData(Project project, Variant variant, String testTaskName) {
+        ListProperty<RegularFile> allJars = project.getObjects().listProperty(RegularFile.class);
+        ListProperty<Directory> allDirectories = project.getObjects().listProperty(Directory.class);
+
+        TaskProvider<Sync> exportTask = project.getTasks().register("export" + StringUtils.capitalize(variant.getName()) + "CoverageData", Sync.class, task -> {
+            task.dependsOn(testTaskName);
+            task.into(project.getLayout().getBuildDirectory().dir("intermediates/coverage-data/" + variant.getName()));
+
+            // Jars are extracted, so that the exclusions apply to their classes too
+            task.into("classes", classes -> {
+                classes.from(allJars.map(jars -> jars.stream().map(project::zipTree).toList()), spec -> spec.exclude(coverageExclusions()));
+                classes.from(allDirectories, spec -> spec.exclude(coverageExclusions()));
             });
-        }
+            task.into("sources", sources -> {
+                if (variant.getSources().getJava() != null) {
+                    sources.from(variant.getSources().getJava().getAll());
+                }
+                if (variant.getSources().getKotlin() != null) {
+                    sources.from(variant.getSources().getKotlin().getAll());
+                }
+            });
+            task.into("exec", exec -> exec.from(project.getLayout().getBuildDirectory().file("jacoco/" + testTaskName + ".exec")));
+        });
+
+        variant.getArtifacts()
+                .forScope(ScopedArtifacts.Scope.PROJECT)
+                .use(exportTask)
+                .toGet(ScopedArtifact.CLASSES.INSTANCE, task -> allJars, task -> allDirectories);
+
+        CoverageSupport.coverageDataElements(project).getOutgoing().artifact(exportTask.map(Sync::getDestinationDir), artifact -> artifact.builtBy(exportTask));
     }
 
     private static void configureDependencyGuard(Project project, AndroidApplication dslModel) {
-        if (dslModel.getDependencyGuard().getEnabled().get()) {
-            // Slight change of behavior here - NiA just applies this plugin to all applications, which seems unnecessary
-            project.getPlugins().apply("com.dropbox.dependency-guard");
-
+        project.getPlugins().withId("com.dropbox.dependency-guard", plugin -> {
             DependencyGuardPluginExtension dependencyGuard = project.getExtensions().getByType(DependencyGuardPluginExtension.class);
             dependencyGuard.configuration(dslModel.getDependencyGuard().getConfigurationName().get());
-        }
+        });
     }
 }
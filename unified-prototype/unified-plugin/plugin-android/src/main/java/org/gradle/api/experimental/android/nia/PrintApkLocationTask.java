@@ -23,6 +23,7 @@ import org.gradle.api.file.Directory;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
+import org.gradle.api.services.ServiceReference;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputDirectory;
 import org.gradle.api.tasks.InputFiles;
@@ -52,16 +53,16 @@ public abstract class PrintApkLocationTask extends DefaultTask {
     @Input
     public abstract Property<String> getVariantName();
 
+    @ServiceReference(SourcePresenceService.NAME)
+    public abstract Property<SourcePresenceService> getSourcePresence();
+
     @TaskAction
     public void taskAction() {
         if (!getSources().isPresent()) {
             throw new RuntimeException("Cannot check androidTest sources");
         }
-        boolean hasFiles = getSources().get().stream().anyMatch(directory ->
-            directory.getAsFileTree().getFiles().stream().anyMatch(it -> {
-                return it.isFile() && !it.getParentFile().getPath().contains("build${File.separator}generated");
-            })
-        );
+        SourcePresenceService sourcePresence = getSourcePresence().get();
+        boolean hasFiles = getSources().get().stream().anyMatch(directory -> sourcePresence.hasSourceFiles(directory.getAsFile()));
 
         // Don't print APK location if there are no androidTest source files
         if (hasFiles) {
@@ -0,0 +1,346 @@
+/*
+ * Copyright 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.experimental.android.nia;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.gradle.api.experimental.android.nia.BinaryXml.u16;
+
+/**
+ * The qualifiers of a resource configuration ({@code ResTable_config}), with the framework's rules for picking the
+ * best matching value of a resource for a requested configuration.
+ * <p>
+ * aapt2 resolves the badging values against a fixed default device configuration, which is only varied by locale
+ * and density. The rules that can only decide for a requested qualifier that this configuration leaves unset
+ * (layout direction, UI mode, touchscreen, input and screen size in pixels) are therefore not implemented.
+ */
+final class ResourceConfig {
+    static final int DENSITY_MEDIUM = 160;
+    static final int DENSITY_ANY = 0xfffe;
+    static final int SDK_CUR_DEVELOPMENT = 10000;
+
+    private static final int ORIENTATION_PORT = 1;
+    private static final int MASK_SCREENSIZE = 0x0f;
+    private static final int SCREENSIZE_NORMAL = 0x02;
+    private static final int MASK_SCREENLONG = 0x30;
+    private static final int MASK_LAYOUTDIR = 0xc0;
+    private static final int MASK_SCREENROUND = 0x03;
+    private static final int MASK_WIDE_COLOR_GAMUT = 0x03;
+    private static final int MASK_HDR = 0x0c;
+    private static final int MASK_UI_MODE_TYPE = 0x0f;
+    private static final int MASK_UI_MODE_NIGHT = 0x30;
+    private static final int MASK_KEYSHIDDEN = 0x03;
+    private static final int MASK_NAVHIDDEN = 0x0c;
+
+    private int mcc;
+    private int mnc;
+    private String language = "";
+    private String region = "";
+    private String script = "";
+    private String variant = "";
+    private int orientation;
+    private int touchscreen;
+    private int density;
+    private int keyboard;
+    private int navigation;
+    private int inputFlags;
+    private int screenWidth;
+    private int screenHeight;
+    private int sdkVersion;
+    private int screenLayout;
+    private int uiMode;
+    private int smallestScreenWidthDp;
+    private int screenWidthDp;
+    private int screenHeightDp;
+    private int screenLayout2;
+    private int colorMode;
+
+    private ResourceConfig() {
+    }
+
+    /**
+     * The device configuration aapt2 resolves badging values against: a portrait, normal sized, medium density
+     * screen running the current development SDK.
+     */
+    static ResourceConfig defaultConfig() {
+        ResourceConfig config = new ResourceConfig();
+        config.orientation = ORIENTATION_PORT;
+        config.density = DENSITY_MEDIUM;
+        config.sdkVersion = SDK_CUR_DEVELOPMENT;
+        config.screenWidthDp = 320;
+        config.screenHeightDp = 480;
+        config.smallestScreenWidthDp = 320;
+        config.screenLayout = SCREENSIZE_NORMAL;
+        return config;
+    }
+
+    /**
+     * Returns the default configuration for the given BCP 47 locale, such as {@code en}, {@code sr-Latn} or {@code es-419}.
+     */
+    static ResourceConfig forLocale(String locale) {
+        ResourceConfig config = defaultConfig();
+        String[] subtags = locale.isEmpty() ? new String[0] : locale.split("-");
+        for (int i = 0; i < subtags.length; i++) {
+            String subtag = subtags[i];
+            if (i == 0) {
+                config.language = subtag;
+            } else if (subtag.length() == 4 && Character.isLetter(subtag.charAt(0))) {
+                config.script = subtag;
+            } else if (subtag.length() == 2 || (subtag.length() == 3 && Character.isDigit(subtag.charAt(0)))) {
+                config.region = subtag;
+            } else {
+                config.variant = subtag;
+            }
+        }
+        return config;
+    }
+
+    static ResourceConfig forDensity(int density) {
+        ResourceConfig config = defaultConfig();
+        config.density = density;
+        return config;
+    }
+
+    /**
+     * Reads the configuration starting at {@code offset}, whose first field is its size in bytes.
+     * Fields beyond that size were added by later platform versions and are left unset.
+     */
+    static ResourceConfig read(ByteBuffer buffer, int offset) {
+        ResourceConfig config = new ResourceConfig();
+        int size = buffer.getInt(offset);
+        if (size >= 8) {
+            config.mcc = u16(buffer, offset + 4);
+            config.mnc = u16(buffer, offset + 6);
+        }
+        if (size >= 12) {
+            config.language = unpackLocalePart(buffer.get(offset + 8), buffer.get(offset + 9), 'a');
+            config.region = unpackLocalePart(buffer.get(offset + 10), buffer.get(offset + 11), '0');
+        }
+        if (size >= 16) {
+            config.orientation = u8(buffer, offset + 12);
+            config.touchscreen = u8(buffer, offset + 13);
+            config.density = u16(buffer, offset + 14);
+        }
+        if (size >= 20) {
+            config.keyboard = u8(buffer, offset + 16);
+            config.navigation = u8(buffer, offset + 17);
+            config.inputFlags = u8(buffer, offset + 18);
+        }
+        if (size >= 24) {
+            config.screenWidth = u16(buffer, offset + 20);
+            config.screenHeight = u16(buffer, offset + 22);
+        }
+        if (size >= 28) {
+            config.sdkVersion = u16(buffer, offset + 24);
+        }
+        if (size >= 32) {
+            config.screenLayout = u8(buffer, offset + 28);
+            config.uiMode = u8(buffer, offset + 29);
+            config.smallestScreenWidthDp = u16(buffer, offset + 30);
+        }
+        if (size >= 36) {
+            config.screenWidthDp = u16(buffer, offset + 32);
+            config.screenHeightDp = u16(buffer, offset + 34);
+        }
+        // A script the platform computed from the language is not part of the locale's tag
+        boolean scriptWasComputed = size >= 53 && buffer.get(offset + 52) != 0;
+        if (size >= 40 && !scriptWasComputed) {
+            config.script = ascii(buffer, offset + 36, 4);
+        }
+        if (size >= 48) {
+            config.variant = ascii(buffer, offset + 40, 8);
+        }
+        if (size >= 52) {
+            config.screenLayout2 = u8(buffer, offset + 48);
+            config.colorMode = u8(buffer, offset + 49);
+        }
+        return config;
+    }
+
+    /**
+     * Returns the BCP 47 tag of the locale, such as {@code en-GB}, or an empty string for the default locale.
+     */
+    String locale() {
+        StringBuilder tag = new StringBuilder();
+        for (String subtag : new String[] {language, script, region, variant}) {
+            if (!subtag.isEmpty()) {
+                if (tag.length() > 0) {
+                    tag.append('-');
+                }
+                tag.append(subtag);
+            }
+        }
+        return tag.toString();
+    }
+
+    /**
+     * Returns the density in dpi, treating an unset density as medium.
+     */
+    int density() {
+        return density != 0 ? density : DENSITY_MEDIUM;
+    }
+
+    /**
+     * Returns whether a value defined for this configuration can be used on a device with the {@code requested} configuration.
+     */
+    boolean matches(ResourceConfig requested) {
+        return unsetOrEqual(mcc, requested.mcc)
+                && unsetOrEqual(mnc, requested.mnc)
+                && (language.isEmpty() || language.equals(requested.language))
+                && (region.isEmpty() || region.equals(requested.region))
+                && (script.isEmpty() || requested.script.isEmpty() || script.equals(requested.script))
+                && (variant.isEmpty() || variant.equals(requested.variant))
+                && unsetOrEqual(screenLayout & MASK_LAYOUTDIR, requested.screenLayout & MASK_LAYOUTDIR)
+                && unsetOrAtMost(smallestScreenWidthDp, requested.smallestScreenWidthDp)
+                && unsetOrAtMost(screenWidthDp, requested.screenWidthDp)
+                && unsetOrAtMost(screenHeightDp, requested.screenHeightDp)
+                && unsetOrAtMost(screenLayout & MASK_SCREENSIZE, requested.screenLayout & MASK_SCREENSIZE)
+                && unsetOrEqual(screenLayout & MASK_SCREENLONG, requested.screenLayout & MASK_SCREENLONG)
+                && unsetOrEqual(screenLayout2 & MASK_SCREENROUND, requested.screenLayout2 & MASK_SCREENROUND)
+                && unsetOrEqual(colorMode & MASK_WIDE_COLOR_GAMUT, requested.colorMode & MASK_WIDE_COLOR_GAMUT)
+                && unsetOrEqual(colorMode & MASK_HDR, requested.colorMode & MASK_HDR)
+                && unsetOrEqual(orientation, requested.orientation)
+                && unsetOrEqual(uiMode & MASK_UI_MODE_TYPE, requested.uiMode & MASK_UI_MODE_TYPE)
+                && unsetOrEqual(uiMode & MASK_UI_MODE_NIGHT, requested.uiMode & MASK_UI_MODE_NIGHT)
+                && unsetOrEqual(touchscreen, requested.touchscreen)
+                && unsetOrEqual(keyboard, requested.keyboard)
+                && unsetOrEqual(navigation, requested.navigation)
+                && unsetOrEqual(inputFlags & MASK_KEYSHIDDEN, requested.inputFlags & MASK_KEYSHIDDEN)
+                && unsetOrEqual(inputFlags & MASK_NAVHIDDEN, requested.inputFlags & MASK_NAVHIDDEN)
+                && unsetOrAtMost(screenWidth, requested.screenWidth)
+                && unsetOrAtMost(screenHeight, requested.screenHeight)
+                && unsetOrAtMost(sdkVersion, requested.sdkVersion);
+    }
+
+    /**
+     * Returns whether this configuration is a better match than {@code other} for the {@code requested} configuration,
+     * both of them matching it. The qualifiers are compared in the order of {@code ResTable_config::isBetterThan}.
+     */
+    boolean isBetterThan(ResourceConfig other, ResourceConfig requested) {
+        if (localeSpecificity() != other.localeSpecificity()) {
+            return localeSpecificity() > other.localeSpecificity();
+        }
+        if (smallestScreenWidthDp != other.smallestScreenWidthDp) {
+            return smallestScreenWidthDp > other.smallestScreenWidthDp;
+        }
+        if (screenWidthDp != other.screenWidthDp || screenHeightDp != other.screenHeightDp) {
+            // Prefer the configuration closest to the requested dimensions, an unset dimension being the furthest
+            int delta = (requested.screenWidthDp - screenWidthDp) + (requested.screenHeightDp - screenHeightDp);
+            int otherDelta = (requested.screenWidthDp - other.screenWidthDp) + (requested.screenHeightDp - other.screenHeightDp);
+            if (delta != otherDelta) {
+                return delta < otherDelta;
+            }
+        }
+        int screenSize = screenLayout & MASK_SCREENSIZE;
+        int otherScreenSize = other.screenLayout & MASK_SCREENSIZE;
+        if (screenSize != otherScreenSize) {
+            // An unset size counts as normal, unless a smaller size is requested
+            int fixedScreenSize = screenSize;
+            int fixedOtherScreenSize = otherScreenSize;
+            if ((requested.screenLayout & MASK_SCREENSIZE) >= SCREENSIZE_NORMAL) {
+                fixedScreenSize = fixedScreenSize != 0 ? fixedScreenSize : SCREENSIZE_NORMAL;
+                fixedOtherScreenSize = fixedOtherScreenSize != 0 ? fixedOtherScreenSize : SCREENSIZE_NORMAL;
+            }
+            if (fixedScreenSize == fixedOtherScreenSize) {
+                return screenSize != 0;
+            }
+            return fixedScreenSize > fixedOtherScreenSize;
+        }
+        if (orientation != other.orientation && requested.orientation != 0) {
+            return orientation != 0;
+        }
+        if (density != other.density) {
+            return isDensityBetterThan(other, requested);
+        }
+        if (sdkVersion != other.sdkVersion && requested.sdkVersion != 0) {
+            return sdkVersion > other.sdkVersion;
+        }
+        return false;
+    }
+
+    private boolean isDensityBetterThan(ResourceConfig other, ResourceConfig requested) {
+        int thisDensity = density();
+        int otherDensity = other.density();
+        // A density independent value is always preferred over scaling one from a density bucket
+        if (thisDensity == DENSITY_ANY) {
+            return true;
+        }
+        if (otherDensity == DENSITY_ANY) {
+            return false;
+        }
+        int requestedDensity = requested.density == 0 || requested.density == DENSITY_ANY ? DENSITY_MEDIUM : requested.density;
+        int high = Math.max(thisDensity, otherDensity);
+        int low = Math.min(thisDensity, otherDensity);
+        boolean thisIsHigher = thisDensity == high;
+        if (requestedDensity >= high) {
+            return thisIsHigher;
+        }
+        if (low >= requestedDensity) {
+            return !thisIsHigher;
+        }
+        // Scaling down is considered twice as good as scaling up
+        if ((2L * low - requestedDensity) * high > (long) requestedDensity * requestedDensity) {
+            return !thisIsHigher;
+        }
+        return thisIsHigher;
+    }
+
+    private int localeSpecificity() {
+        return (language.isEmpty() ? 0 : 1) + (script.isEmpty() ? 0 : 1) + (region.isEmpty() ? 0 : 1) + (variant.isEmpty() ? 0 : 1);
+    }
+
+    private static boolean unsetOrEqual(int value, int requested) {
+        return value == 0 || value == requested;
+    }
+
+    private static boolean unsetOrAtMost(int value, int requested) {
+        return value == 0 || value <= requested;
+    }
+
+    /**
+     * Two-letter codes are stored as is, three-letter codes are packed into 5 bits per letter.
+     */
+    private static String unpackLocalePart(byte first, byte second, char base) {
+        if (first == 0) {
+            return "";
+        }
+        if ((first & 0x80) == 0) {
+            return new String(new char[] {(char) first, (char) second});
+        }
+        char[] letters = {
+                (char) (base + (second & 0x1f)),
+                (char) (base + (((second & 0xe0) >> 5) | ((first & 0x03) << 3))),
+                (char) (base + ((first & 0x7c) >> 2))
+        };
+        return new String(letters);
+    }
+
+    private static String ascii(ByteBuffer buffer, int offset, int maxLength) {
+        int length = 0;
+        while (length < maxLength && buffer.get(offset + length) != 0) {
+            length++;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static int u8(ByteBuffer buffer, int offset) {
+        return buffer.get(offset) & 0xff;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.experimental.android.nia;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.gradle.api.experimental.android.nia.BinaryXml.u16;
+
+/**
+ * Decodes a binary {@code resources.arsc} resource table: the configurations every resource is defined for,
+ * and the simple (non-bag) values, keyed by resource id.
+ */
+final class ResourceTable {
+    static final ResourceTable EMPTY = new ResourceTable(Collections.emptyMap());
+
+    private static final int RES_TABLE_PACKAGE_TYPE = 0x0200;
+    private static final int RES_TABLE_TYPE_TYPE = 0x0201;
+
+    private static final int FLAG_SPARSE = 0x01;
+    private static final int FLAG_OFFSET16 = 0x02;
+    private static final int FLAG_COMPLEX = 0x0001;
+    private static final int FLAG_COMPACT = 0x0008;
+    private static final int NO_ENTRY = 0xffffffff;
+    private static final int NO_ENTRY16 = 0xffff;
+    private static final int MAX_REFERENCE_DEPTH = 8;
+
+    /**
+     * A resource in one configuration. The value is {@code null} for bags such as styles, arrays and plurals.
+     */
+    static final class Entry {
+        final ResourceConfig config;
+        final BinaryXml.Value value;
+
+        Entry(ResourceConfig config, BinaryXml.Value value) {
+            this.config = config;
+            this.value = value;
+        }
+    }
+
+    private final Map<Integer, List<Entry>> entries;
+
+    private ResourceTable(Map<Integer, List<Entry>> entries) {
+        this.entries = entries;
+    }
+
+    List<Entry> entries(int resourceId) {
+        return entries.getOrDefault(resourceId, Collections.emptyList());
+    }
+
+    /**
+     * Returns the BCP 47 tags of the locales any resource is defined for, the default locale being an empty string.
+     */
+    SortedSet<String> locales() {
+        SortedSet<String> locales = new TreeSet<>();
+        entries.values().forEach(values -> values.forEach(entry -> locales.add(entry.config.locale())));
+        return locales;
+    }
+
+    /**
+     * Returns the densities any resource is defined for, an unset density counting as medium.
+     */
+    SortedSet<Integer> densities() {
+        SortedSet<Integer> densities = new TreeSet<>();
+        entries.values().forEach(values -> values.forEach(entry -> densities.add(entry.config.density())));
+        return densities;
+    }
+
+    /**
+     * Follows references, picking the value of the configuration that best matches {@code requested} at each step.
+     * Returns {@code null} when a reference cannot be resolved to a simple value.
+     */
+    BinaryXml.Value resolve(BinaryXml.Value value, ResourceConfig requested) {
+        for (int depth = 0; value != null && value.isReference() && depth < MAX_REFERENCE_DEPTH; depth++) {
+            Entry best = null;
+            for (Entry candidate : entries(value.data)) {
+                if (candidate.config.matches(requested) && (best == null || candidate.config.isBetterThan(best.config, requested))) {
+                    best = candidate;
+                }
+            }
+            value = best != null ? best.value : null;
+        }
+        return value;
+    }
+
+    static ResourceTable parse(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (u16(buffer, 0) != BinaryXml.RES_TABLE_TYPE) {
+            throw new IllegalArgumentException("Not a resource table");
+        }
+
+        Map<Integer, List<Entry>> entries = new HashMap<>();
+        String[] globalStrings = new String[0];
+        int offset = u16(buffer, 2);
+        while (offset < bytes.length) {
+            int chunkType = u16(buffer, offset);
+            if (chunkType == BinaryXml.RES_STRING_POOL_TYPE) {
+                globalStrings = BinaryXml.readStringPool(buffer, offset);
+            } else if (chunkType == RES_TABLE_PACKAGE_TYPE) {
+                readPackage(buffer, offset, globalStrings, entries);
+            }
+            offset += buffer.getInt(offset + 4);
+        }
+        return new ResourceTable(entries);
+    }
+
+    private static void readPackage(ByteBuffer buffer, int chunk, String[] globalStrings, Map<Integer, List<Entry>> entries) {
+        int packageId = buffer.getInt(chunk + 8);
+        int end = chunk + buffer.getInt(chunk + 4);
+        int offset = chunk + u16(buffer, chunk + 2);
+        while (offset < end) {
+            if (u16(buffer, offset) == RES_TABLE_TYPE_TYPE) {
+                readType(buffer, offset, packageId, globalStrings, entries);
+            }
+            offset += buffer.getInt(offset + 4);
+        }
+    }
+
+    private static void readType(ByteBuffer buffer, int chunk, int packageId, String[] globalStrings, Map<Integer, List<Entry>> entries) {
+        int headerSize = u16(buffer, chunk + 2);
+        int typeId = buffer.get(chunk + 8) & 0xff;
+        int flags = buffer.get(chunk + 9) & 0xff;
+        int entryCount = buffer.getInt(chunk + 12);
+        int entriesStart = chunk + buffer.getInt(chunk + 16);
+        ResourceConfig config = ResourceConfig.read(buffer, chunk + 20);
+
+        int offsets = chunk + headerSize;
+        for (int i = 0; i < entryCount; i++) {
+            int index;
+            int entryOffset;
+            if ((flags & FLAG_SPARSE) != 0) {
+                index = u16(buffer, offsets + i * 4);
+                entryOffset = u16(buffer, offsets + i * 4 + 2) * 4;
+            } else if ((flags & FLAG_OFFSET16) != 0) {
+                int value = u16(buffer, offsets + i * 2);
+                if (value == NO_ENTRY16) {
+                    continue;
+                }
+                index = i;
+                entryOffset = value * 4;
+            } else {
+                entryOffset = buffer.getInt(offsets + i * 4);
+                if (entryOffset == NO_ENTRY) {
+                    continue;
+                }
+                index = i;
+            }
+
+            int entry = entriesStart + entryOffset;
+            int entryFlags = u16(buffer, entry + 2);
+            BinaryXml.Value value = null;
+            if ((entryFlags & FLAG_COMPACT) != 0) {
+                int type = entryFlags >>> 8;
+                int data = buffer.getInt(entry + 4);
+                value = new BinaryXml.Value(type, data, type == BinaryXml.TYPE_STRING ? globalStrings[data] : null);
+            } else if ((entryFlags & FLAG_COMPLEX) == 0) {
+                int valueOffset = entry + u16(buffer, entry);
+                int type = buffer.get(valueOffset + 3) & 0xff;
+                int data = buffer.getInt(valueOffset + 4);
+                value = new BinaryXml.Value(type, data, type == BinaryXml.TYPE_STRING ? globalStrings[data] : null);
+            }
+
+            int resourceId = (packageId << 24) | (typeId << 16) | index;
+            entries.computeIfAbsent(resourceId, id -> new ArrayList<>()).add(new Entry(config, value));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.experimental.android.nia;
+
+import org.gradle.api.Project;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether a source root contains at least one source file, ignoring generated sources.
+ * <p>
+ * The walk stops at the first file found, and results are remembered per directory for the rest of the build,
+ * so every task asking about the same source root shares a single walk. Only meant for tasks: the walk is not
+ * tracked as an input of the configuration cache.
+ */
+public abstract class SourcePresenceService implements BuildService<BuildServiceParameters.None> {
+    public static final String NAME = "sourcePresence";
+
+    private static final String GENERATED_SOURCES = "build" + File.separator + "generated";
+
+    private final Map<Path, Boolean> hasSourceFiles = new ConcurrentHashMap<>();
+
+    public static Provider<SourcePresenceService> register(Project project) {
+        return project.getGradle().getSharedServices().registerIfAbsent(NAME, SourcePresenceService.class, spec -> {});
+    }
+
+    public boolean hasSourceFiles(File sourceRoot) {
+        return hasSourceFiles.computeIfAbsent(sourceRoot.toPath().toAbsolutePath().normalize(), SourcePresenceService::walk);
+    }
+
+    private static boolean walk(Path sourceRoot) {
+        if (!Files.isDirectory(sourceRoot)) {
+            return false;
+        }
+        boolean[] found = {false};
+        try {
+            Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return dir.toString().contains(GENERATED_SOURCES) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        found[0] = true;
+                        return FileVisitResult.TERMINATE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to look for source files in " + sourceRoot, e);
+        }
+        return found[0];
+    }
+}
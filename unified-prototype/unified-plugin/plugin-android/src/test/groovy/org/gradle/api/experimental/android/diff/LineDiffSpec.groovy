@@ -0,0 +1,61 @@
+package org.gradle.api.experimental.android.diff
+
+import spock.lang.Specification
+
+class LineDiffSpec extends Specification {
+    def 'empty files have no changes'() {
+        expect:
+        diff("", "") == [0, ""]
+    }
+
+    def 'identical files have no changes'() {
+        expect:
+        diff("a\nb\nc\n", "a\nb\nc\n") == [0, ""]
+    }
+
+    def 'all lines are added to an empty file'() {
+        expect:
+        diff("", "a\nb\n") == [2, "@@ -1 +1 @@\n+a\n+b\n"]
+    }
+
+    def 'all lines are removed from a file that becomes empty'() {
+        expect:
+        diff("a\nb\n", "") == [2, "@@ -1 +1 @@\n-a\n-b\n"]
+    }
+
+    def 'reports a line inserted at the head'() {
+        expect:
+        diff("b\nc\n", "a\nb\nc\n") == [1, "@@ -1 +1 @@\n+a\n"]
+    }
+
+    def 'reports a line deleted at the head'() {
+        expect:
+        diff("a\nb\nc\n", "b\nc\n") == [1, "@@ -1 +1 @@\n-a\n"]
+    }
+
+    def 'reports a line inserted at the tail'() {
+        expect:
+        diff("a\nb\n", "a\nb\nc\n") == [1, "@@ -3 +3 @@\n+c\n"]
+    }
+
+    def 'reports a line deleted at the tail'() {
+        expect:
+        diff("a\nb\nc\n", "a\nb\n") == [1, "@@ -3 +3 @@\n-c\n"]
+    }
+
+    def 'reports separate hunks with the line numbers of both sides'() {
+        expect:
+        diff("a\nb\nc\nd\ne\n", "x\na\nc\nd\ny\ne\n") == [3, "@@ -1 +1 @@\n+x\n@@ -2 +3 @@\n-b\n@@ -5 +5 @@\n+y\n"]
+    }
+
+    def 'finds the shortest edit script'() {
+        expect:
+        diff("a\nb\nc\na\nb\nb\na\n", "c\nb\na\nb\na\nc\n")[0] == 5
+    }
+
+    private static List<Object> diff(String expected, String actual) {
+        def output = new StringBuilder()
+        def changes = LineDiff.diff(new BufferedReader(new StringReader(expected)), new BufferedReader(new StringReader(actual)), output)
+        [changes, output.toString()]
+    }
+}
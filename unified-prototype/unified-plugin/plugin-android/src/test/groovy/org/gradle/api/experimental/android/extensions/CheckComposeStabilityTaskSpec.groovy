@@ -0,0 +1,126 @@
+package org.gradle.api.experimental.android.extensions
+
+import org.gradle.api.GradleException
+import org.gradle.testfixtures.ProjectBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class CheckComposeStabilityTaskSpec extends Specification {
+    @TempDir
+    File tmpDir
+
+    CheckComposeStabilityTask task
+
+    def setup() {
+        def project = ProjectBuilder.builder().withProjectDir(new File(tmpDir, "project")).build()
+        task = project.tasks.register("checkComposeStability", CheckComposeStabilityTask).get()
+        task.output.set(new File(tmpDir, "summary.txt"))
+    }
+
+    def 'passes and writes a summary when the reports are within the budget'() {
+        given:
+        reports("debug")
+        task.maxUnstableClasses.set(2)
+        task.maxNonSkippableComposables.set(1)
+
+        when:
+        task.taskAction()
+
+        then:
+        new File(tmpDir, "summary.txt").text == "unstable classes: 2\nnon-skippable composables: 1\n"
+    }
+
+    def 'fails listing the unstable classes when there are more than the budget'() {
+        given:
+        reports("debug")
+        task.maxUnstableClasses.set(1)
+
+        when:
+        task.taskAction()
+
+        then:
+        def e = thrown(GradleException)
+        e.message.contains("2 unstable classes, budget is 1: FeedState, NewsResource")
+        !e.message.contains("non-skippable composables")
+        !new File(tmpDir, "summary.txt").exists()
+    }
+
+    def 'fails listing the non-skippable composables when there are more than the budget'() {
+        given:
+        reports("debug")
+        task.maxNonSkippableComposables.set(0)
+
+        when:
+        task.taskAction()
+
+        then:
+        def e = thrown(GradleException)
+        e.message.contains("1 non-skippable composables, budget is 0: NewsFeed")
+        !e.message.contains("unstable classes")
+    }
+
+    def 'does not check unset limits'() {
+        given:
+        reports("debug")
+
+        when:
+        task.taskAction()
+
+        then:
+        new File(tmpDir, "summary.txt").text == "unstable classes: 2\nnon-skippable composables: 1\n"
+    }
+
+    def 'counts classes and composables reported by several variants once'() {
+        given:
+        reports("debug")
+        reports("release")
+        task.maxUnstableClasses.set(2)
+        task.maxNonSkippableComposables.set(1)
+
+        when:
+        task.taskAction()
+
+        then:
+        new File(tmpDir, "summary.txt").text == "unstable classes: 2\nnon-skippable composables: 1\n"
+    }
+
+    def 'passes without reports'() {
+        given:
+        task.composeReports.from(new File(tmpDir, "missing"))
+        task.maxUnstableClasses.set(0)
+        task.maxNonSkippableComposables.set(0)
+
+        when:
+        task.taskAction()
+
+        then:
+        new File(tmpDir, "summary.txt").text == "unstable classes: 0\nnon-skippable composables: 0\n"
+    }
+
+    private void reports(String variant) {
+        def directory = new File(tmpDir, "compose/${variant}/reports")
+        directory.mkdirs()
+        new File(directory, "app_${variant}-classes.txt").text = """\
+stable class Topic {
+  stable val id: String
+  <runtime stability> = Stable
+}
+unstable class NewsResource {
+  unstable val topics: List<Topic>
+  <runtime stability> = Unstable
+}
+unstable class FeedState {
+  <runtime stability> = Unstable
+}
+"""
+        new File(directory, "app_${variant}-composables.txt").text = """\
+restartable skippable scheme("[androidx.compose.ui.UiComposable]") fun TopicChip(
+  stable topic: Topic
+)
+restartable scheme("[androidx.compose.ui.UiComposable]") fun NewsFeed(
+  unstable feedState: FeedState
+)
+"""
+        task.composeReports.from(directory)
+    }
+}
@@ -0,0 +1,114 @@
+package org.gradle.api.experimental.android.extensions
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+class ComposeCompilerReportsSpec extends Specification {
+    @TempDir
+    File tmpDir
+
+    def 'parses the unstable parameters of composables'() {
+        given:
+        def report = file("app-release-composables.txt", """
+restartable skippable scheme("[androidx.compose.ui.UiComposable]") fun TopicChip(
+  stable selected: Boolean
+  stable modifier: Modifier? = @static Companion
+)
+restartable scheme("[androidx.compose.ui.UiComposable]") fun NewsFeed(
+  unstable feedState: NewsFeedUiState
+  unstable topics: List<Topic> = @static emptyList()
+  stable modifier: Modifier? = @static Companion
+)
+restartable skippable scheme("[androidx.compose.ui.UiComposable]") fun EmptyState()
+""")
+
+        when:
+        def composables = ComposeCompilerReports.parseComposables(report)
+
+        then:
+        composables*.name == ["TopicChip", "NewsFeed", "EmptyState"]
+        composables*.nonSkippable == [false, true, false]
+        composables[0].unstableParameters.empty
+        composables[1].unstableParameters*.name == ["feedState", "topics"]
+        composables[1].unstableParameters*.type == ["NewsFeedUiState", "List<Topic>"]
+        composables[2].unstableParameters.empty
+    }
+
+    def 'a restartable composable without parameters is non-skippable when not marked skippable'() {
+        given:
+        def report = file("app-release-composables.txt", """
+restartable scheme("[androidx.compose.ui.UiComposable]") fun Loading()
+fun helper(
+  unstable items: List<String>
+)
+""")
+
+        when:
+        def composables = ComposeCompilerReports.parseComposables(report)
+
+        then:
+        composables*.name == ["Loading", "helper"]
+        composables*.nonSkippable == [true, false]
+        composables[1].unstableParameters*.type == ["List<String>"]
+    }
+
+    def 'ignores unused and runtime checked parameters'() {
+        given:
+        def report = file("app-release-composables.txt", """
+restartable scheme("[androidx.compose.ui.UiComposable]") fun Header(
+  unused stable title: String
+  runtime state: State<T>
+  unstable onClick: Function0<Unit>
+)
+""")
+
+        when:
+        def composables = ComposeCompilerReports.parseComposables(report)
+
+        then:
+        composables.size() == 1
+        composables[0].unstableParameters*.name == ["onClick"]
+        composables[0].unstableParameters*.type == ["Function0<Unit>"]
+    }
+
+    def 'parses the names of unstable classes'() {
+        given:
+        def report = file("app-release-classes.txt", """
+stable class Topic {
+  stable val id: String
+  <runtime stability> = Stable
+}
+unstable class NewsResource {
+  stable val id: String
+  unstable val topics: List<Topic>
+  <runtime stability> = Unstable
+}
+runtime class Wrapper {
+  runtime val value: T
+  <runtime stability> = Parameter(T)
+}
+unstable class FeedState {
+  <runtime stability> = Unstable
+}
+""")
+
+        expect:
+        ComposeCompilerReports.parseUnstableClasses(report) == ["NewsResource", "FeedState"]
+    }
+
+    def 'empty reports have no entries'() {
+        given:
+        def composables = file("app-release-composables.txt", "")
+        def classes = file("app-release-classes.txt", "")
+
+        expect:
+        ComposeCompilerReports.parseComposables(composables).empty
+        ComposeCompilerReports.parseUnstableClasses(classes).empty
+    }
+
+    private File file(String name, String text) {
+        def file = new File(tmpDir, name)
+        file.text = text.stripLeading()
+        return file
+    }
+}
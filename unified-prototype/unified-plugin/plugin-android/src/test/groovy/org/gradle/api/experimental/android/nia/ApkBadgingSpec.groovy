@@ -0,0 +1,124 @@
+package org.gradle.api.experimental.android.nia
+
+import org.gradle.api.experimental.android.nia.ApkFixture.ResourceTableBuilder
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import static org.gradle.api.experimental.android.nia.ApkFixture.apk
+import static org.gradle.api.experimental.android.nia.ApkFixture.element
+import static org.gradle.api.experimental.android.nia.ApkFixture.ref
+
+class ApkBadgingSpec extends Specification {
+    @TempDir
+    File temporaryFolder
+
+    def 'dumps the badging of an application the way aapt2 does'() {
+        given:
+        def manifest = element('manifest', [versionCode: 8, versionName: '0.1.2', package: 'com.google.samples.apps.nowinandroid', compileSdkVersion: 35, compileSdkVersionCodename: '15', platformBuildVersionCode: 35, platformBuildVersionName: '15'], [
+            element('uses-sdk', [minSdkVersion: 21, targetSdkVersion: 35]),
+            element('uses-feature', [name: 'android.hardware.camera', required: false]),
+            element('uses-permission', [name: 'android.permission.INTERNET']),
+            element('uses-permission', [name: 'android.permission.POST_NOTIFICATIONS']),
+            element('permission', [name: 'com.google.samples.apps.nowinandroid.DYNAMIC_RECEIVER_NOT_EXPORTED_PERMISSION', protectionLevel: 2]),
+            element('application', [label: ref(0x7f010000), icon: ref(0x7f020000), name: 'com.google.samples.apps.nowinandroid.NiaApplication'], [
+                element('activity', [name: 'com.google.samples.apps.nowinandroid.MainActivity', exported: true], [
+                    element('intent-filter', [:], [
+                        element('action', [name: 'android.intent.action.MAIN']),
+                        element('category', [name: 'android.intent.category.LAUNCHER']),
+                    ]),
+                ]),
+                element('service', [name: 'androidx.work.impl.background.systemjob.SystemJobService', exported: true]),
+                element('receiver', [name: 'androidx.work.impl.diagnostics.DiagnosticsReceiver', exported: true]),
+                element('property', [name: 'android.adservices.AD_SERVICES_CONFIG', resource: ref(0x7f030000)]),
+            ]),
+        ])
+        def resources = new ResourceTableBuilder()
+            .add(0x7f010000, 'Now in Android')
+            .add(language: 'fr', 0x7f010000, 'Now in Android')
+            .add(density: 0xfffe, sdkVersion: 26, 0x7f020000, 'res/mipmap-anydpi-v26/ic_launcher.xml')
+            .add(density: 160, 0x7f020000, 'res/mipmap-mdpi-v4/ic_launcher.png')
+            .add(density: 480, 0x7f020000, 'res/mipmap-xxhdpi-v4/ic_launcher.png')
+            .add(0x7f030000, 'res/xml/ga_ad_services_config.xml')
+        def file = apk(new File(temporaryFolder, 'app.apk'), manifest, resources, ['classes.dex', 'lib/arm64-v8a/libfoo.so', 'lib/x86_64/libfoo.so'])
+
+        expect:
+        ApkBadging.dumpBadging(file) == """\
+package: name='com.google.samples.apps.nowinandroid' versionCode='8' versionName='0.1.2' platformBuildVersionName='15' platformBuildVersionCode='35' compileSdkVersion='35' compileSdkVersionCodename='15'
+sdkVersion:'21'
+targetSdkVersion:'35'
+uses-permission: name='android.permission.INTERNET'
+uses-permission: name='android.permission.POST_NOTIFICATIONS'
+permission: com.google.samples.apps.nowinandroid.DYNAMIC_RECEIVER_NOT_EXPORTED_PERMISSION
+application-label:'Now in Android'
+application-label-fr:'Now in Android'
+application-icon-160:'res/mipmap-anydpi-v26/ic_launcher.xml'
+application-icon-480:'res/mipmap-anydpi-v26/ic_launcher.xml'
+application-icon-65534:'res/mipmap-anydpi-v26/ic_launcher.xml'
+application: label='Now in Android' icon='res/mipmap-anydpi-v26/ic_launcher.xml'
+launchable-activity: name='com.google.samples.apps.nowinandroid.MainActivity'  label='' icon=''
+property: name='android.adservices.AD_SERVICES_CONFIG' resource='res/xml/ga_ad_services_config.xml' 
+feature-group: label=''
+  uses-feature-not-required: name='android.hardware.camera'
+  uses-feature: name='android.hardware.faketouch'
+  uses-implied-feature: name='android.hardware.faketouch' reason='default feature for all apps'
+main
+other-receivers
+other-services
+supports-screens: 'small' 'normal' 'large' 'xlarge'
+supports-any-density: 'true'
+locales: '--_--' 'fr'
+densities: '160' '480' '65534'
+native-code: 'arm64-v8a' 'x86_64'
+"""
+    }
+
+    def 'reports implied permissions, features and screens of old applications'() {
+        given:
+        def manifest = element('manifest', [package: 'com.example'], [
+            element('uses-sdk', [minSdkVersion: 3]),
+            element('uses-permission', [name: 'android.permission.CAMERA']),
+            element('uses-permission', [name: 'android.permission.ACCESS_FINE_LOCATION']),
+            element('supports-screens', [smallScreens: false, anyDensity: true]),
+            element('application', [label: 'Example', debuggable: true], [
+                element('activity', [name: '.Main'], [
+                    element('intent-filter', [:], [
+                        element('action', [name: 'android.intent.action.MAIN']),
+                        element('category', [name: 'android.intent.category.LEANBACK_LAUNCHER']),
+                    ]),
+                ]),
+            ]),
+        ])
+        def file = apk(new File(temporaryFolder, 'example.apk'), manifest)
+
+        expect:
+        ApkBadging.dumpBadging(file) == """\
+package: name='com.example' versionCode='' versionName=''
+sdkVersion:'3'
+uses-permission: name='android.permission.CAMERA'
+uses-permission: name='android.permission.ACCESS_FINE_LOCATION'
+application: label='Example' icon=''
+application-debuggable
+leanback-launchable-activity: name='com.example.Main'  label='' icon='' banner=''
+uses-permission: name='android.permission.WRITE_EXTERNAL_STORAGE'
+uses-implied-permission: name='android.permission.WRITE_EXTERNAL_STORAGE' reason='targetSdkVersion < 4'
+uses-permission: name='android.permission.READ_PHONE_STATE'
+uses-implied-permission: name='android.permission.READ_PHONE_STATE' reason='targetSdkVersion < 4'
+uses-permission: name='android.permission.READ_EXTERNAL_STORAGE'
+uses-implied-permission: name='android.permission.READ_EXTERNAL_STORAGE' reason='requested WRITE_EXTERNAL_STORAGE'
+feature-group: label=''
+  uses-feature: name='android.hardware.camera'
+  uses-implied-feature: name='android.hardware.camera' reason='requested android.permission.CAMERA permission'
+  uses-feature: name='android.hardware.faketouch'
+  uses-implied-feature: name='android.hardware.faketouch' reason='default feature for all apps'
+  uses-feature: name='android.hardware.location'
+  uses-implied-feature: name='android.hardware.location' reason='requested android.permission.ACCESS_FINE_LOCATION permission'
+  uses-feature: name='android.hardware.location.gps'
+  uses-implied-feature: name='android.hardware.location.gps' reason='requested android.permission.ACCESS_FINE_LOCATION permission, and targetSdkVersion < 21'
+main
+supports-screens: 'normal'
+supports-any-density: 'true'
+locales:
+densities:
+"""
+    }
+}
@@ -0,0 +1,381 @@
+package org.gradle.api.experimental.android.nia
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+/**
+ * Writes compiled XML files, resource tables and APKs in the binary formats aapt2 produces,
+ * following the layouts of {@code ResourceTypes.h}.
+ */
+class ApkFixture {
+    static final int FLAG_SPARSE = 0x01
+    static final int FLAG_OFFSET16 = 0x02
+
+    private static final int TYPE_REFERENCE = 0x01
+    private static final int TYPE_STRING = 0x03
+    private static final int TYPE_INT_DEC = 0x10
+    private static final int TYPE_INT_BOOLEAN = 0x12
+    private static final int CONFIG_SIZE = 64
+
+    static class Element {
+        String name
+        Map<String, Object> attributes
+        List<Element> children
+    }
+
+    static class Reference {
+        int id
+    }
+
+    /**
+     * The value of a style, array or plural.
+     */
+    static class Bag {
+    }
+
+    private static class StringIndex {
+        int index
+    }
+
+    static Element element(String name, Map<String, Object> attributes = [:], List<Element> children = []) {
+        new Element(name: name, attributes: attributes, children: children)
+    }
+
+    static Reference ref(int id) {
+        new Reference(id: id)
+    }
+
+    static Bag bag() {
+        new Bag()
+    }
+
+    static File apk(File file, Element manifest, ResourceTableBuilder resources = null, List<String> otherEntries = []) {
+        file.withOutputStream { output ->
+            def zip = new ZipOutputStream(output)
+            zip.putNextEntry(new ZipEntry("AndroidManifest.xml"))
+            zip.write(compiledXml(manifest))
+            if (resources != null) {
+                zip.putNextEntry(new ZipEntry("resources.arsc"))
+                zip.write(resources.build())
+            }
+            otherEntries.each { entry ->
+                zip.putNextEntry(new ZipEntry(entry))
+            }
+            zip.finish()
+        }
+        file
+    }
+
+    static byte[] compiledXml(Element root, boolean utf8 = false) {
+        List<String> strings = []
+        collectStrings(root, strings)
+        def out = new Chunks()
+        out.chunk(0x0003, 8) {
+            out.stringPool(strings, utf8)
+            writeElement(out, root, strings)
+        }
+        out.toByteArray()
+    }
+
+    private static void collectStrings(Element element, List<String> strings) {
+        ([element.name] + element.attributes.keySet() + element.attributes.values().findAll { it instanceof String }).each {
+            if (!strings.contains(it)) {
+                strings << (String) it
+            }
+        }
+        element.children.each { collectStrings(it, strings) }
+    }
+
+    private static void writeElement(Chunks out, Element element, List<String> strings) {
+        out.chunk(0x0102, 16) {
+            out.u32(1) // line number
+            out.u32(-1) // comment
+            out.u32(-1) // namespace
+            out.u32(strings.indexOf(element.name))
+            out.u16(20) // attribute start
+            out.u16(20) // attribute size
+            out.u16(element.attributes.size())
+            out.u16(0) // id, class and style attribute indexes
+            out.u16(0)
+            out.u16(0)
+            element.attributes.each { String name, Object value ->
+                out.u32(-1)
+                out.u32(strings.indexOf(name))
+                out.u32(value instanceof String ? strings.indexOf(value) : -1)
+                out.value(value instanceof String ? new StringIndex(index: strings.indexOf(value)) : value)
+            }
+        }
+        element.children.each { writeElement(out, it, strings) }
+        out.chunk(0x0103, 16) {
+            out.u32(1)
+            out.u32(-1)
+            out.u32(-1)
+            out.u32(strings.indexOf(element.name))
+        }
+    }
+
+    /**
+     * Builds a resource table with a single {@code 0x7f} package. Configurations are given as maps of
+     * {@code language}, {@code script}, {@code region}, {@code density}, {@code sdkVersion} and {@code uiMode}.
+     */
+    static class ResourceTableBuilder {
+        int typeFlags
+        boolean compactEntries
+        boolean utf8
+
+        private final List<String> strings = []
+        private final Map<Integer, Map<Map<String, Object>, Map<Integer, Object>>> types = new TreeMap<>()
+
+        ResourceTableBuilder add(int id, Object value) {
+            add([:], id, value)
+        }
+
+        ResourceTableBuilder add(Map<String, Object> config, int id, Object value) {
+            if (value instanceof String && !strings.contains(value)) {
+                strings << (String) value
+            }
+            def configs = types.computeIfAbsent((id >> 16) & 0xff) { new LinkedHashMap<>() }
+            configs.computeIfAbsent(config) { new TreeMap<>() }.put(id & 0xffff, value)
+            this
+        }
+
+        byte[] build() {
+            def out = new Chunks()
+            out.chunk(0x0002, 12) {
+                out.u32(1) // package count
+                out.stringPool(strings, utf8)
+                out.chunk(0x0200, 288) {
+                    out.u32(0x7f)
+                    256.times { out.u8(0) } // name
+                    5.times { out.u32(0) } // type and key string pools, which are not read
+                    types.each { int typeId, Map<Map<String, Object>, Map<Integer, Object>> configs ->
+                        configs.each { config, entries -> writeType(out, typeId, config, entries) }
+                    }
+                }
+            }
+            out.toByteArray()
+        }
+
+        private void writeType(Chunks out, int typeId, Map<String, Object> config, Map<Integer, Object> entries) {
+            boolean sparse = (typeFlags & FLAG_SPARSE) != 0
+            boolean offset16 = (typeFlags & FLAG_OFFSET16) != 0
+            int count = sparse ? entries.size() : entries.keySet().max() + 1
+            out.chunk(0x0201, 20 + CONFIG_SIZE) {
+                int start = out.position() - 8
+                out.u8(typeId)
+                out.u8(typeFlags)
+                out.u16(0)
+                out.u32(count)
+                int entriesStartField = out.position()
+                out.u32(0)
+                writeConfig(out, config)
+
+                int offsets = out.position()
+                count.times {
+                    if (sparse) {
+                        out.u32(0)
+                    } else if (offset16) {
+                        out.u16(0xffff)
+                    } else {
+                        out.u32(-1)
+                    }
+                }
+                out.align()
+                int entriesStart = out.position()
+                out.putInt(entriesStartField, entriesStart - start)
+
+                entries.keySet().eachWithIndex { int index, int i ->
+                    int offset = out.position() - entriesStart
+                    if (sparse) {
+                        out.putShort(offsets + i * 4, index)
+                        out.putShort(offsets + i * 4 + 2, offset.intdiv(4) as int)
+                    } else if (offset16) {
+                        out.putShort(offsets + index * 2, offset.intdiv(4) as int)
+                    } else {
+                        out.putInt(offsets + index * 4, offset)
+                    }
+                    writeEntry(out, entries[index])
+                }
+            }
+        }
+
+        private void writeEntry(Chunks out, Object value) {
+            Object data = value instanceof String ? new StringIndex(index: strings.indexOf(value)) : value
+            if (value instanceof Bag) {
+                out.u16(16)
+                out.u16(0x0001) // complex
+                out.u32(0) // key
+                out.u32(0) // parent
+                out.u32(0) // count
+            } else if (compactEntries) {
+                def encoded = new Chunks()
+                encoded.value(data)
+                byte[] bytes = encoded.toByteArray()
+                out.u16(0) // key
+                out.u16(0x0008 | ((bytes[3] & 0xff) << 8))
+                out.bytes(Arrays.copyOfRange(bytes, 4, 8))
+            } else {
+                out.u16(8)
+                out.u16(0)
+                out.u32(0) // key
+                out.value(data)
+            }
+        }
+
+        private static void writeConfig(Chunks out, Map<String, Object> config) {
+            int start = out.position()
+            out.u32(CONFIG_SIZE)
+            out.u32(0) // mcc, mnc
+            out.localePart((String) config.language ?: "", 'a' as char)
+            out.localePart((String) config.region ?: "", '0' as char)
+            out.u8(0) // orientation
+            out.u8(0) // touchscreen
+            out.u16((int) (config.density ?: 0))
+            out.u32(0) // input
+            out.u32(0) // screen size
+            out.u16((int) (config.sdkVersion ?: 0))
+            out.u16(0) // minor version
+            out.u8(0) // screen layout
+            out.u8((int) (config.uiMode ?: 0))
+            out.u16(0) // smallest screen width
+            out.u32(0) // screen size in dp
+            out.bytes(((String) config.script ?: "").padRight(4, "\u0000").getBytes(StandardCharsets.US_ASCII))
+            while (out.position() < start + CONFIG_SIZE) {
+                out.u8(0)
+            }
+        }
+    }
+
+    private static class Chunks {
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN)
+
+        /**
+         * Writes a chunk header and the body, then fills in the chunk size. The body writes the rest of the header.
+         */
+        void chunk(int type, int headerSize, Closure body) {
+            int start = buffer.position()
+            u16(type)
+            u16(headerSize)
+            u32(0)
+            body()
+            buffer.putInt(start + 4, buffer.position() - start)
+        }
+
+        void stringPool(List<String> strings, boolean utf8) {
+            chunk(0x0001, 28) {
+                int start = position() - 8
+                u32(strings.size())
+                u32(0) // style count
+                u32(utf8 ? 1 << 8 : 0)
+                int stringsStartField = position()
+                u32(0)
+                u32(0) // styles start
+                int offsets = position()
+                strings.each { u32(0) }
+                int stringsStart = position()
+                putInt(stringsStartField, stringsStart - start)
+                strings.eachWithIndex { String string, int i ->
+                    putInt(offsets + i * 4, position() - stringsStart)
+                    if (utf8) {
+                        byte[] encoded = string.getBytes(StandardCharsets.UTF_8)
+                        length8(string.length())
+                        length8(encoded.length)
+                        bytes(encoded)
+                        u8(0)
+                    } else {
+                        u16(string.length())
+                        bytes(string.getBytes(StandardCharsets.UTF_16LE))
+                        u16(0)
+                    }
+                }
+                align()
+            }
+        }
+
+        /**
+         * Writes a {@code Res_value} for a string pool index, an integer, a boolean or a reference.
+         */
+        void value(Object value) {
+            u16(8)
+            u8(0)
+            if (value instanceof Boolean) {
+                u8(TYPE_INT_BOOLEAN)
+                u32(value ? -1 : 0)
+            } else if (value instanceof Reference) {
+                u8(TYPE_REFERENCE)
+                u32(value.id)
+            } else if (value instanceof StringIndex) {
+                u8(TYPE_STRING)
+                u32(value.index)
+            } else {
+                u8(TYPE_INT_DEC)
+                u32((int) value)
+            }
+        }
+
+        /**
+         * Two-letter codes are stored as is, three-letter codes are packed into 5 bits per letter.
+         */
+        void localePart(String code, char base) {
+            if (code.length() == 3) {
+                int[] letters = code.chars.collect { (it as int) - (base as int) } as int[]
+                u8(0x80 | (letters[2] << 2) | (letters[1] >> 3))
+                u8(((letters[1] & 0x07) << 5) | letters[0])
+            } else {
+                u8(code.length() == 2 ? code.charAt(0) as int : 0)
+                u8(code.length() == 2 ? code.charAt(1) as int : 0)
+            }
+        }
+
+        // Lengths over 127 take two bytes, the first one having its high bit set
+        void length8(int length) {
+            if (length > 0x7f) {
+                u8(0x80 | (length >> 8))
+                u8(length & 0xff)
+            } else {
+                u8(length)
+            }
+        }
+
+        int position() {
+            buffer.position()
+        }
+
+        void u8(int value) {
+            buffer.put((byte) value)
+        }
+
+        void u16(int value) {
+            buffer.putShort((short) value)
+        }
+
+        void u32(int value) {
+            buffer.putInt(value)
+        }
+
+        void bytes(byte[] bytes) {
+            buffer.put(bytes)
+        }
+
+        void putShort(int index, int value) {
+            buffer.putShort(index, (short) value)
+        }
+
+        void putInt(int index, int value) {
+            buffer.putInt(index, value)
+        }
+
+        void align() {
+            while (buffer.position() % 4 != 0) {
+                u8(0)
+            }
+        }
+
+        byte[] toByteArray() {
+            Arrays.copyOf(buffer.array(), buffer.position())
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.gradle.api.experimental.android.nia
+
+import spock.lang.Specification
+
+import static org.gradle.api.experimental.android.nia.ApkFixture.compiledXml
+import static org.gradle.api.experimental.android.nia.ApkFixture.element
+import static org.gradle.api.experimental.android.nia.ApkFixture.ref
+
+class BinaryXmlSpec extends Specification {
+    def 'reads elements and attributes in document order'() {
+        when:
+        def root = BinaryXml.parse(compiledXml(element('manifest', [package: 'com.example'], [
+            element('uses-sdk', [minSdkVersion: 21]),
+            element('application', [:], [element('activity', [name: '.Main'])]),
+            element('uses-sdk', [targetSdkVersion: 35]),
+        ]), utf8))
+
+        then:
+        root.name == 'manifest'
+        root.attributes.keySet().toList() == ['package']
+        root.attributes.package.string == 'com.example'
+        root.children*.name == ['uses-sdk', 'application', 'uses-sdk']
+        root.children('uses-sdk')*.attributes*.keySet()*.toList() == [['minSdkVersion'], ['targetSdkVersion']]
+        root.children('application')[0].children[0].attributes.name.toString() == '.Main'
+
+        where:
+        utf8 << [false, true]
+    }
+
+    def 'decodes typed attribute values'() {
+        when:
+        def attributes = BinaryXml.parse(compiledXml(element('application', [
+            label: ref(0x7f010000),
+            debuggable: true,
+            testOnly: false,
+            versionCode: 42,
+        ]))).attributes
+
+        then:
+        attributes.label.isReference()
+        attributes.label.data == 0x7f010000
+        attributes.debuggable.isInteger()
+        attributes.debuggable.data == -1
+        attributes.debuggable.toString() == 'true'
+        attributes.testOnly.toString() == 'false'
+        attributes.versionCode.isInteger()
+        attributes.versionCode.toString() == '42'
+    }
+
+    def 'decodes non-ASCII and long strings'() {
+        given:
+        def label = 'Nöw in Andröid ✓ ' * 10
+
+        expect:
+        BinaryXml.parse(compiledXml(element('application', [label: label]), utf8)).attributes.label.string == label
+
+        where:
+        utf8 << [false, true]
+    }
+
+    def 'rejects files that are not compiled XML'() {
+        when:
+        BinaryXml.parse(new byte[]{0x3c, 0x3f, 0x78, 0x6d, 0x6c, 0x20, 0x20, 0x20})
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
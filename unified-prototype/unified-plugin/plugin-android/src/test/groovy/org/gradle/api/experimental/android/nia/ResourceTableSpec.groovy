@@ -0,0 +1,121 @@
+package org.gradle.api.experimental.android.nia
+
+import org.gradle.api.experimental.android.nia.ApkFixture.ResourceTableBuilder
+import spock.lang.Specification
+
+import static org.gradle.api.experimental.android.nia.ApkFixture.FLAG_OFFSET16
+import static org.gradle.api.experimental.android.nia.ApkFixture.FLAG_SPARSE
+import static org.gradle.api.experimental.android.nia.ApkFixture.bag
+import static org.gradle.api.experimental.android.nia.ApkFixture.ref
+
+class ResourceTableSpec extends Specification {
+    private static final int LABEL = 0x7f010000
+    private static final int LABEL_ALIAS = 0x7f010002
+    private static final int ICON = 0x7f020003
+    private static final int THEME = 0x7f030001
+
+    def 'reads every entry format'() {
+        when:
+        def table = ResourceTable.parse(new ResourceTableBuilder(typeFlags: typeFlags, compactEntries: compactEntries, utf8: utf8)
+            .add(LABEL, 'Now')
+            .add(LABEL_ALIAS, ref(LABEL))
+            .add(THEME, bag())
+            .build())
+
+        then:
+        table.entries(LABEL)*.value*.toString() == ['Now']
+        table.entries(LABEL_ALIAS)*.value*.data == [LABEL]
+        table.entries(THEME)*.value == [null]
+        table.entries(0x7f010001).isEmpty()
+
+        where:
+        typeFlags     | compactEntries | utf8
+        0             | false          | false
+        0             | false          | true
+        FLAG_SPARSE   | false          | false
+        FLAG_OFFSET16 | false          | false
+        0             | true           | false
+    }
+
+    def 'lists the locales and densities of all resources, including bags'() {
+        when:
+        def table = ResourceTable.parse(new ResourceTableBuilder()
+            .add(LABEL, 'Now')
+            .add(language: 'fr', LABEL, 'Maintenant')
+            .add(language: 'es', region: '419', LABEL, 'Ahora')
+            .add(language: 'fil', region: 'PH', LABEL, 'Ngayon')
+            .add(language: 'sr', script: 'Latn', LABEL, 'Sada')
+            .add(language: 'de', THEME, bag())
+            .add(density: 320, ICON, 'xhdpi.png')
+            .add(density: 0xfffe, sdkVersion: 26, ICON, 'anydpi.xml')
+            .build())
+
+        then:
+        table.locales().toList() == ['', 'de', 'es-419', 'fil-PH', 'fr', 'sr-Latn']
+        table.densities().toList() == [160, 320, 0xfffe]
+    }
+
+    def 'resolves references to the value for the best matching locale'() {
+        given:
+        def table = ResourceTable.parse(new ResourceTableBuilder()
+            .add(LABEL, 'Now')
+            .add(language: 'fr', LABEL, 'Maintenant')
+            .add(language: 'fr', region: 'CA', LABEL, 'Asteure')
+            .add(LABEL_ALIAS, ref(LABEL))
+            .build())
+
+        expect:
+        table.resolve(new BinaryXml.Value(BinaryXml.TYPE_REFERENCE, LABEL_ALIAS, null), ResourceConfig.forLocale(locale)).string == label
+
+        where:
+        locale  | label
+        ''      | 'Now'
+        'de'    | 'Now'
+        'fr'    | 'Maintenant'
+        'fr-BE' | 'Maintenant'
+        'fr-CA' | 'Asteure'
+    }
+
+    def 'resolves references to the value for the best matching density'() {
+        given:
+        def table = ResourceTable.parse(new ResourceTableBuilder()
+            .add(density: 160, ICON, 'mdpi.png')
+            .add(density: 320, ICON, 'xhdpi.png')
+            .add(density: 640, ICON, 'xxxhdpi.png')
+            .build())
+
+        expect:
+        table.resolve(new BinaryXml.Value(BinaryXml.TYPE_REFERENCE, ICON, null), ResourceConfig.forDensity(density)).string == icon
+
+        where:
+        density | icon
+        120     | 'mdpi.png'
+        160     | 'mdpi.png'
+        240     | 'xhdpi.png'
+        320     | 'xhdpi.png'
+        480     | 'xxxhdpi.png'
+    }
+
+    def 'prefers any density and ignores configurations that do not match'() {
+        given:
+        def table = ResourceTable.parse(new ResourceTableBuilder()
+            .add(density: 480, ICON, 'xxhdpi.png')
+            .add(density: 0xfffe, sdkVersion: 26, ICON, 'adaptive.xml')
+            .add(uiMode: 0x20, LABEL, 'Night')
+            .add(LABEL, 'Day')
+            .build())
+
+        expect:
+        table.resolve(new BinaryXml.Value(BinaryXml.TYPE_REFERENCE, ICON, null), ResourceConfig.forDensity(120)).string == 'adaptive.xml'
+        table.resolve(new BinaryXml.Value(BinaryXml.TYPE_REFERENCE, LABEL, null), ResourceConfig.defaultConfig()).string == 'Day'
+    }
+
+    def 'does not resolve references to missing resources or bags'() {
+        given:
+        def table = ResourceTable.parse(new ResourceTableBuilder().add(THEME, bag()).build())
+
+        expect:
+        table.resolve(new BinaryXml.Value(BinaryXml.TYPE_REFERENCE, THEME, null), ResourceConfig.defaultConfig()) == null
+        table.resolve(new BinaryXml.Value(BinaryXml.TYPE_REFERENCE, LABEL, null), ResourceConfig.defaultConfig()) == null
+    }
+}
@@ -0,0 +1,39 @@
+package org.gradle.api.experimental.common;
+
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.attributes.AttributeContainer;
+import org.gradle.api.attributes.Category;
+import org.gradle.api.attributes.VerificationType;
+import org.gradle.api.initialization.ProjectDescriptor;
+import org.gradle.api.model.ObjectFactory;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Helpers for the root project reports that aggregate the outputs every project publishes with a consumable configuration,
+ * without reaching into the other projects' models.
+ */
+public final class AggregationSupport {
+    private AggregationSupport() { /* not instantiable */ }
+
+    /**
+     * Adds a dependency on {@code project} and all of its descendants in the settings to {@code configuration}.
+     * Projects that publish no matching variant are skipped by resolving the configuration leniently.
+     */
+    public static void addProjectDependencies(ProjectDescriptor project, Configuration configuration, Project rootProject) {
+        Map<String, String> path = Collections.singletonMap("path", project.getPath());
+        configuration.getDependencies().add(rootProject.getDependencies().project(path));
+        project.getChildren().forEach(child -> addProjectDependencies(child, configuration, rootProject));
+    }
+
+    /**
+     * Marks a variant as verification data of the given type. Each aggregate report uses its own type,
+     * so no report selects the variant of another one.
+     */
+    public static void verificationAttributes(AttributeContainer attributes, ObjectFactory objects, String verificationType) {
+        attributes.attribute(Category.CATEGORY_ATTRIBUTE, objects.named(Category.class, Category.VERIFICATION));
+        attributes.attribute(VerificationType.VERIFICATION_TYPE_ATTRIBUTE, objects.named(VerificationType.class, verificationType));
+    }
+}
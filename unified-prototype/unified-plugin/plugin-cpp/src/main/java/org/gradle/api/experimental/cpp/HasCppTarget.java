@@ -7,4 +7,16 @@ import org.gradle.declarative.dsl.model.annotations.Restricted;
 public interface HasCppTarget {
     @Restricted
     Property<String> getCppVersion();
+
+    /**
+     * Linker to use when linking binaries: one of {@code lld}, {@code gold} or {@code default}.
+     */
+    @Restricted
+    Property<String> getLinker();
+
+    /**
+     * Whether to emit debug info into separate {@code .dwo} files instead of the object files, so the linker does not have to process it.
+     */
+    @Restricted
+    Property<Boolean> getSplitDebugInfo();
 }
@@ -2,8 +2,8 @@ package org.gradle.api.experimental.cpp;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.experimental.cpp.internal.CppPluginSupport;
 import org.gradle.api.internal.plugins.software.SoftwareType;
-import org.gradle.language.cpp.CppBinary;
 import org.gradle.language.cpp.plugins.CppLibraryPlugin;
 
 public abstract class StandaloneCppLibraryPlugin implements Plugin<Project> {
@@ -16,6 +16,7 @@ public abstract class StandaloneCppLibraryPlugin implements Plugin<Project> {
     public void apply(Project target) {
         CppLibrary library = getLibrary();
         target.getExtensions().add(CPP_LIBRARY, library);
+        CppPluginSupport.setConventions(library);
 
         target.getPlugins().apply(CppLibraryPlugin.class);
 
@@ -28,10 +29,6 @@ public abstract class StandaloneCppLibraryPlugin implements Plugin<Project> {
         model.getImplementationDependencies().getDependencies().addAllLater(library.getDependencies().getImplementation().getDependencies());
         model.getApiDependencies().getDependencies().addAllLater(library.getDependencies().getApi().getDependencies());
 
-        project.getComponents().withType(org.gradle.language.cpp.CppLibrary.class).configureEach(libraryComponent ->
-            libraryComponent.getBinaries().configureEach(binary -> {
-                binary.getCompileTask().get().getCompilerArgs().add(library.getCppVersion().map(v -> "--std=" + v));
-            })
-        );
+        CppPluginSupport.linkCompileAndLinkOptions(project, library);
     }
 }
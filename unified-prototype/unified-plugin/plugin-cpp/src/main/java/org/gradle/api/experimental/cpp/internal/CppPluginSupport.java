@@ -0,0 +1,38 @@
+package org.gradle.api.experimental.cpp.internal;
+
+import org.gradle.api.Project;
+import org.gradle.api.experimental.cpp.HasCppTarget;
+import org.gradle.language.cpp.tasks.CppCompile;
+import org.gradle.nativeplatform.tasks.AbstractLinkTask;
+
+import java.util.Collections;
+import java.util.List;
+
+public class CppPluginSupport {
+    public static void setConventions(HasCppTarget component) {
+        component.getLinker().convention("default");
+        component.getSplitDebugInfo().convention(false);
+    }
+
+    public static void linkCompileAndLinkOptions(Project project, HasCppTarget component) {
+        project.getTasks().withType(CppCompile.class).configureEach(task -> {
+            task.getCompilerArgs().add(component.getCppVersion().map(v -> "--std=" + v));
+            task.getCompilerArgs().addAll(component.getSplitDebugInfo().map(split -> split ? Collections.singletonList("-gsplit-dwarf") : Collections.emptyList()));
+        });
+        project.getTasks().withType(AbstractLinkTask.class).configureEach(task ->
+            task.getLinkerArgs().addAll(component.getLinker().map(CppPluginSupport::linkerArgs))
+        );
+    }
+
+    private static List<String> linkerArgs(String linker) {
+        switch (linker) {
+            case "default":
+                return Collections.emptyList();
+            case "lld":
+            case "gold":
+                return Collections.singletonList("-fuse-ld=" + linker);
+            default:
+                throw new IllegalArgumentException("Unsupported linker " + linker);
+        }
+    }
+}
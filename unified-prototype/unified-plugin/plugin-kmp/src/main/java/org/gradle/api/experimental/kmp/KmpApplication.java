@@ -3,6 +3,7 @@ package org.gradle.api.experimental.kmp;
 import org.gradle.api.Action;
 import org.gradle.api.experimental.common.HasApplicationDependencies;
 import org.gradle.api.experimental.common.HasCliExecutables;
+import org.gradle.api.experimental.kotlin.HasKotlinCompiler;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Nested;
@@ -13,7 +14,7 @@ import org.gradle.declarative.dsl.model.annotations.Restricted;
  * The public DSL interface for a declarative KMP application.
  */
 @Restricted
-public interface KmpApplication extends HasApplicationDependencies, HasCliExecutables {
+public interface KmpApplication extends HasApplicationDependencies, HasCliExecutables, HasKotlinCompiler {
     @Input
     Property<String> getLanguageVersion();
 
@@ -24,4 +25,26 @@ public interface KmpApplication extends HasApplicationDependencies, HasCliExecut
     default void targets(Action<? super KmpApplicationTargetContainer> action) {
         action.execute(getTargets());
     }
+
+    /**
+     * Source set group shared by all native targets, backed by the {@code nativeMain} source set.
+     */
+    @Nested
+    KmpApplicationSourceSetGroup getSharedNative();
+
+    @Configuring
+    default void sharedNative(Action<? super KmpApplicationSourceSetGroup> action) {
+        action.execute(getSharedNative());
+    }
+
+    /**
+     * Source set group shared by all JS and native targets, backed by the {@code nonJvmMain} source set.
+     */
+    @Nested
+    KmpApplicationSourceSetGroup getNonJvm();
+
+    @Configuring
+    default void nonJvm(Action<? super KmpApplicationSourceSetGroup> action) {
+        action.execute(getNonJvm());
+    }
 }
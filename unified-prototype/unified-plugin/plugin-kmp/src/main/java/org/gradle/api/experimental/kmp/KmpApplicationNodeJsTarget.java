@@ -1,4 +1,20 @@
 package org.gradle.api.experimental.kmp;
 
+import org.gradle.api.provider.Property;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
 public interface KmpApplicationNodeJsTarget extends KmpApplicationTarget {
+    /**
+     * Output granularity of development binaries: one of {@code perModule}, {@code perFile} or {@code whole}.
+     * Production binaries are always linked as a whole program. The Kotlin plugin takes the granularity from the
+     * {@code kotlin.js.ir.output.granularity} property of the build, which this setting must match when it is set.
+     */
+    @Restricted
+    Property<String> getGranularity();
+
+    /**
+     * Whether development binaries are linked incrementally, reusing the output of unchanged modules.
+     */
+    @Restricted
+    Property<Boolean> getIncremental();
 }
@@ -0,0 +1,21 @@
+package org.gradle.api.experimental.kmp;
+
+import org.gradle.api.Action;
+import org.gradle.api.experimental.common.ApplicationDependencies;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Code and dependencies shared by a group of targets, compiled once to metadata instead of once per target.
+ */
+@Restricted
+public interface KmpApplicationSourceSetGroup {
+    @Nested
+    ApplicationDependencies getDependencies();
+
+    @Configuring
+    default void dependencies(Action<? super ApplicationDependencies> action) {
+        action.execute(getDependencies());
+    }
+}
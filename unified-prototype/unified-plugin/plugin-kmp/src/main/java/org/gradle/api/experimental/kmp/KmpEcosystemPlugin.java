@@ -1,12 +1,17 @@
 package org.gradle.api.experimental.kmp;
 
 import org.gradle.api.Plugin;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.experimental.common.AggregationSupport;
 import org.gradle.api.experimental.jvm.JvmEcosystemConventionsPlugin;
+import org.gradle.api.experimental.kmp.internal.KotlinPluginSupport;
 import org.gradle.api.experimental.kotlin.StandaloneKotlinJvmApplicationPlugin;
 import org.gradle.api.experimental.kotlin.StandaloneKotlinJvmLibraryPlugin;
+import org.gradle.api.experimental.kotlin.reports.AggregateKotlinBuildReportsTask;
+import org.gradle.api.experimental.kotlin.reports.KotlinCompileReportService;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.internal.plugins.software.RegistersSoftwareTypes;
-
+import org.gradle.api.provider.Provider;
 
 @RegistersSoftwareTypes({
         StandaloneKmpLibraryPlugin.class,
@@ -14,8 +19,33 @@ import org.gradle.api.internal.plugins.software.RegistersSoftwareTypes;
         StandaloneKotlinJvmLibraryPlugin.class,
         StandaloneKotlinJvmApplicationPlugin.class})
 public class KmpEcosystemPlugin implements Plugin<Settings> {
+    private static final String AGGREGATE_COMPILE_TASK_PATHS = "aggregateKotlinCompileTaskPaths";
+
     @Override
     public void apply(Settings target) {
         target.getPlugins().apply(JvmEcosystemConventionsPlugin.class);
+
+        target.getGradle().rootProject(rootProject -> {
+            Provider<KotlinCompileReportService> reportService = KotlinCompileReportService.register(rootProject.getGradle());
+            Configuration compileTaskPaths = rootProject.getConfigurations().create(AGGREGATE_COMPILE_TASK_PATHS, configuration -> {
+                configuration.setCanBeConsumed(false);
+                configuration.setCanBeResolved(true);
+                configuration.setVisible(false);
+                AggregationSupport.verificationAttributes(configuration.getAttributes(), rootProject.getObjects(), KotlinPluginSupport.COMPILE_TASK_PATHS);
+            });
+            AggregationSupport.addProjectDependencies(target.getRootProject(), compileTaskPaths, rootProject);
+
+            rootProject.getTasks().register("kotlinBuildReport", AggregateKotlinBuildReportsTask.class, task -> {
+                task.setGroup("help");
+                task.setDescription("Summarizes the Kotlin compile tasks run by the same build across all projects.");
+                task.getReportService().set(reportService);
+                task.usesService(reportService);
+                // Projects without Kotlin compile tasks publish no task paths, skip them instead of failing.
+                // Each project writes its paths after its compile tasks requested along with this task, so the report includes them
+                task.getCompileTaskPaths().from(compileTaskPaths.getIncoming().artifactView(view -> view.lenient(true)).getFiles());
+                task.getJsonReport().set(rootProject.getLayout().getBuildDirectory().file("reports/kotlin-build/summary.json"));
+                task.getHtmlReport().set(rootProject.getLayout().getBuildDirectory().file("reports/kotlin-build/index.html"));
+            });
+        });
     }
 }
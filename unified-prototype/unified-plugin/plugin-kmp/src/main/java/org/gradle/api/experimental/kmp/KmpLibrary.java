@@ -2,6 +2,7 @@ package org.gradle.api.experimental.kmp;
 
 import org.gradle.api.Action;
 import org.gradle.api.experimental.common.HasLibraryDependencies;
+import org.gradle.api.experimental.kotlin.HasKotlinCompiler;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.Nested;
@@ -12,7 +13,7 @@ import org.gradle.declarative.dsl.model.annotations.Restricted;
  * The public DSL interface for a declarative KMP library.
  */
 @Restricted
-public interface KmpLibrary extends HasLibraryDependencies {
+public interface KmpLibrary extends HasLibraryDependencies, HasKotlinCompiler {
     @Input
     Property<String> getLanguageVersion();
 
@@ -23,4 +24,26 @@ public interface KmpLibrary extends HasLibraryDependencies {
     default void targets(Action<? super KmpLibraryTargetContainer> action) {
         action.execute(getTargets());
     }
+
+    /**
+     * Source set group shared by all native targets, backed by the {@code nativeMain} source set.
+     */
+    @Nested
+    KmpLibrarySourceSetGroup getSharedNative();
+
+    @Configuring
+    default void sharedNative(Action<? super KmpLibrarySourceSetGroup> action) {
+        action.execute(getSharedNative());
+    }
+
+    /**
+     * Source set group shared by all JS and native targets, backed by the {@code nonJvmMain} source set.
+     */
+    @Nested
+    KmpLibrarySourceSetGroup getNonJvm();
+
+    @Configuring
+    default void nonJvm(Action<? super KmpLibrarySourceSetGroup> action) {
+        action.execute(getNonJvm());
+    }
 }
@@ -0,0 +1,21 @@
+package org.gradle.api.experimental.kmp;
+
+import org.gradle.api.Action;
+import org.gradle.api.experimental.common.LibraryDependencies;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Code and dependencies shared by a group of targets, compiled once to metadata instead of once per target.
+ */
+@Restricted
+public interface KmpLibrarySourceSetGroup {
+    @Nested
+    LibraryDependencies getDependencies();
+
+    @Configuring
+    default void dependencies(Action<? super LibraryDependencies> action) {
+        action.execute(getDependencies());
+    }
+}
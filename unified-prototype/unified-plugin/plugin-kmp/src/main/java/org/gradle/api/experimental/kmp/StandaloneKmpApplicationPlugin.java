@@ -1,18 +1,19 @@
 package org.gradle.api.experimental.kmp;
 
 import kotlin.Unit;
-import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.experimental.common.CliApplicationConventionsPlugin;
 import org.gradle.api.experimental.kmp.internal.KotlinPluginSupport;
 import org.gradle.api.internal.plugins.software.SoftwareType;
-import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.AbstractExecTask;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.build.event.BuildEventsListenerRegistry;
 import org.jetbrains.kotlin.gradle.dsl.JvmTarget;
 import org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension;
 
+import javax.inject.Inject;
+
 /**
  * Creates a declarative {@link KmpApplication} DSL model, applies the official KMP plugin,
  * and links the declarative model to the official plugin.
@@ -24,48 +25,19 @@ abstract public class StandaloneKmpApplicationPlugin implements Plugin<Project>
     @SoftwareType(name = KOTLIN_APPLICATION, modelPublicType = KmpApplication.class)
     abstract public KmpApplication getKmpApplication();
 
+    @Inject
+    abstract protected BuildEventsListenerRegistry getBuildEventsListenerRegistry();
+
     @Override
     public void apply(Project project) {
         KmpApplication dslModel = createDslModel(project);
         project.getExtensions().add(KOTLIN_APPLICATION, dslModel);
 
-        project.afterEvaluate(p -> linkDslModelToPlugin(p, dslModel));
-
         // Apply the official KMP plugin
         project.getPlugins().apply("org.jetbrains.kotlin.multiplatform");
         project.getPlugins().apply(CliApplicationConventionsPlugin.class);
 
-        linkDslModelToPluginLazy(project, dslModel);
-    }
-
-    /**
-     * Performs linking actions that must occur within an afterEvaluate block.
-     */
-    private void linkDslModelToPlugin(Project project, KmpApplication dslModel) {
-        KotlinMultiplatformExtension kotlin = project.getExtensions().getByType(KotlinMultiplatformExtension.class);
-
-        // Link common properties
-        kotlin.getSourceSets().configureEach(sourceSet -> {
-            sourceSet.languageSettings(languageSettings -> {
-                ifPresent(dslModel.getLanguageVersion(), languageSettings::setLanguageVersion);
-                ifPresent(dslModel.getLanguageVersion(), languageSettings::setApiVersion);
-            });
-        });
-
-        // Link Native targets
-        dslModel.getTargets().withType(KmpApplicationNativeTarget.class).all(target -> {
-            kotlin.macosArm64(target.getName(), kotlinTarget -> {
-                kotlinTarget.binaries(nativeBinaries -> {
-                    nativeBinaries.executable(executable -> {
-                        executable.entryPoint(target.getEntryPoint().get());
-                        TaskProvider<AbstractExecTask<?>> runTask = executable.getRunTaskProvider();
-                        if (runTask != null) {
-                            dslModel.getRunTasks().add(runTask);
-                        }
-                    });
-                });
-            });
-        });
+        linkDslModelToPlugin(project, dslModel);
     }
 
     private KmpApplication createDslModel(Project project) {
@@ -80,15 +52,22 @@ abstract public class StandaloneKmpApplicationPlugin implements Plugin<Project>
         return dslModel;
     }
 
-    /**
-     * Performs linking actions that do not need to occur within an afterEvaluate block.
-     */
-    private void linkDslModelToPluginLazy(Project project, KmpApplication dslModel) {
+    private void linkDslModelToPlugin(Project project, KmpApplication dslModel) {
         KotlinMultiplatformExtension kotlin = project.getExtensions().getByType(KotlinMultiplatformExtension.class);
 
+        // Link common properties
+        KotlinPluginSupport.linkLanguageVersion(kotlin, dslModel.getLanguageVersion());
+        KotlinPluginSupport.linkCompiler(project, dslModel);
+        KotlinPluginSupport.enableBuildReports(project, getBuildEventsListenerRegistry());
+
         // Link common dependencies
         KotlinPluginSupport.linkSourceSetToDependencies(project, kotlin.getSourceSets().getByName("commonMain"), dslModel.getDependencies());
 
+        // Link intermediate source set groups
+        KotlinPluginSupport.applyHierarchyTemplate(kotlin);
+        KotlinPluginSupport.linkSourceSetGroupToDependencies(kotlin, "nativeMain", sourceSet -> KotlinPluginSupport.linkSourceSetToDependencies(project, sourceSet, dslModel.getSharedNative().getDependencies()));
+        KotlinPluginSupport.linkSourceSetGroupToDependencies(kotlin, "nonJvmMain", sourceSet -> KotlinPluginSupport.linkSourceSetToDependencies(project, sourceSet, dslModel.getNonJvm().getDependencies()));
+
         // Link JVM targets
         dslModel.getTargets().withType(KmpApplicationJvmTarget.class).all(target -> {
             kotlin.jvm(target.getName(), kotlinTarget -> {
@@ -112,8 +91,10 @@ abstract public class StandaloneKmpApplicationPlugin implements Plugin<Project>
 
         // Link JS targets
         dslModel.getTargets().withType(KmpApplicationNodeJsTarget.class).all(target -> {
+            target.getIncremental().convention(true);
             kotlin.js(target.getName(), kotlinTarget -> {
                 kotlinTarget.nodejs();
+                KotlinPluginSupport.linkNodeJsBinaries(project, kotlinTarget, target.getGranularity(), target.getIncremental());
                 KotlinPluginSupport.linkSourceSetToDependencies(
                         project,
                         kotlinTarget.getCompilations().getByName("main").getDefaultSourceSet(),
@@ -124,20 +105,28 @@ abstract public class StandaloneKmpApplicationPlugin implements Plugin<Project>
 
         // Link Native targets
         dslModel.getTargets().withType(KmpApplicationNativeTarget.class).all(target -> {
+            if (!KotlinPluginSupport.canBuildMacOsTargets()) {
+                KotlinPluginSupport.registerUnsupportedTargetStub(project, target.getName());
+                return;
+            }
             kotlin.macosArm64(target.getName(), kotlinTarget -> {
                 KotlinPluginSupport.linkSourceSetToDependencies(
                         project,
                         kotlinTarget.getCompilations().getByName("main").getDefaultSourceSet(),
                         target.getDependencies()
                 );
+                kotlinTarget.binaries(nativeBinaries -> {
+                    nativeBinaries.executable(executable -> {
+                        // The entry point is a plain value of the binary, only read by the link task when it runs,
+                        // so set it once the DSL has been evaluated, when the link task is configured
+                        executable.getLinkTaskProvider().configure(task -> executable.entryPoint(target.getEntryPoint().getOrNull()));
+                        TaskProvider<AbstractExecTask<?>> runTask = executable.getRunTaskProvider();
+                        if (runTask != null) {
+                            dslModel.getRunTasks().add(runTask);
+                        }
+                    });
+                });
             });
         });
     }
-
-    private static <T> void ifPresent(Property<T> property, Action<T> action) {
-        if (property.isPresent()) {
-            action.execute(property.get());
-        }
-    }
-
 }
@@ -1,14 +1,15 @@
 package org.gradle.api.experimental.kmp;
 
-import org.gradle.api.Action;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.experimental.kmp.internal.KotlinPluginSupport;
 import org.gradle.api.internal.plugins.software.SoftwareType;
-import org.gradle.api.provider.Property;
+import org.gradle.build.event.BuildEventsListenerRegistry;
 import org.jetbrains.kotlin.gradle.dsl.JvmTarget;
 import org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension;
 
+import javax.inject.Inject;
+
 /**
  * Creates a declarative {@link KmpLibrary} DSL model, applies the official KMP plugin,
  * and links the declarative model to the official plugin.
@@ -20,17 +21,18 @@ abstract public class StandaloneKmpLibraryPlugin implements Plugin<Project> {
     @SoftwareType(name = KOTLIN_LIBRARY, modelPublicType = KmpLibrary.class)
     abstract public KmpLibrary getKmpLibrary();
 
+    @Inject
+    abstract protected BuildEventsListenerRegistry getBuildEventsListenerRegistry();
+
     @Override
     public void apply(Project project) {
         KmpLibrary dslModel = createDslModel(project);
         project.getExtensions().add(KOTLIN_LIBRARY, dslModel);
 
-        project.afterEvaluate(p -> linkDslModelToPlugin(p, dslModel));
-
         // Apply the official KMP plugin
         project.getPlugins().apply("org.jetbrains.kotlin.multiplatform");
 
-        linkDslModelToPluginLazy(project, dslModel);
+        linkDslModelToPlugin(project, dslModel);
     }
 
     private KmpLibrary createDslModel(Project project) {
@@ -46,37 +48,22 @@ abstract public class StandaloneKmpLibraryPlugin implements Plugin<Project> {
         return dslModel;
     }
 
-    /**
-     * Performs linking actions that must occur within an afterEvaluate block.
-     */
     private void linkDslModelToPlugin(Project project, KmpLibrary dslModel) {
         KotlinMultiplatformExtension kotlin = project.getExtensions().getByType(KotlinMultiplatformExtension.class);
 
         // Link common properties
-        kotlin.getSourceSets().configureEach(sourceSet -> {
-            sourceSet.languageSettings(languageSettings -> {
-                ifPresent(dslModel.getLanguageVersion(), languageSettings::setLanguageVersion);
-                ifPresent(dslModel.getLanguageVersion(), languageSettings::setApiVersion);
-            });
-        });
-
-        // TODO - figure out how to get rid of this task
-        project.getTasks().configureEach(task -> {
-            if (task.getName().equals("jvmRun")) {
-                task.setEnabled(false);
-            }
-        });
-    }
-
-    /**
-     * Performs linking actions that do not need to occur within an afterEvaluate block.
-     */
-    private void linkDslModelToPluginLazy(Project project, KmpLibrary dslModel) {
-        KotlinMultiplatformExtension kotlin = project.getExtensions().getByType(KotlinMultiplatformExtension.class);
+        KotlinPluginSupport.linkLanguageVersion(kotlin, dslModel.getLanguageVersion());
+        KotlinPluginSupport.linkCompiler(project, dslModel);
+        KotlinPluginSupport.enableBuildReports(project, getBuildEventsListenerRegistry());
 
         // Link common dependencies
         KotlinPluginSupport.linkSourceSetToDependencies(project, kotlin.getSourceSets().getByName("commonMain"), dslModel.getDependencies());
 
+        // Link intermediate source set groups
+        KotlinPluginSupport.applyHierarchyTemplate(kotlin);
+        KotlinPluginSupport.linkSourceSetGroupToDependencies(kotlin, "nativeMain", sourceSet -> KotlinPluginSupport.linkSourceSetToDependencies(project, sourceSet, dslModel.getSharedNative().getDependencies()));
+        KotlinPluginSupport.linkSourceSetGroupToDependencies(kotlin, "nonJvmMain", sourceSet -> KotlinPluginSupport.linkSourceSetToDependencies(project, sourceSet, dslModel.getNonJvm().getDependencies()));
+
         // Link JVM targets
         dslModel.getTargets().withType(KmpLibraryJvmTarget.class).all(target -> {
             kotlin.jvm(target.getName(), kotlinTarget -> {
@@ -89,12 +76,17 @@ abstract public class StandaloneKmpLibraryPlugin implements Plugin<Project> {
                     compilation.getCompilerOptions().getOptions().getJvmTarget().set(target.getJdkVersion().map(value -> JvmTarget.Companion.fromTarget(String.valueOf(value))));
                 });
             });
+
+            // TODO - figure out how to get rid of this task
+            project.getTasks().named(name -> name.equals(target.getName() + "Run")).configureEach(task -> task.setEnabled(false));
         });
 
         // Link JS targets
         dslModel.getTargets().withType(KmpLibraryNodeJsTarget.class).all(target -> {
+            target.getIncremental().convention(true);
             kotlin.js(target.getName(), kotlinTarget -> {
                 kotlinTarget.nodejs();
+                KotlinPluginSupport.linkNodeJsBinaries(project, kotlinTarget, target.getGranularity(), target.getIncremental());
                 KotlinPluginSupport.linkSourceSetToDependencies(
                         project,
                         kotlinTarget.getCompilations().getByName("main").getDefaultSourceSet(),
@@ -105,6 +97,10 @@ abstract public class StandaloneKmpLibraryPlugin implements Plugin<Project> {
 
         // Link Native targets
         dslModel.getTargets().withType(KmpLibraryNativeTarget.class).all(target -> {
+            if (!KotlinPluginSupport.canBuildMacOsTargets()) {
+                KotlinPluginSupport.registerUnsupportedTargetStub(project, target.getName());
+                return;
+            }
             kotlin.macosArm64(target.getName(), kotlinTarget -> {
                 KotlinPluginSupport.linkSourceSetToDependencies(
                         project,
@@ -113,12 +109,5 @@ abstract public class StandaloneKmpLibraryPlugin implements Plugin<Project> {
                 );
             });
         });
-
-    }
-
-    private static <T> void ifPresent(Property<T> property, Action<T> action) {
-        if (property.isPresent()) {
-            action.execute(property.get());
-        }
     }
 }
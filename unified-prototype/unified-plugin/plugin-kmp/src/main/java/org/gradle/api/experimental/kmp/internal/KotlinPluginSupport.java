@@ -1,19 +1,198 @@
 package org.gradle.api.experimental.kmp.internal;
 
+import org.gradle.api.Action;
 import org.gradle.api.Project;
+import org.gradle.api.experimental.common.AggregationSupport;
 import org.gradle.api.experimental.common.ApplicationDependencies;
 import org.gradle.api.experimental.common.LibraryDependencies;
 import org.gradle.api.experimental.jvm.HasJavaTarget;
+import org.gradle.api.experimental.kotlin.HasKotlinCompiler;
+import org.gradle.api.experimental.kotlin.KotlinCompiler;
+import org.gradle.api.experimental.kotlin.reports.KotlinCompileReportService;
+import org.gradle.api.experimental.kotlin.reports.KotlinCompileTaskPathsTask;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.build.event.BuildEventsListenerRegistry;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.jvm.toolchain.JavaLanguageVersion;
 import org.jetbrains.kotlin.gradle.dsl.KotlinJvmProjectExtension;
+import org.jetbrains.kotlin.gradle.dsl.KotlinMultiplatformExtension;
+import org.jetbrains.kotlin.gradle.dsl.KotlinVersion;
 import org.jetbrains.kotlin.gradle.plugin.KotlinSourceSet;
+import org.jetbrains.kotlin.gradle.plugin.mpp.KotlinNativeTarget;
+import org.jetbrains.kotlin.gradle.targets.js.dsl.KotlinJsBinaryMode;
+import org.jetbrains.kotlin.gradle.targets.js.dsl.KotlinJsTargetDsl;
+import org.jetbrains.kotlin.gradle.targets.js.ir.JsIrBinary;
+import org.jetbrains.kotlin.gradle.tasks.AbstractKotlinCompile;
+import org.jetbrains.kotlin.gradle.tasks.CompileUsingKotlinDaemon;
+import org.jetbrains.kotlin.gradle.tasks.KotlinCompilationTask;
+import org.jetbrains.kotlin.gradle.tasks.KotlinCompilerExecutionStrategy;
+
+import java.util.Collections;
+import java.util.stream.Collectors;
 
 public class KotlinPluginSupport {
+    public static final String COMPILE_TASK_PATHS = "kotlin-compile-task-paths";
+    private static final String COMPILE_TASK_PATHS_ELEMENTS = "kotlinCompileTaskPathsElements";
+    private static final String JS_OUTPUT_GRANULARITY = "kotlin.js.ir.output.granularity";
+
+    /**
+     * Links the compiler settings set in the DSL to every Kotlin compile task created by the Kotlin plugins.
+     * The settings are read when a task is configured, once the build script has been evaluated. Settings left unset keep the values
+     * the Kotlin plugin derives from {@code gradle.properties}.
+     */
+    @SuppressWarnings("deprecation")
+    public static void linkCompiler(Project project, HasKotlinCompiler dslModel) {
+        KotlinCompiler compiler = dslModel.getCompiler();
+        project.getTasks().withType(CompileUsingKotlinDaemon.class).configureEach(task -> {
+            if (compiler.getExecutionStrategy().isPresent()) {
+                task.getCompilerExecutionStrategy().set(toExecutionStrategy(compiler.getExecutionStrategy().get()));
+            }
+            // Appended, so the daemon arguments the Kotlin plugin sets as a convention are kept
+            task.getKotlinDaemonJvmArguments().appendAll(compiler.getDaemonHeap().map(heap -> Collections.singletonList("-Xmx" + heap)).orElse(Collections.emptyList()));
+        });
+        project.getTasks().withType(KotlinCompilationTask.class).configureEach(task -> {
+            if (compiler.getUseK2().isPresent()) {
+                task.getCompilerOptions().getUseK2().set(compiler.getUseK2().get());
+            }
+        });
+        project.getTasks().withType(AbstractKotlinCompile.class).configureEach(task -> {
+            if (compiler.getIncremental().isPresent()) {
+                task.setIncremental(compiler.getIncremental().get());
+            }
+        });
+    }
+
+    /**
+     * Records the outcome of the tasks of the build, for the Kotlin compile tasks to be summarized by the root project's {@code kotlinBuildReport} task.
+     * The paths of the project's Kotlin compile tasks are published as a variant of the {@value #COMPILE_TASK_PATHS} verification type for the report to pick them.
+     */
+    public static void enableBuildReports(Project project, BuildEventsListenerRegistry listenerRegistry) {
+        listenerRegistry.onTaskCompletion(KotlinCompileReportService.register(project.getGradle()));
+
+        TaskProvider<KotlinCompileTaskPathsTask> compileTaskPaths = project.getTasks().register("kotlinCompileTaskPaths", KotlinCompileTaskPathsTask.class, task -> {
+            task.getCompileTaskPaths().set(project.provider(() -> project.getTasks().withType(KotlinCompilationTask.class).getNames().stream().map(project::absoluteProjectPath).collect(Collectors.toSet())));
+            task.getOutput().set(project.getLayout().getBuildDirectory().file("intermediates/kotlinCompileTaskPaths/paths.txt"));
+            // Runs after the compile tasks requested along with the report, so the report can include them
+            task.mustRunAfter(project.getTasks().withType(KotlinCompilationTask.class));
+        });
+        project.getConfigurations().create(COMPILE_TASK_PATHS_ELEMENTS, configuration -> {
+            configuration.setCanBeConsumed(true);
+            configuration.setCanBeResolved(false);
+            configuration.setDescription("Paths of the Kotlin compile tasks of this project.");
+            AggregationSupport.verificationAttributes(configuration.getAttributes(), project.getObjects(), COMPILE_TASK_PATHS);
+            configuration.getOutgoing().artifact(compileTaskPaths.flatMap(KotlinCompileTaskPathsTask::getOutput));
+        });
+    }
+
+    /**
+     * Links the incremental setting to the development binaries of a JS target, when their link tasks are configured.
+     * Production binaries are linked non-incrementally so they keep whole-program optimization.
+     * <p>
+     * The Kotlin plugin reads the output granularity of a link task from the {@code kotlin.js.ir.output.granularity} property when it
+     * creates the task, and cannot change it afterwards, so a granularity set in the DSL is only checked against that property.
+     */
+    public static void linkNodeJsBinaries(Project project, KotlinJsTargetDsl kotlinTarget, Property<String> granularity, Property<Boolean> incremental) {
+        Provider<String> buildGranularity = project.getProviders().gradleProperty(JS_OUTPUT_GRANULARITY).orElse("per-module");
+        kotlinTarget.getBinaries().withType(JsIrBinary.class).configureEach(binary ->
+            binary.getLinkTask().configure(task -> {
+                if (granularity.isPresent() && !jsOutputGranularity(granularity.get()).equals(buildGranularity.get())) {
+                    throw new IllegalArgumentException("The " + kotlinTarget.getName() + " target of " + project + " uses the " + granularity.get()
+                            + " granularity, set " + JS_OUTPUT_GRANULARITY + "=" + jsOutputGranularity(granularity.get()) + " in gradle.properties to link it that way");
+                }
+                task.setIncremental(binary.getMode() != KotlinJsBinaryMode.PRODUCTION && incremental.get());
+            })
+        );
+    }
+
+    private static String jsOutputGranularity(String granularity) {
+        switch (granularity) {
+            case "perModule":
+                return "per-module";
+            case "perFile":
+                return "per-file";
+            case "whole":
+                return "whole-program";
+            default:
+                throw new IllegalArgumentException("Unsupported JS output granularity " + granularity);
+        }
+    }
+
+    private static KotlinCompilerExecutionStrategy toExecutionStrategy(String strategy) {
+        switch (strategy) {
+            case "daemon":
+                return KotlinCompilerExecutionStrategy.DAEMON;
+            case "inProcess":
+                return KotlinCompilerExecutionStrategy.IN_PROCESS;
+            case "outOfProcess":
+                return KotlinCompilerExecutionStrategy.OUT_OF_PROCESS;
+            default:
+                throw new IllegalArgumentException("Unsupported Kotlin compiler execution strategy " + strategy);
+        }
+    }
+
     public static void linkJavaVersion(Project project, HasJavaTarget dslModel) {
         KotlinJvmProjectExtension kotlin = project.getExtensions().getByType(KotlinJvmProjectExtension.class);
         kotlin.jvmToolchain(spec -> spec.getLanguageVersion().set(dslModel.getJavaVersion().map(JavaLanguageVersion::of)));
     }
 
+    /**
+     * Links the language and API version of every compilation, including the metadata compilations, to the given version.
+     */
+    public static void linkLanguageVersion(KotlinMultiplatformExtension kotlin, Property<String> languageVersion) {
+        Provider<KotlinVersion> version = languageVersion.map(KotlinVersion.Companion::fromVersion);
+        kotlin.getTargets().configureEach(target -> target.getCompilations().configureEach(compilation -> {
+            compilation.getCompilerOptions().getOptions().getLanguageVersion().set(version);
+            compilation.getCompilerOptions().getOptions().getApiVersion().set(version);
+        }));
+    }
+
+    /**
+     * Returns whether Kotlin/Native macOS targets can be built on the current host.
+     */
+    public static boolean canBuildMacOsTargets() {
+        return OperatingSystem.current().isMacOsX();
+    }
+
+    /**
+     * Registers a disabled placeholder in place of a native target that cannot be built on the current host,
+     * so that the Kotlin/Native compilations and toolchain for it are never configured.
+     */
+    public static void registerUnsupportedTargetStub(Project project, String targetName) {
+        project.getTasks().register(targetName + "Binaries", task -> {
+            task.setGroup("build");
+            task.setDescription("Placeholder for the " + targetName + " target, which cannot be built on this host.");
+            task.setEnabled(false);
+        });
+    }
+
+    /**
+     * Applies the default source set hierarchy, which shares code between native targets in {@code nativeMain}, {@code appleMain},
+     * {@code macosMain} and so on, and adds a {@code nonJvmMain} source set shared by the JS and native targets, so that code shared
+     * by several targets is compiled to metadata once rather than once per target.
+     */
+    public static void applyHierarchyTemplate(KotlinMultiplatformExtension kotlin) {
+        // Applying the default template explicitly keeps it in place along with the extra dependsOn edges below
+        kotlin.applyDefaultHierarchyTemplate();
+        kotlin.getTargets().configureEach(target -> {
+            if (!(target instanceof KotlinJsTargetDsl) && !(target instanceof KotlinNativeTarget)) {
+                return;
+            }
+            KotlinSourceSet nonJvmMain = kotlin.getSourceSets().maybeCreate("nonJvmMain");
+            nonJvmMain.dependsOn(kotlin.getSourceSets().getByName("commonMain"));
+            target.getCompilations().getByName("main").getDefaultSourceSet().dependsOn(nonJvmMain);
+        });
+    }
+
+    /**
+     * Links the dependencies of a group of targets to the source set shared by the group, once that source set exists.
+     * Group source sets are only created when a matching target exists.
+     */
+    public static void linkSourceSetGroupToDependencies(KotlinMultiplatformExtension kotlin, String sourceSetName, Action<? super KotlinSourceSet> linkDependencies) {
+        kotlin.getSourceSets().named(name -> name.equals(sourceSetName)).configureEach(linkDependencies);
+    }
+
     public static void linkSourceSetToDependencies(Project project, KotlinSourceSet sourceSet, LibraryDependencies dependencies) {
         project.getConfigurations().getByName(sourceSet.getImplementationConfigurationName())
                 .getDependencies().addAllLater(dependencies.getImplementation().getDependencies());
@@ -0,0 +1,17 @@
+package org.gradle.api.experimental.kotlin;
+
+import org.gradle.api.Action;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+@Restricted
+public interface HasKotlinCompiler {
+    @Nested
+    KotlinCompiler getCompiler();
+
+    @Configuring
+    default void compiler(Action<? super KotlinCompiler> action) {
+        action.execute(getCompiler());
+    }
+}
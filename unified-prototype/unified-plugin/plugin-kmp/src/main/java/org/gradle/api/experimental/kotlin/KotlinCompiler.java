@@ -0,0 +1,29 @@
+package org.gradle.api.experimental.kotlin;
+
+import org.gradle.api.provider.Property;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Performance settings for the Kotlin compiler used by the compile tasks of a project.
+ * Settings that are not set keep the values the Kotlin plugin reads from {@code gradle.properties}.
+ */
+@Restricted
+public interface KotlinCompiler {
+    /**
+     * Where the compiler runs: one of {@code daemon}, {@code inProcess} or {@code outOfProcess}.
+     */
+    @Restricted
+    Property<String> getExecutionStrategy();
+
+    /**
+     * Maximum heap size of the Kotlin daemon, for example {@code 2g}.
+     */
+    @Restricted
+    Property<String> getDaemonHeap();
+
+    @Restricted
+    Property<Boolean> getIncremental();
+
+    @Restricted
+    Property<Boolean> getUseK2();
+}
@@ -13,7 +13,7 @@ import org.gradle.declarative.dsl.model.annotations.Restricted;
  * An application implemented using Kotlin and that targets a single JVM version.
  */
 @Restricted
-public interface KotlinJvmApplication extends HasJavaTarget, HasJvmApplication, HasCliExecutables {
+public interface KotlinJvmApplication extends HasJavaTarget, HasJvmApplication, HasCliExecutables, HasKotlinCompiler {
     @Nested
     Testing getTesting();
 
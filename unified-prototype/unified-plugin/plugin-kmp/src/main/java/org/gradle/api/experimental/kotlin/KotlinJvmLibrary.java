@@ -14,7 +14,7 @@ import org.gradle.declarative.dsl.model.annotations.Restricted;
  * A library implemented using Kotlin and that targets a single JVM version.
  */
 @Restricted
-public interface KotlinJvmLibrary extends HasJavaTarget, HasLibraryDependencies, HasLinting {
+public interface KotlinJvmLibrary extends HasJavaTarget, HasLibraryDependencies, HasLinting, HasKotlinCompiler {
     @Override
     @Nested
     Lint getLint();
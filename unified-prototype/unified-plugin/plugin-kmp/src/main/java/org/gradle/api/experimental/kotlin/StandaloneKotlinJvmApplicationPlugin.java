@@ -8,6 +8,9 @@ import org.gradle.api.experimental.jvm.internal.JvmPluginSupport;
 import org.gradle.api.experimental.kmp.internal.KotlinPluginSupport;
 import org.gradle.api.internal.plugins.software.SoftwareType;
 import org.gradle.api.plugins.ApplicationPlugin;
+import org.gradle.build.event.BuildEventsListenerRegistry;
+
+import javax.inject.Inject;
 
 /**
  * Creates a declarative {@link KotlinJvmApplication} DSL model, applies the official Kotlin and application plugin,
@@ -21,6 +24,9 @@ abstract public class StandaloneKotlinJvmApplicationPlugin implements Plugin<Pro
     @SoftwareType(name = KOTLIN_JVM_APPLICATION, modelPublicType = KotlinJvmApplication.class)
     abstract public KotlinJvmApplication getApplication();
 
+    @Inject
+    abstract protected BuildEventsListenerRegistry getBuildEventsListenerRegistry();
+
     @Override
     public void apply(Project project) {
         KotlinJvmApplication dslModel = getApplication();
@@ -35,6 +41,8 @@ abstract public class StandaloneKotlinJvmApplicationPlugin implements Plugin<Pro
 
     private void linkDslModelToPlugin(Project project, KotlinJvmApplication dslModel) {
         KotlinPluginSupport.linkJavaVersion(project, dslModel);
+        KotlinPluginSupport.linkCompiler(project, dslModel);
+        KotlinPluginSupport.enableBuildReports(project, getBuildEventsListenerRegistry());
         JvmPluginSupport.linkApplicationMainClass(project, dslModel);
         JvmPluginSupport.linkMainSourceSourceSetDependencies(project, dslModel.getDependencies());
         configureTesting(project, dslModel);
@@ -7,6 +7,9 @@ import org.gradle.api.experimental.common.extensions.LintSupport;
 import org.gradle.api.experimental.jvm.internal.JvmPluginSupport;
 import org.gradle.api.experimental.kmp.internal.KotlinPluginSupport;
 import org.gradle.api.internal.plugins.software.SoftwareType;
+import org.gradle.build.event.BuildEventsListenerRegistry;
+
+import javax.inject.Inject;
 
 /**
  * Creates a declarative {@link KotlinJvmApplication} DSL model, applies the official Kotlin and application plugin,
@@ -20,6 +23,9 @@ abstract public class StandaloneKotlinJvmLibraryPlugin implements Plugin<Project
     @SoftwareType(name = KOTLIN_JVM_LIBRARY, modelPublicType = KotlinJvmLibrary.class)
     abstract public KotlinJvmLibrary getLibrary();
 
+    @Inject
+    abstract protected BuildEventsListenerRegistry getBuildEventsListenerRegistry();
+
     @Override
     public void apply(Project project) {
         KotlinJvmLibrary dslModel = getLibrary();
@@ -37,6 +43,8 @@ abstract public class StandaloneKotlinJvmLibraryPlugin implements Plugin<Project
 
     private void linkDslModelToPlugin(Project project, KotlinJvmLibrary dslModel) {
         KotlinPluginSupport.linkJavaVersion(project, dslModel);
+        KotlinPluginSupport.linkCompiler(project, dslModel);
+        KotlinPluginSupport.enableBuildReports(project, getBuildEventsListenerRegistry());
         JvmPluginSupport.linkMainSourceSourceSetDependencies(project, dslModel.getDependencies());
 
         LintSupport.configureLint(project, dslModel);
@@ -0,0 +1,145 @@
+package org.gradle.api.experimental.kotlin.reports;
+
+import groovy.json.JsonOutput;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.UntrackedTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Merges the records kept by {@link KotlinCompileReportService} for the Kotlin compile tasks of the current build into
+ * a single JSON and HTML summary for the whole build, with the slowest compile tasks first.
+ */
+@UntrackedTask(because = "Summarizes the compile tasks run by the current build")
+public abstract class AggregateKotlinBuildReportsTask extends DefaultTask {
+    @Internal
+    public abstract Property<KotlinCompileReportService> getReportService();
+
+    /**
+     * Files listing the paths of the Kotlin compile tasks of each project, as written by {@link KotlinCompileTaskPathsTask}.
+     */
+    @PathSensitive(PathSensitivity.NONE)
+    @InputFiles
+    public abstract ConfigurableFileCollection getCompileTaskPaths();
+
+    @OutputFile
+    public abstract RegularFileProperty getJsonReport();
+
+    @OutputFile
+    public abstract RegularFileProperty getHtmlReport();
+
+    @TaskAction
+    public void taskAction() {
+        List<Map<String, Object>> tasks = getReportService().get().getRecords(readCompileTaskPaths());
+        tasks.sort(Comparator.comparing((Map<String, Object> task) -> ((Number) task.get("durationMs")).longValue()).reversed());
+
+        Map<String, Long> durationByProject = new TreeMap<>();
+        for (Map<String, Object> task : tasks) {
+            durationByProject.merge((String) task.get("project"), ((Number) task.get("durationMs")).longValue(), Long::sum);
+        }
+        List<Map<String, Object>> projects = new ArrayList<>();
+        durationByProject.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> {
+                    Map<String, Object> project = new LinkedHashMap<>();
+                    project.put("project", entry.getKey());
+                    project.put("durationMs", entry.getValue());
+                    projects.add(project);
+                });
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("projects", projects);
+        summary.put("tasks", tasks);
+
+        try {
+            Files.write(getJsonReport().get().getAsFile().toPath(), JsonOutput.prettyPrint(JsonOutput.toJson(summary)).getBytes(StandardCharsets.UTF_8));
+            Files.write(getHtmlReport().get().getAsFile().toPath(), renderHtml(projects, tasks).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write Kotlin build report", e);
+        }
+        getLogger().lifecycle("Kotlin build report written to " + getHtmlReport().get().getAsFile().toURI());
+    }
+
+    private Set<String> readCompileTaskPaths() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (File file : getCompileTaskPaths().getFiles()) {
+            try {
+                paths.addAll(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return paths;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String renderHtml(List<Map<String, Object>> projects, List<Map<String, Object>> tasks) {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Kotlin build report</title>\n");
+        html.append("<style>table{border-collapse:collapse}th,td{border:1px solid #ccc;padding:4px 8px;text-align:left}th{cursor:pointer}</style>\n");
+        html.append("</head>\n<body>\n<h1>Kotlin build report</h1>\n");
+
+        html.append("<h2>Projects</h2>\n<table class=\"sortable\">\n<tr><th>Project</th><th>Compile time (ms)</th></tr>\n");
+        for (Map<String, Object> project : projects) {
+            html.append("<tr><td>").append(escape(project.get("project"))).append("</td><td>").append(project.get("durationMs")).append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+
+        html.append("<h2>Tasks</h2>\n<table class=\"sortable\">\n<tr><th>Task</th><th>Compile time (ms)</th><th>Outcome</th><th>Incremental</th><th>Rebuild reasons</th></tr>\n");
+        for (Map<String, Object> task : tasks) {
+            Object reasons = task.get("executionReasons");
+            html.append("<tr><td>").append(escape(task.get("path")))
+                    .append("</td><td>").append(task.get("durationMs"))
+                    .append("</td><td>").append(escape(task.get("outcome")))
+                    .append("</td><td>").append(task.containsKey("incremental") ? task.get("incremental") : "")
+                    .append("</td><td>").append(reasons != null ? escape(String.join("; ", (List<String>) reasons)) : "")
+                    .append("</td></tr>\n");
+        }
+        html.append("</table>\n");
+
+        // Clicking a column header sorts the table by that column
+        html.append("<script>\n")
+                .append("document.querySelectorAll('table.sortable th').forEach(function (th, column) {\n")
+                .append("  th.addEventListener('click', function () {\n")
+                .append("    var table = th.closest('table');\n")
+                .append("    var rows = Array.from(table.rows).slice(1);\n")
+                .append("    var descending = th.dataset.order !== 'desc';\n")
+                .append("    th.dataset.order = descending ? 'desc' : 'asc';\n")
+                .append("    rows.sort(function (a, b) {\n")
+                .append("      var x = a.cells[column].textContent, y = b.cells[column].textContent;\n")
+                .append("      var result = isNaN(x) || isNaN(y) ? x.localeCompare(y) : x - y;\n")
+                .append("      return descending ? -result : result;\n")
+                .append("    });\n")
+                .append("    rows.forEach(function (row) { table.appendChild(row); });\n")
+                .append("  });\n")
+                .append("});\n")
+                .append("</script>\n");
+        html.append("</body>\n</html>\n");
+        return html.toString();
+    }
+
+    private static String escape(Object value) {
+        return String.valueOf(value).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,91 @@
+package org.gradle.api.experimental.kotlin.reports;
+
+import org.gradle.api.invocation.Gradle;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+import org.gradle.tooling.events.FinishEvent;
+import org.gradle.tooling.events.OperationCompletionListener;
+import org.gradle.tooling.events.task.TaskExecutionResult;
+import org.gradle.tooling.events.task.TaskFailureResult;
+import org.gradle.tooling.events.task.TaskFinishEvent;
+import org.gradle.tooling.events.task.TaskOperationResult;
+import org.gradle.tooling.events.task.TaskSkippedResult;
+import org.gradle.tooling.events.task.TaskSuccessResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the outcome of the tasks run by the current build, to be summarized by {@link AggregateKotlinBuildReportsTask}.
+ * <p>
+ * A new service instance is created for every build, so the records never include tasks of an earlier build.
+ * Task completion events do not carry the task type, so every task is recorded and the report picks the Kotlin compile tasks.
+ */
+public abstract class KotlinCompileReportService implements BuildService<BuildServiceParameters.None>, OperationCompletionListener {
+    public static final String NAME = "kotlinCompileReports";
+
+    private final Map<String, Map<String, Object>> records = new ConcurrentHashMap<>();
+
+    public static Provider<KotlinCompileReportService> register(Gradle gradle) {
+        return gradle.getSharedServices().registerIfAbsent(NAME, KotlinCompileReportService.class, spec -> { });
+    }
+
+    @Override
+    public void onFinish(FinishEvent event) {
+        if (!(event instanceof TaskFinishEvent)) {
+            return;
+        }
+        TaskFinishEvent taskEvent = (TaskFinishEvent) event;
+        String path = taskEvent.getDescriptor().getTaskPath();
+
+        TaskOperationResult result = taskEvent.getResult();
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("path", path);
+        record.put("project", path.lastIndexOf(':') == 0 ? ":" : path.substring(0, path.lastIndexOf(':')));
+        record.put("durationMs", result.getEndTime() - result.getStartTime());
+        record.put("outcome", outcomeOf(result));
+        if (result instanceof TaskExecutionResult) {
+            TaskExecutionResult executionResult = (TaskExecutionResult) result;
+            List<String> reasons = executionResult.getExecutionReasons();
+            record.put("incremental", executionResult.isIncremental());
+            record.put("executionReasons", reasons != null ? reasons : Collections.emptyList());
+        }
+        records.put(path, record);
+    }
+
+    /**
+     * Returns the records of the given tasks that ran in this build.
+     */
+    public List<Map<String, Object>> getRecords(Set<String> taskPaths) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (String taskPath : taskPaths) {
+            Map<String, Object> record = records.get(taskPath);
+            if (record != null) {
+                result.add(record);
+            }
+        }
+        return result;
+    }
+
+    private static String outcomeOf(TaskOperationResult result) {
+        if (result instanceof TaskFailureResult) {
+            return "FAILED";
+        } else if (result instanceof TaskSkippedResult) {
+            return "SKIPPED";
+        } else if (result instanceof TaskSuccessResult) {
+            TaskSuccessResult successResult = (TaskSuccessResult) result;
+            if (successResult.isFromCache()) {
+                return "FROM-CACHE";
+            } else if (successResult.isUpToDate()) {
+                return "UP-TO-DATE";
+            }
+        }
+        return "EXECUTED";
+    }
+}
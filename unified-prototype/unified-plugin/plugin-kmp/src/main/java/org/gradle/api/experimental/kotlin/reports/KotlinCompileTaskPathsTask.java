@@ -0,0 +1,36 @@
+package org.gradle.api.experimental.kotlin.reports;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.SetProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.DisableCachingByDefault;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.TreeSet;
+
+/**
+ * Writes the paths of the Kotlin compile tasks of a project, one per line, for {@link AggregateKotlinBuildReportsTask}
+ * to pick their records.
+ */
+@DisableCachingByDefault(because = "Not worth caching")
+public abstract class KotlinCompileTaskPathsTask extends DefaultTask {
+    @Input
+    public abstract SetProperty<String> getCompileTaskPaths();
+
+    @OutputFile
+    public abstract RegularFileProperty getOutput();
+
+    @TaskAction
+    public void taskAction() {
+        try {
+            Files.write(getOutput().get().getAsFile().toPath(), new TreeSet<>(getCompileTaskPaths().get()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write Kotlin compile task paths", e);
+        }
+    }
+}
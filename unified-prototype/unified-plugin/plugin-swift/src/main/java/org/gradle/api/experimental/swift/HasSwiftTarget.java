@@ -1,10 +1,27 @@
 package org.gradle.api.experimental.swift;
 
+import org.gradle.api.Action;
 import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Nested;
+import org.gradle.declarative.dsl.model.annotations.Configuring;
 import org.gradle.declarative.dsl.model.annotations.Restricted;
 
 @Restricted
 public interface HasSwiftTarget {
     @Restricted
     Property<Integer> getSwiftVersion();
+
+    /**
+     * Linker to use when linking binaries: one of {@code lld}, {@code gold} or {@code default}.
+     */
+    @Restricted
+    Property<String> getLinker();
+
+    @Nested
+    Optimization getOptimization();
+
+    @Configuring
+    default void optimization(Action<? super Optimization> action) {
+        action.execute(getOptimization());
+    }
 }
@@ -0,0 +1,23 @@
+package org.gradle.api.experimental.swift;
+
+import org.gradle.api.provider.Property;
+import org.gradle.declarative.dsl.model.annotations.Restricted;
+
+/**
+ * Compiler optimization settings applied to the release (optimized) binaries.
+ */
+@Restricted
+public interface Optimization {
+    /**
+     * Whether to compile each module as a single unit with {@code -whole-module-optimization}. Defaults to {@code true}.
+     */
+    @Restricted
+    Property<Boolean> getWholeModule();
+
+    /**
+     * Optimization level: one of {@code speed} ({@code -O}), {@code size} ({@code -Osize}) or {@code unchecked} ({@code -Ounchecked}).
+     * The flag follows the {@code -O} Gradle passes for optimized binaries, and the last level passed to the compiler applies.
+     */
+    @Restricted
+    Property<String> getLevel();
+}
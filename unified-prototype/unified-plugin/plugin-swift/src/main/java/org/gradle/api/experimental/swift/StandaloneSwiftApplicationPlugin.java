@@ -9,7 +9,6 @@ import org.gradle.api.internal.plugins.software.SoftwareType;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.Exec;
 import org.gradle.api.tasks.TaskProvider;
-import org.gradle.language.swift.SwiftBinary;
 import org.gradle.language.swift.SwiftComponent;
 import org.gradle.language.swift.SwiftExecutable;
 import org.gradle.language.swift.plugins.SwiftApplicationPlugin;
@@ -26,6 +25,7 @@ public abstract class StandaloneSwiftApplicationPlugin implements Plugin<Project
     public void apply(Project project) {
         SwiftApplication application = getApplication();
         project.getExtensions().add(SWIFT_APPLICATION, application);
+        SwiftPluginSupport.setConventions(application);
 
         project.getPlugins().apply(SwiftApplicationPlugin.class);
         project.getPlugins().apply(CliApplicationConventionsPlugin.class);
@@ -36,19 +36,21 @@ public abstract class StandaloneSwiftApplicationPlugin implements Plugin<Project
     private void linkDslModelToPlugin(Project project, SwiftApplication application) {
         SwiftComponent model = project.getExtensions().getByType(SwiftComponent.class);
         SwiftPluginSupport.linkSwiftVersion(application, model);
+        SwiftPluginSupport.linkLinker(project, application);
+        SwiftPluginSupport.linkOptimization(application, model);
 
         model.getImplementationDependencies().getDependencies().addAllLater(application.getDependencies().getImplementation().getDependencies());
 
-        project.afterEvaluate(p -> {
-            for (SwiftBinary binary : model.getBinaries().get()) {
-                if (binary instanceof SwiftExecutable) {
-                    Provider<RegularFile> executable = ((SwiftExecutable) binary).getDebuggerExecutableFile();
-                    TaskProvider<Exec> runTask = project.getTasks().register("run" + TextUtil.capitalize(binary.getName()), Exec.class, task -> {
-                        task.executable(executable.get().getAsFile().getAbsoluteFile());
-                        task.dependsOn(executable);
-                    });
-                    application.getRunTasks().add(runTask);
-                }
+        model.getBinaries().configureEach(binary -> {
+            if (binary instanceof SwiftExecutable) {
+                // Release binaries run the stripped, optimized executable rather than the one kept for the debugger
+                SwiftExecutable executableBinary = (SwiftExecutable) binary;
+                Provider<RegularFile> executable = binary.isOptimized() ? executableBinary.getExecutableFile() : executableBinary.getDebuggerExecutableFile();
+                TaskProvider<Exec> runTask = project.getTasks().register("run" + TextUtil.capitalize(binary.getName()), Exec.class, task -> {
+                    task.executable(executable.get().getAsFile().getAbsoluteFile());
+                    task.dependsOn(executable);
+                });
+                application.getRunTasks().add(runTask);
             }
         });
     }
@@ -17,6 +17,7 @@ public abstract class StandaloneSwiftLibraryPlugin implements Plugin<Project> {
     public void apply(Project project) {
         SwiftLibrary library = getLibrary();
         project.getExtensions().add(SWIFT_LIBRARY, library);
+        SwiftPluginSupport.setConventions(library);
 
         project.getPlugins().apply(SwiftLibraryPlugin.class);
 
@@ -26,6 +27,8 @@ public abstract class StandaloneSwiftLibraryPlugin implements Plugin<Project> {
     private void linkDslModelToPlugin(Project project, SwiftLibrary library) {
         org.gradle.language.swift.SwiftLibrary model = project.getExtensions().getByType(org.gradle.language.swift.SwiftLibrary.class);
         SwiftPluginSupport.linkSwiftVersion(library, model);
+        SwiftPluginSupport.linkLinker(project, library);
+        SwiftPluginSupport.linkOptimization(library, model);
 
         model.getImplementationDependencies().getDependencies().addAllLater(library.getDependencies().getImplementation().getDependencies());
         model.getApiDependencies().getDependencies().addAllLater(library.getDependencies().getApi().getDependencies());
@@ -1,10 +1,22 @@
 package org.gradle.api.experimental.swift.internal;
 
+import org.gradle.api.Project;
 import org.gradle.api.experimental.swift.HasSwiftTarget;
 import org.gradle.language.swift.SwiftComponent;
 import org.gradle.language.swift.SwiftVersion;
+import org.gradle.nativeplatform.tasks.AbstractLinkTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class SwiftPluginSupport {
+    public static void setConventions(HasSwiftTarget component) {
+        component.getLinker().convention("default");
+        component.getOptimization().getWholeModule().convention(true);
+        component.getOptimization().getLevel().convention("speed");
+    }
+
     public static void linkSwiftVersion(HasSwiftTarget component, SwiftComponent model) {
         model.getSourceCompatibility().set(component.getSwiftVersion().map(m -> {
             if (m == 3) {
@@ -18,4 +30,55 @@ public class SwiftPluginSupport {
             }
         }));
     }
+
+    public static void linkLinker(Project project, HasSwiftTarget component) {
+        project.getTasks().withType(AbstractLinkTask.class).configureEach(task ->
+            task.getLinkerArgs().addAll(component.getLinker().map(SwiftPluginSupport::linkerArgs))
+        );
+    }
+
+    public static void linkOptimization(HasSwiftTarget component, SwiftComponent model) {
+        model.getBinaries().configureEach(binary -> {
+            if (binary.isOptimized()) {
+                // The compile task is registered along with the binary, and only exposed as a provider.
+                // Gradle passes -O for optimized binaries, the compiler uses the last optimization level it is given.
+                binary.getCompileTask().get().getCompilerArgs().addAll(
+                    component.getOptimization().getLevel().zip(component.getOptimization().getWholeModule(), SwiftPluginSupport::optimizationArgs)
+                );
+            }
+        });
+    }
+
+    private static List<String> optimizationArgs(String level, boolean wholeModule) {
+        List<String> args = new ArrayList<>();
+        switch (level) {
+            case "speed":
+                args.add("-O");
+                break;
+            case "size":
+                args.add("-Osize");
+                break;
+            case "unchecked":
+                args.add("-Ounchecked");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported optimization level " + level);
+        }
+        if (wholeModule) {
+            args.add("-whole-module-optimization");
+        }
+        return args;
+    }
+
+    private static List<String> linkerArgs(String linker) {
+        switch (linker) {
+            case "default":
+                return Collections.emptyList();
+            case "lld":
+            case "gold":
+                return Collections.singletonList("-use-ld=" + linker);
+            default:
+                throw new IllegalArgumentException("Unsupported linker " + linker);
+        }
+    }
 }